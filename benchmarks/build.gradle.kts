@@ -0,0 +1,48 @@
+// JMH benchmarks of the text transforms; run with ./gradlew :benchmarks:jmh
+//
+// -PjmhIncludes=<regex> selects benchmarks, for example TransformBenchmark.quote
+// -PjmhSize=1024,65536 (and -PjmhMix, -PjmhLineLength) overrides parameters
+// -Pvector measures the kernels using the Vector API (see CharKernels)
+//
+// Results are written to results/<version>.json, so that the numbers of
+// different versions can be compared, for example on https://jmh.morethan.io
+plugins {
+    java
+    id("me.champeau.jmh")
+}
+
+repositories {
+    google()
+    mavenCentral()
+    maven("https://maven.pkg.jetbrains.space/public/p/compose/dev")
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+dependencies {
+    jmh(project(":")) {
+        // the benchmarked classes do not use the Compose user interface
+        exclude(group = "org.jetbrains.compose.desktop")
+    }
+}
+
+jmh {
+    jmhVersion.set(providers.gradleProperty("jmh.version"))
+    // allocation rate and bytes per operation
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.projectDirectory.file("results/${rootProject.version}.json"))
+    jvmArgsAppend.add("-Xmx4g")
+    if (providers.gradleProperty("vector").isPresent) {
+        jvmArgsAppend.add("--add-modules=jdk.incubator.vector")
+    }
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes.add(it) }
+    mapOf("jmhSize" to "size", "jmhMix" to "mix", "jmhLineLength" to "lineLength").forEach { (property, param) ->
+        providers.gradleProperty(property).orNull?.let { values ->
+            benchmarkParameters.put(param, objects.listProperty<String>().value(values.split(",")))
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * ConversionBenchmark.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures conversions that do not work line by line: HTML to RTF and
+ * decoding escape sequences. The input of {@link #decode()} is the text
+ * with all non-ASCII and control characters escaped.
+ *
+ * @author Thomas Kuenneth
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConversionBenchmark {
+
+    /**
+     * Number of characters of the text, 1 KB to 64 MB.
+     */
+    @Param({"1024", "65536", "1048576", "16777216", "67108864"})
+    public int size;
+
+    @Param
+    public TextInputs.Mix mix;
+
+    private String html;
+    private String escaped;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        html = TextInputs.html(size, mix);
+        escaped = EscapeCodec.encode(EscapeCodec.Scheme.JAVA, TextInputs.text(size, mix, 80));
+    }
+
+    @Benchmark
+    public String html2Rtf() {
+        return PluginManager.html2Rtf(html);
+    }
+
+    @Benchmark
+    public String decode() {
+        return StringUtils.decode(escaped);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * TextInputs.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.util.Random;
+
+/**
+ * Creates the texts the benchmarks work on. The same arguments always give
+ * the same text.
+ *
+ * @author Thomas Kuenneth
+ */
+public final class TextInputs {
+
+    /**
+     * The characters texts are made of.
+     */
+    public enum Mix {
+        ASCII("The", "quick", "brown", "fox", "jumps", "over", "the", "lazy", "dog.",
+                "Snippets", "are", "pasted", "1.", "2)", "e.g.", "(see", "below)", "42", "#tag"),
+        GERMAN("Gr\u00fc\u00dfe", "aus", "M\u00fcnchen,", "\u00fcber", "die", "sch\u00f6ne",
+                "Stra\u00dfe", "und", "\u00c4rger", "mit", "dem", "B\u00e4cker.", "Zwischenablage",
+                "Textschnipsel", "1.", "\u00d6l", "f\u00fcr", "\u201eHei\u00dfe\u201c", "Tage"),
+        CJK("\u526a\u8d34\u677f", "\u6587\u672c", "\u7247\u6bb5\u3002", "\u4e1c\u4eac",
+                "\u3053\u3093\u306b\u3061\u306f", "\u30c6\u30ad\u30b9\u30c8", "\ud55c\uad6d\uc5b4",
+                "\u6e2c\u8a66\uff0c", "\u4e16\u754c", "ok", "2026"),
+        EMOJI("\ud83d\ude00", "\ud83d\udc4d", "\ud83c\udf89", "ok", "\u2764\ufe0f", "\ud83d\ude80",
+                "done", "\ud83c\uddea\ud83c\uddfa", "\ud83d\udc68\u200d\ud83d\udcbb", "so", "cool!");
+
+        private final String[] words;
+
+        Mix(String... words) {
+            this.words = words;
+        }
+    }
+
+    private TextInputs() {
+    }
+
+    /**
+     * Creates text made of words separated by blanks, with a tab now and
+     * then, lines of about {@code lineLength} characters ending with "\n" or
+     * "\r\n" and an empty line after every tenth line.
+     *
+     * @param size       number of characters
+     * @param mix        the kind of words
+     * @param lineLength approximate number of characters per line
+     * @return the text
+     */
+    static String text(int size, Mix mix, int lineLength) {
+        Random random = new Random(31L * size + mix.ordinal());
+        StringBuilder sb = new StringBuilder(size + lineLength + 16);
+        int lineStart = 0;
+        int lines = 0;
+        while (sb.length() < size) {
+            if (sb.length() > lineStart) {
+                sb.append(random.nextInt(16) == 0 ? '\t' : ' ');
+            }
+            sb.append(mix.words[random.nextInt(mix.words.length)]);
+            if (sb.length() - lineStart >= lineLength) {
+                sb.append(random.nextBoolean() ? "\n" : "\r\n");
+                if (++lines % 10 == 0) {
+                    sb.append('\n');
+                }
+                lineStart = sb.length();
+            }
+        }
+        sb.setLength(size);
+        // do not end with half a surrogate pair
+        if (Character.isHighSurrogate(sb.charAt(size - 1))) {
+            sb.setCharAt(size - 1, ' ');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Creates an HTML document of about {@code size} characters: one
+     * paragraph per line of {@link #text(int, Mix, int)}, with some bold and
+     * italic words, entities and links.
+     *
+     * @param size number of characters of the text
+     * @param mix  the kind of words
+     * @return the document
+     */
+    static String html(int size, Mix mix) {
+        String[] lines = text(size, mix, 80).split("\r?\n");
+        StringBuilder sb = new StringBuilder(size + size / 2);
+        sb.append("<html><head><title>Benchmark</title></head><body>\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = EscapeCodec.encode(EscapeCodec.Scheme.HTML, lines[i]);
+            switch (i % 4) {
+                case 0 -> sb.append("<p>").append(line).append("</p>\n");
+                case 1 -> sb.append("<p><b>").append(line).append("</b> &amp; more</p>\n");
+                case 2 -> sb.append("<ul><li><i>").append(line).append("</i></li></ul>\n");
+                default -> sb.append("<p><a href=\"https://example.com/?a=1&amp;b=2\">")
+                        .append(line).append("</a><br>&nbsp;</p>\n");
+            }
+        }
+        sb.append("</body></html>\n");
+        return sb.toString();
+    }
+}
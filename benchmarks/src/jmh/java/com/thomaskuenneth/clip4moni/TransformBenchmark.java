@@ -0,0 +1,105 @@
+/*
+ * TransformBenchmark.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the line and character filters offered in the clipboard menu.
+ * {@link #lineTransform()} measures splitting and joining lines alone (what
+ * {@code processData()} used to do), with a filter that copies each line.
+ *
+ * @author Thomas Kuenneth
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransformBenchmark {
+
+    /**
+     * Number of characters, 1 KB to 64 MB.
+     */
+    @Param({"1024", "65536", "1048576", "16777216", "67108864"})
+    public int size;
+
+    @Param
+    public TextInputs.Mix mix;
+
+    @Param({"80", "4096"})
+    public int lineLength;
+
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        text = TextInputs.text(size, mix, lineLength);
+    }
+
+    @Benchmark
+    public String removeSemivowels() {
+        return TextTransforms.removeSemivowels().apply(text);
+    }
+
+    @Benchmark
+    public String removeBlanks() {
+        return TextTransforms.removeBlanks().apply(text);
+    }
+
+    @Benchmark
+    public String removeCrLf() {
+        return TextTransforms.removeCrLf().apply(text);
+    }
+
+    @Benchmark
+    public String removeSpecials() {
+        return TextTransforms.removeSpecials().apply(text);
+    }
+
+    @Benchmark
+    public String stripNumbers() {
+        return TextTransforms.stripNumbers().apply(text);
+    }
+
+    @Benchmark
+    public String quote() {
+        return PluginManager.quote(text);
+    }
+
+    @Benchmark
+    public String lineTransform() {
+        return new LineTransform((src, off, len, dst) -> dst.append(src, off, len), true).apply(text);
+    }
+}
@@ -37,7 +37,30 @@ kotlin {
                 implementation(compose.desktop.currentOs)
             }
         }
-        val jvmTest by getting
+        val jvmTest by getting {
+            dependencies {
+                val junitVersion = providers.gradleProperty("junit.version").get()
+                implementation(project.dependencies.platform("org.junit:junit-bom:$junitVersion"))
+                implementation("org.junit.jupiter:junit-jupiter")
+                runtimeOnly("org.junit.platform:junit-platform-launcher")
+            }
+        }
+    }
+}
+
+tasks.withType<Test> {
+    useJUnitPlatform()
+}
+
+// The kernels using the incubating Vector API (src/jvmVector, see CharKernels)
+// are only built with -Pvector: javac warns about every use of an incubator
+// module, and the packaged app would have to include it. Without them,
+// CharKernels uses simple loops.
+val vector = providers.gradleProperty("vector").isPresent
+if (vector) {
+    the<SourceSetContainer>()["main"].java.srcDir("src/jvmVector/java")
+    tasks.withType<JavaCompile> {
+        options.compilerArgs.addAll(listOf("--add-modules", "jdk.incubator.vector"))
     }
 }
 
@@ -50,8 +73,14 @@ val macExtraPlistKeys: String
 compose.desktop {
     application {
         mainClass = "com.thomaskuenneth.clip4moni.MainKt"
+        if (vector) {
+            jvmArgs += listOf("--add-modules=jdk.incubator.vector")
+        }
         nativeDistributions {
             modules("java.instrument", "java.prefs", "java.scripting", "jdk.unsupported")
+            if (vector) {
+                modules("jdk.incubator.vector")
+            }
             targetFormats(TargetFormat.Dmg, TargetFormat.Msi, TargetFormat.Deb)
             packageName = "Clip4Moni"
             packageVersion = version.toString()
@@ -10,7 +10,9 @@ pluginManagement {
         kotlin("multiplatform").version(extra["kotlin.version"] as String)
         id("org.jetbrains.compose").version(extra["compose.version"] as String)
         kotlin("plugin.compose").version(extra["kotlin.version"] as String)
+        id("me.champeau.jmh").version(extra["jmh.plugin.version"] as String)
     }
 }
 
 rootProject.name = "Clip4Moni"
+include(":benchmarks")
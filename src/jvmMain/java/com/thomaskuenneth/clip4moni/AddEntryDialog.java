@@ -27,6 +27,9 @@ import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.logging.Logger;
 import javax.swing.BorderFactory;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
@@ -35,6 +38,8 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
 
 /**
  * This dialog is used to enter a description and contents. The contents are put
@@ -45,6 +50,9 @@ import javax.swing.JTextField;
  */
 public class AddEntryDialog extends AbstractDialog {
 
+    private static final String TAG = AddEntryDialog.class.getName();
+    private static final Logger LOGGER = Logger.getLogger(TAG);
+
     private final JTextField textfieldDescription;
     private final JTextArea textareaContents;
 
@@ -78,7 +86,10 @@ public class AddEntryDialog extends AbstractDialog {
         final ActionListener al = (ActionEvent e) -> {
             String cmd = e.getActionCommand();
             String result = PluginManager.callPlugin(cmd, textareaContents.getText());
-            textareaContents.setText(result);
+            // null if the plugin has failed; the text is left alone then
+            if (result != null) {
+                textareaContents.setText(result);
+            }
         };
         // populate plugin menu
         final PopupMenu pm = new PopupMenu();
@@ -109,11 +120,41 @@ public class AddEntryDialog extends AbstractDialog {
 
     public int showDialog(String headline, String description, String contents) {
         textfieldDescription.setText(description);
-        textareaContents.setText(contents);
+        if (contents != null) {
+            textareaContents.setText(contents);
+        }
         title = headline;
         return showDialog();
     }
 
+    /**
+     * Shows the dialog. The contents are read in chunks straight into the text
+     * area, so they are not held in memory as a string in addition to the
+     * document. Line endings are kept as they are.
+     *
+     * @param headline    title of the dialog
+     * @param description the description
+     * @param contents    reader for the contents (may be {@code null})
+     * @return the option chosen by the user
+     */
+    public int showDialog(String headline, String description, Reader contents) {
+        textareaContents.setText(null);
+        if (contents != null) {
+            Document doc = textareaContents.getDocument();
+            char[] buf = new char[8192];
+            try (Reader in = contents) {
+                int read;
+                while ((read = in.read(buf)) != -1) {
+                    doc.insertString(doc.getLength(), new String(buf, 0, read), null);
+                }
+            } catch (IOException | BadLocationException e) {
+                LOGGER.throwing(TAG, "showDialog()", e);
+            }
+            textareaContents.setCaretPosition(0);
+        }
+        return showDialog(headline, description, (String) null);
+    }
+
     @Override
     public String getTitle() {
         return title;
@@ -0,0 +1,307 @@
+/*
+ * BuiltinTransforms.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+/**
+ * The transformations that come with Clip4Moni. They are registered in
+ * {@code META-INF/services/com.thomaskuenneth.clip4moni.TransformProvider}
+ * just like plugins from jars, in menu order. Labels and groups are keys in
+ * {@link Messages}.
+ *
+ * @author Thomas Kuenneth
+ */
+public final class BuiltinTransforms {
+
+    private BuiltinTransforms() {
+    }
+
+    /**
+     * A transformation that can process its input while it is being read.
+     */
+    private abstract static class Streaming implements TransformProvider {
+
+        abstract TextTransform create();
+
+        @Override
+        public String transform(String in) {
+            return create().apply(in);
+        }
+
+        @Override
+        public TextTransform getTextTransform() {
+            return create();
+        }
+    }
+
+    private abstract static class Codec implements TransformProvider {
+
+        private final EscapeCodec.Scheme scheme;
+        private final boolean encode;
+
+        Codec(EscapeCodec.Scheme scheme, boolean encode) {
+            this.scheme = scheme;
+            this.encode = encode;
+        }
+
+        @Override
+        public String transform(String in) {
+            return encode ? EscapeCodec.encode(scheme, in) : EscapeCodec.decode(scheme, in);
+        }
+    }
+
+    @TransformInfo(id = "showContents", label = "MI_SHOW_CONTENTS")
+    public static class ShowContents implements TransformProvider {
+
+        @Override
+        public String transform(String in) {
+            new ShowContentsDialog(in).showDialog();
+            return in;
+        }
+    }
+
+    @TransformInfo(id = "replace", label = "MI_REPLACE")
+    public static class Replace implements TransformProvider {
+
+        @Override
+        public String transform(String in) {
+            ReplaceDialog d = new ReplaceDialog(in);
+            d.showDialog();
+            return d.getContents();
+        }
+    }
+
+    @TransformInfo(id = "removeBlanks", label = "MI_REMOVE_BLANKS")
+    public static class RemoveBlanks extends Streaming {
+
+        @Override
+        TextTransform create() {
+            return TextTransforms.removeBlanks();
+        }
+    }
+
+    @TransformInfo(id = "removeSemivowels", label = "MI_REMOVE_SEMIVOWELS")
+    public static class RemoveSemivowels extends Streaming {
+
+        @Override
+        TextTransform create() {
+            return TextTransforms.removeSemivowels();
+        }
+    }
+
+    @TransformInfo(id = "transliterate", label = "MI_TRANSLITERATE")
+    public static class Transliterate extends Streaming {
+
+        @Override
+        TextTransform create() {
+            return TextTransforms.transliterate();
+        }
+    }
+
+    @TransformInfo(id = "tabToSpace", label = "MI_TAB_TO_SPACE")
+    public static class TabToSpace extends Streaming {
+
+        @Override
+        TextTransform create() {
+            return TextTransforms.convertTabToSpace();
+        }
+    }
+
+    @TransformInfo(id = "toUpperCase", label = "MI_UPPERCASE")
+    public static class ToUpperCase implements TransformProvider {
+
+        @Override
+        public String transform(String in) {
+            return PluginManager.toUpperCase(in);
+        }
+    }
+
+    @TransformInfo(id = "removeCrLf", label = "MI_REMOVE_CRLF")
+    public static class RemoveCrLf extends Streaming {
+
+        @Override
+        TextTransform create() {
+            return TextTransforms.removeCrLf();
+        }
+    }
+
+    @TransformInfo(id = "removeSpecials", label = "MI_REMOVE_SPECIALS")
+    public static class RemoveSpecials extends Streaming {
+
+        @Override
+        TextTransform create() {
+            return TextTransforms.removeSpecials();
+        }
+    }
+
+    @TransformInfo(id = "stripNumbers", label = "MI_STRIP_NUMBERS")
+    public static class StripNumbers extends Streaming {
+
+        @Override
+        TextTransform create() {
+            return TextTransforms.stripNumbers();
+        }
+    }
+
+    @TransformInfo(id = "html2Rtf", label = "MI_HTML_TO_RTF")
+    public static class Html2Rtf extends Streaming {
+
+        @Override
+        TextTransform create() {
+            return new HtmlToRtf();
+        }
+    }
+
+    @TransformInfo(id = "rtf2Html", label = "MI_RTF_TO_HTML")
+    public static class Rtf2Html extends Streaming {
+
+        @Override
+        TextTransform create() {
+            return new RtfToHtml();
+        }
+    }
+
+    @TransformInfo(id = "rtf2Text", label = "MI_RTF_TO_TEXT")
+    public static class Rtf2Text extends Streaming {
+
+        @Override
+        TextTransform create() {
+            return new RtfToText();
+        }
+    }
+
+    @TransformInfo(id = "quote", label = "MI_QUOTE")
+    public static class Quote extends Streaming {
+
+        @Override
+        TextTransform create() {
+            return Reflow.quote();
+        }
+    }
+
+    @TransformInfo(id = "reflow", label = "MI_REFLOW")
+    public static class ReflowText implements TransformProvider {
+
+        @Override
+        public String transform(String in) {
+            Reflow r = new ReflowDialog().createReflow();
+            return r != null ? r.apply(in) : in;
+        }
+    }
+
+    @TransformInfo(id = "createUuid", label = "MI_CREATE_UUID")
+    public static class CreateUuid implements TransformProvider {
+
+        @Override
+        public String transform(String in) {
+            return new IdGenerator(IdGenerator.Format.UUID_V4).next();
+        }
+    }
+
+    @TransformInfo(id = "createIds", label = "MI_CREATE_IDS")
+    public static class CreateIds implements TransformProvider {
+
+        @Override
+        public String transform(String in) {
+            String ids = new IdGeneratorDialog().createIds();
+            return ids != null ? ids : in;
+        }
+    }
+
+    @TransformInfo(id = "decodeJava", label = "MI_DECODE_JAVA", group = "MI_ESCAPES")
+    public static class DecodeJava extends Codec {
+
+        public DecodeJava() {
+            super(EscapeCodec.Scheme.JAVA, false);
+        }
+    }
+
+    @TransformInfo(id = "encodeJava", label = "MI_ENCODE_JAVA", group = "MI_ESCAPES")
+    public static class EncodeJava extends Codec {
+
+        public EncodeJava() {
+            super(EscapeCodec.Scheme.JAVA, true);
+        }
+    }
+
+    @TransformInfo(id = "decodePercent", label = "MI_DECODE_PERCENT", group = "MI_ESCAPES")
+    public static class DecodePercent extends Codec {
+
+        public DecodePercent() {
+            super(EscapeCodec.Scheme.PERCENT, false);
+        }
+    }
+
+    @TransformInfo(id = "encodePercent", label = "MI_ENCODE_PERCENT", group = "MI_ESCAPES")
+    public static class EncodePercent extends Codec {
+
+        public EncodePercent() {
+            super(EscapeCodec.Scheme.PERCENT, true);
+        }
+    }
+
+    @TransformInfo(id = "decodeHtml", label = "MI_DECODE_HTML", group = "MI_ESCAPES")
+    public static class DecodeHtml extends Codec {
+
+        public DecodeHtml() {
+            super(EscapeCodec.Scheme.HTML, false);
+        }
+    }
+
+    @TransformInfo(id = "encodeHtml", label = "MI_ENCODE_HTML", group = "MI_ESCAPES")
+    public static class EncodeHtml extends Codec {
+
+        public EncodeHtml() {
+            super(EscapeCodec.Scheme.HTML, true);
+        }
+    }
+
+    @TransformInfo(id = "decodeBase64", label = "MI_DECODE_BASE64", group = "MI_ESCAPES")
+    public static class DecodeBase64 extends Codec {
+
+        public DecodeBase64() {
+            super(EscapeCodec.Scheme.BASE64, false);
+        }
+    }
+
+    @TransformInfo(id = "encodeBase64", label = "MI_ENCODE_BASE64", group = "MI_ESCAPES")
+    public static class EncodeBase64 extends Codec {
+
+        public EncodeBase64() {
+            super(EscapeCodec.Scheme.BASE64, true);
+        }
+    }
+
+    @TransformInfo(id = "decodeHex", label = "MI_DECODE_HEX", group = "MI_ESCAPES")
+    public static class DecodeHex extends Codec {
+
+        public DecodeHex() {
+            super(EscapeCodec.Scheme.HEX, false);
+        }
+    }
+
+    @TransformInfo(id = "encodeHex", label = "MI_ENCODE_HEX", group = "MI_ESCAPES")
+    public static class EncodeHex extends Codec {
+
+        public EncodeHex() {
+            super(EscapeCodec.Scheme.HEX, true);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * ChainsDialog.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.awt.BorderLayout;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.DefaultListModel;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JOptionPane;
+import javax.swing.JScrollPane;
+import javax.swing.JSplitPane;
+import javax.swing.JTextArea;
+import javax.swing.ListSelectionModel;
+
+/**
+ * This dialog edits the transform chains (see {@link TransformChain}). The
+ * available plugins are listed next to the text; double-clicking one
+ * inserts its id.
+ *
+ * @author Thomas Kuenneth
+ */
+public class ChainsDialog extends AbstractDialog {
+
+    private final JTextArea textareaChains;
+    private final JList<String> listPlugins;
+    private final List<String> ids;
+
+    public ChainsDialog(String chains) {
+        textareaChains = new JTextArea(chains);
+        ids = new ArrayList<>();
+        DefaultListModel<String> model = new DefaultListModel<>();
+        for (PluginManager.Plugin p : PluginManager.getChainablePlugins()) {
+            ids.add(p.getId());
+            model.addElement(p.getId() + " \u2013 " + p.getLabel());
+        }
+        listPlugins = new JList<>(model);
+        init();
+    }
+
+    private void init() {
+        listPlugins.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        listPlugins.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = listPlugins.locationToIndex(e.getPoint());
+                if (e.getClickCount() == 2 && index >= 0) {
+                    textareaChains.replaceSelection(ids.get(index));
+                    textareaChains.requestFocusInWindow();
+                }
+            }
+        });
+        JSplitPane split = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT,
+                new JScrollPane(textareaChains), new JScrollPane(listPlugins));
+        split.setResizeWeight(0.6);
+        setPreferredSize(UIHelper.PREFERRED_SIZE);
+        add(new JLabel(Messages.getString("STR_CHAINS_HELP")), BorderLayout.NORTH);
+        add(split, BorderLayout.CENTER);
+    }
+
+    /**
+     * Shows the dialog until the chains are valid or the user wants to keep
+     * them anyway.
+     *
+     * @return the chains or {@code null} if the dialog has been cancelled
+     */
+    public String editChains() {
+        while (showDialog() == JOptionPane.OK_OPTION) {
+            String chains = textareaChains.getText();
+            List<String> problems = new ArrayList<>();
+            PluginManager.checkChains(chains, problems);
+            if (problems.isEmpty()) {
+                return chains;
+            }
+            String message = MessageFormat.format(Messages.getString("STR_CHAINS_SAVE_ANYWAY"),
+                    String.join("\n", problems));
+            if (JOptionPane.showConfirmDialog(null, message, getTitle(),
+                    JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE) == JOptionPane.YES_OPTION) {
+                return chains;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String getTitle() {
+        return Messages.getString("TITLE_EDIT_CHAINS");
+    }
+
+    @Override
+    public int getOption() {
+        return JOptionPane.OK_CANCEL_OPTION;
+    }
+}
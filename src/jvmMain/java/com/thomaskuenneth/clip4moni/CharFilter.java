@@ -0,0 +1,52 @@
+/*
+ * CharFilter.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+/**
+ * Filters characters. Used by {@link LineTransform}, which passes the
+ * characters of a line (without line terminator) in one or more consecutive
+ * segments, and by {@link CharTransform}, which passes the whole text in
+ * segments.
+ *
+ * @author Thomas Kuenneth
+ */
+public interface CharFilter {
+
+    /**
+     * Filters a segment of characters.
+     *
+     * @param src the characters
+     * @param off index of the first character
+     * @param len number of characters
+     * @param dst receives the result
+     */
+    void filter(char[] src, int off, int len, StringBuilder dst);
+
+    /**
+     * Invoked by {@link LineTransform} after the last segment of a line and
+     * by {@link CharTransform} at the end of the text. Filters that hold back
+     * characters must append them here.
+     *
+     * @param dst receives the result
+     */
+    default void endLine(StringBuilder dst) {
+    }
+}
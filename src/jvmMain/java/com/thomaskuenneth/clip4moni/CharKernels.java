@@ -0,0 +1,185 @@
+/*
+ * CharKernels.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Searches {@code char} arrays for the characters filters need to act on,
+ * so that the runs in between can be copied in bulk. If the app has been
+ * built with {@code -Pvector} (see build.gradle.kts) and the incubating
+ * Vector API ({@code jdk.incubator.vector}) has been added to the module
+ * graph, the searches compare a whole vector of characters at a time;
+ * otherwise simple loops are used. Both return the same results.
+ *
+ * @author Thomas Kuenneth
+ */
+public final class CharKernels {
+
+    private static final String CLASSNAME = CharKernels.class.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASSNAME);
+
+    /**
+     * The operations; all return the index of the first matching character
+     * in {@code [from, to)} or {@code to}.
+     */
+    interface Impl {
+
+        int indexOf(char[] a, char ch, int from, int to);
+
+        int indexOfLineTerminator(char[] a, int from, int to);
+
+        int indexOfNonAscii(char[] a, int from, int to);
+
+        int indexOfNonWordChar(char[] a, int from, int to);
+    }
+
+    private static final Impl IMPL = createImpl();
+
+    private CharKernels() {
+    }
+
+    public static boolean isVectorized() {
+        return !(IMPL instanceof Scalar);
+    }
+
+    /**
+     * Finds a character.
+     *
+     * @param a    the characters
+     * @param ch   the character to look for
+     * @param from first index to look at
+     * @param to   index after the last one to look at
+     * @return the index or {@code to}
+     */
+    public static int indexOf(char[] a, char ch, int from, int to) {
+        return IMPL.indexOf(a, ch, from, to);
+    }
+
+    /**
+     * Finds the next '\n' or '\r'.
+     *
+     * @param a    the characters
+     * @param from first index to look at
+     * @param to   index after the last one to look at
+     * @return the index or {@code to}
+     */
+    public static int indexOfLineTerminator(char[] a, int from, int to) {
+        return IMPL.indexOfLineTerminator(a, from, to);
+    }
+
+    /**
+     * Finds the next character outside ASCII.
+     *
+     * @param a    the characters
+     * @param from first index to look at
+     * @param to   index after the last one to look at
+     * @return the index or {@code to}
+     */
+    public static int indexOfNonAscii(char[] a, int from, int to) {
+        return IMPL.indexOfNonAscii(a, from, to);
+    }
+
+    /**
+     * Finds the next character that is not an ASCII letter or digit, a blank,
+     * '.' or '-'.
+     *
+     * @param a    the characters
+     * @param from first index to look at
+     * @param to   index after the last one to look at
+     * @return the index or {@code to}
+     */
+    public static int indexOfNonWordChar(char[] a, int from, int to) {
+        return IMPL.indexOfNonWordChar(a, from, to);
+    }
+
+    /**
+     * Checks if a character belongs to the set skipped by
+     * {@link #indexOfNonWordChar(char[], int, int)}.
+     *
+     * @param ch the character
+     * @return {@code true} if it is an ASCII letter or digit, a blank, '.' or '-'
+     */
+    public static boolean isWordChar(char ch) {
+        char lower = (char) (ch | 0x20);
+        return (lower >= 'a' && lower <= 'z') || (ch >= '0' && ch <= '9')
+                || ch == ' ' || ch == '.' || ch == '-';
+    }
+
+    private static Impl createImpl() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                Impl impl = (Impl) Class.forName(CharKernels.class.getPackageName()
+                        + ".VectorCharKernels").getDeclaredConstructor().newInstance();
+                LOGGER.log(Level.CONFIG, "using {0}", impl);
+                return impl;
+            } catch (ReflectiveOperationException | LinkageError
+                     | UnsupportedOperationException e) {
+                LOGGER.log(Level.CONFIG, "Vector API not usable", e);
+            }
+        }
+        return new Scalar();
+    }
+
+    static final class Scalar implements Impl {
+
+        @Override
+        public int indexOf(char[] a, char ch, int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (a[i] == ch) {
+                    return i;
+                }
+            }
+            return to;
+        }
+
+        @Override
+        public int indexOfLineTerminator(char[] a, int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (a[i] == '\n' || a[i] == '\r') {
+                    return i;
+                }
+            }
+            return to;
+        }
+
+        @Override
+        public int indexOfNonAscii(char[] a, int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (a[i] >= 0x80) {
+                    return i;
+                }
+            }
+            return to;
+        }
+
+        @Override
+        public int indexOfNonWordChar(char[] a, int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (!isWordChar(a[i])) {
+                    return i;
+                }
+            }
+            return to;
+        }
+    }
+}
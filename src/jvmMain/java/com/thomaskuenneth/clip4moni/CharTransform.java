@@ -0,0 +1,72 @@
+/*
+ * CharTransform.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.function.Supplier;
+
+/**
+ * This transform applies a {@link CharFilter} to a whole text, line
+ * terminators included, chunk by chunk.
+ *
+ * @author Thomas Kuenneth
+ */
+public class CharTransform implements FusableTransform {
+
+    private final Supplier<? extends CharFilter> filters;
+
+    /**
+     * Creates a transform with a stateless filter.
+     *
+     * @param filter the filter
+     */
+    public CharTransform(CharFilter filter) {
+        this(() -> filter);
+    }
+
+    public CharTransform(Supplier<? extends CharFilter> filters) {
+        this.filters = filters;
+    }
+
+    @Override
+    public TransformWriter open(Writer out) {
+        return new TransformWriter(out) {
+
+            private final CharFilter filter = filters.get();
+            private final StringBuilder filtered = new StringBuilder();
+
+            @Override
+            public void write(char[] cbuf, int off, int len) throws IOException {
+                filtered.setLength(0);
+                filter.filter(cbuf, off, len, filtered);
+                out.append(filtered);
+            }
+
+            @Override
+            protected void endOfInput() throws IOException {
+                filtered.setLength(0);
+                filter.endLine(filtered);
+                out.append(filtered);
+            }
+        };
+    }
+}
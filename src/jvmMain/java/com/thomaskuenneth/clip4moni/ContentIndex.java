@@ -0,0 +1,682 @@
+/*
+ * ContentIndex.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.ObjIntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is a persistent inverted index over the contents of snippets
+ * (Clip4Moni.idx). It maps terms (lowercased runs of letters and digits) to
+ * the names of the snippets containing them and the positions of the terms.
+ * <p>
+ * The term dictionary is kept in memory; postings are read from the file
+ * when a term is searched, so a query reads only the postings of its terms.
+ * Snippets updated or removed since the file was written are kept in an
+ * in-memory overlay; {@link #save()} merges both and rewrites the file. For
+ * every snippet a stamp (see {@link FileHelper#getSnippetStamp(String)}) is
+ * stored, so that {@link #validate(Map)} can tell which snippets must be
+ * indexed again, for example because changes have not been saved.
+ * <p>
+ * File layout: header ('C', '4', 'M', 'I', version), start of the postings
+ * (8 bytes), the number of snippets, name and stamp of each snippet, the
+ * number of terms, for each term the term, the number of snippets containing
+ * it and offset and length of its postings. The postings of a term list the
+ * snippets in ascending order (as differences) with the number of positions
+ * and the positions (as differences). Numbers are unsigned LEB128 varints.
+ *
+ * @author Thomas Kuenneth
+ */
+public class ContentIndex {
+
+    private static final String TAG = ContentIndex.class.getName();
+    private static final Logger LOGGER = Logger.getLogger(TAG);
+
+    private static final byte[] HEADER = {'C', '4', 'M', 'I'};
+    private static final byte VERSION = 1;
+    private static final int HEADER_LENGTH = HEADER.length + 1 + 8;
+
+    private static final int MAX_TERM_LENGTH = 64;
+    // only the beginning of huge snippets is indexed
+    private static final int MAX_CONTENT_CHARS = 1024 * 1024;
+    // a prefix matching more terms than this is not expanded further
+    private static final int MAX_PREFIX_TERMS = 256;
+
+    private final File file;
+    private final TreeMap<String, Term> dictionary;
+    private final Map<String, Long> stamps;
+    private final Map<String, Map<String, int[]>> overlay;
+    // snippets whose postings in the file are outdated
+    private final Set<String> stale;
+
+    // changed since a save has begun; guarded by this
+    private final Set<String> touched;
+    // serializes saves
+    private final Object saveLock;
+
+    private FileChannel channel;
+    private long postingsStart;
+    private String[] names;
+    private boolean dirty;
+    private boolean saving;
+
+    private ContentIndex(File file) {
+        this.file = file;
+        dictionary = new TreeMap<>();
+        stamps = new HashMap<>();
+        overlay = new HashMap<>();
+        stale = new HashSet<>();
+        touched = new HashSet<>();
+        saveLock = new Object();
+        names = new String[0];
+    }
+
+    /**
+     * Opens an index. If the file does not exist or cannot be read, the
+     * index is empty.
+     *
+     * @param file the file
+     * @return the index
+     */
+    public static ContentIndex open(File file) {
+        ContentIndex index = new ContentIndex(file);
+        if (file.exists()) {
+            try {
+                index.load();
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.SEVERE, String.format("discarding %s", file.getAbsolutePath()), e);
+                index.close();
+                index.dictionary.clear();
+                index.stamps.clear();
+                index.names = new String[0];
+            }
+        }
+        return index;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Compares the stored stamps with the current ones. Snippets that no
+     * longer exist are removed from the index.
+     *
+     * @param current current stamps by name
+     * @return names of the snippets that must be indexed again
+     */
+    public synchronized List<String> validate(Map<String, Long> current) {
+        for (String name : new ArrayList<>(stamps.keySet())) {
+            if (!current.containsKey(name)) {
+                remove(name);
+            }
+        }
+        List<String> changed = new ArrayList<>();
+        for (Map.Entry<String, Long> e : current.entrySet()) {
+            if (!e.getValue().equals(stamps.get(e.getKey()))) {
+                changed.add(e.getKey());
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Gets the stamp stored for a snippet.
+     *
+     * @param name name of the snippet
+     * @return the stamp or -1 if the snippet is not indexed
+     */
+    public synchronized long getStamp(String name) {
+        Long stamp = stamps.get(name);
+        return stamp != null ? stamp : -1;
+    }
+
+    public synchronized void update(String name, long stamp, String contents) {
+        if (contents.length() > MAX_CONTENT_CHARS) {
+            contents = contents.substring(0, MAX_CONTENT_CHARS);
+        }
+        stale.add(name);
+        overlay.put(name, tokenize(contents));
+        stamps.put(name, stamp);
+        dirty = true;
+        if (saving) {
+            touched.add(name);
+        }
+    }
+
+    public synchronized void remove(String name) {
+        if (stamps.remove(name) != null) {
+            stale.add(name);
+            overlay.remove(name);
+            dirty = true;
+            if (saving) {
+                touched.add(name);
+            }
+        }
+    }
+
+    public synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Finds the snippets containing the terms of a query in the given order,
+     * one after the other. If the query does not end with a separator, its
+     * last term is treated as a prefix.
+     *
+     * @param query the query
+     * @return names of the matching snippets
+     */
+    public synchronized Set<String> search(String query) {
+        List<String> terms = new ArrayList<>();
+        scan(query, (term, position) -> terms.add(term));
+        if (terms.isEmpty()) {
+            return new HashSet<>();
+        }
+        boolean prefix = Character.isLetterOrDigit(query.charAt(query.length() - 1));
+        // positions at which the phrase may start, by name
+        Map<String, int[]> starts = null;
+        for (int i = 0; i < terms.size(); i++) {
+            boolean last = i == terms.size() - 1;
+            Map<String, int[]> postings = getPostings(terms.get(i), prefix && last,
+                    starts != null ? starts.keySet() : null);
+            if (starts == null) {
+                starts = postings;
+            } else {
+                Map<String, int[]> next = new HashMap<>();
+                for (Map.Entry<String, int[]> e : starts.entrySet()) {
+                    int[] positions = postings.get(e.getKey());
+                    if (positions != null) {
+                        int[] candidates = e.getValue();
+                        int count = 0;
+                        for (int start : candidates) {
+                            if (Arrays.binarySearch(positions, start + i) >= 0) {
+                                candidates[count++] = start;
+                            }
+                        }
+                        if (count > 0) {
+                            next.put(e.getKey(), Arrays.copyOf(candidates, count));
+                        }
+                    }
+                }
+                starts = next;
+            }
+            if (starts.isEmpty()) {
+                break;
+            }
+        }
+        return new HashSet<>(starts.keySet());
+    }
+
+    /**
+     * Rewrites the file if the index has changed. The new file is built from
+     * a copy of the index without holding its lock, so searches and updates
+     * are not blocked meanwhile. Only replacing the file and reading its
+     * dictionary happen under the lock. Snippets updated or removed while
+     * the file was built remain in the overlay.
+     *
+     * @return true if the file is up-to-date
+     */
+    public boolean save() {
+        synchronized (saveLock) {
+            Snapshot snapshot;
+            synchronized (this) {
+                if (!dirty) {
+                    return true;
+                }
+                snapshot = new Snapshot();
+                touched.clear();
+                saving = true;
+            }
+            long start = System.currentTimeMillis();
+            Path temp = null;
+            try {
+                temp = snapshot.write();
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "save()", e);
+            }
+            boolean saved = false;
+            synchronized (this) {
+                saving = false;
+                if (temp != null) {
+                    // Windows does not replace a file that is still open
+                    close();
+                    try {
+                        FileHelper.replace(temp, file.toPath());
+                        saved = true;
+                    } catch (IOException e) {
+                        LOGGER.log(Level.SEVERE, "save()", e);
+                        FileHelper.deleteQuietly(temp);
+                    }
+                }
+                if (saved) {
+                    overlay.keySet().retainAll(touched);
+                    stale.retainAll(touched);
+                    dictionary.clear();
+                    dirty = !touched.isEmpty();
+                }
+                touched.clear();
+                if (channel == null) {
+                    try {
+                        load();
+                    } catch (IOException e) {
+                        LOGGER.log(Level.SEVERE, "save()", e);
+                    }
+                }
+            }
+            if (saved) {
+                LOGGER.log(Level.FINE, String.format("%d snippets, %d terms written to %s in %d ms",
+                        snapshot.snippetCount, snapshot.termCount, file.getAbsolutePath(),
+                        System.currentTimeMillis() - start));
+            }
+            return saved;
+        }
+    }
+
+    public synchronized void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.throwing(TAG, "close()", e);
+            }
+            channel = null;
+        }
+    }
+
+    /*
+     * Reads names, stamps and the term dictionary. Stamps of snippets in the
+     * overlay are kept.
+     */
+    private void load() throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        ByteBuffer head = FileHelper.read(channel, 0, Math.min(HEADER_LENGTH, channel.size()));
+        for (int i = 0; i < HEADER.length; i++) {
+            if (head.get(i) != HEADER[i]) {
+                throw new IOException(String.format("%s is not an index", file.getAbsolutePath()));
+            }
+        }
+        if (head.get(HEADER.length) != VERSION) {
+            throw new IOException(String.format("unsupported index version %d", head.get(HEADER.length)));
+        }
+        postingsStart = head.getLong(HEADER.length + 1);
+        ByteBuffer buf = FileHelper.read(channel, 0, postingsStart);
+        int[] pos = {HEADER_LENGTH};
+        int count = (int) SnippetList.getVarint(buf, pos);
+        names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = SnippetList.getString(buf, pos);
+            long stamp = SnippetList.getVarint(buf, pos);
+            if (!overlay.containsKey(names[i]) && !stale.contains(names[i])) {
+                stamps.put(names[i], stamp);
+            }
+        }
+        count = (int) SnippetList.getVarint(buf, pos);
+        for (int i = 0; i < count; i++) {
+            String term = SnippetList.getString(buf, pos);
+            int docFreq = (int) SnippetList.getVarint(buf, pos);
+            long offset = SnippetList.getVarint(buf, pos);
+            int length = (int) SnippetList.getVarint(buf, pos);
+            dictionary.put(term, new Term(docFreq, offset, length));
+        }
+    }
+
+    /*
+     * Gets the positions of a term (or of all terms starting with it) by
+     * name, optionally only for some snippets.
+     */
+    private Map<String, int[]> getPostings(String term, boolean prefix, Set<String> restrict) {
+        Map<String, int[]> result = new HashMap<>();
+        Collection<String> terms = prefix
+                ? dictionary.subMap(term, true, term + Character.MAX_VALUE, false).keySet()
+                : List.of(term);
+        int expanded = 0;
+        for (String t : terms) {
+            if (expanded++ == MAX_PREFIX_TERMS) {
+                break;
+            }
+            Term location = dictionary.get(t);
+            if (location != null) {
+                readPostings(location, restrict, result);
+            }
+        }
+        for (Map.Entry<String, Map<String, int[]>> doc : overlay.entrySet()) {
+            String name = doc.getKey();
+            if (restrict != null && !restrict.contains(name)) {
+                continue;
+            }
+            if (prefix) {
+                for (Map.Entry<String, int[]> e : doc.getValue().entrySet()) {
+                    if (e.getKey().startsWith(term)) {
+                        merge(result, name, e.getValue());
+                    }
+                }
+            } else {
+                int[] positions = doc.getValue().get(term);
+                if (positions != null) {
+                    merge(result, name, positions);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void readPostings(Term location, Set<String> restrict, Map<String, int[]> result) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            ByteBuffer buf = FileHelper.read(channel, postingsStart + location.offset, location.length);
+            int[] pos = {0};
+            int number = 0;
+            for (int i = 0; i < location.docFreq; i++) {
+                number += (int) SnippetList.getVarint(buf, pos);
+                int count = (int) SnippetList.getVarint(buf, pos);
+                String name = names[number];
+                boolean wanted = !stale.contains(name) && (restrict == null || restrict.contains(name));
+                int[] positions = wanted ? new int[count] : null;
+                int p = 0;
+                for (int j = 0; j < count; j++) {
+                    p += (int) SnippetList.getVarint(buf, pos);
+                    if (wanted) {
+                        positions[j] = p;
+                    }
+                }
+                if (wanted) {
+                    merge(result, name, positions);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "readPostings()", e);
+        }
+    }
+
+    private static void merge(Map<String, int[]> result, String name, int[] positions) {
+        int[] existing = result.get(name);
+        if (existing == null) {
+            result.put(name, positions.clone());
+        } else {
+            // positions of different terms never overlap
+            int[] merged = Arrays.copyOf(existing, existing.length + positions.length);
+            System.arraycopy(positions, 0, merged, existing.length, positions.length);
+            Arrays.sort(merged);
+            result.put(name, merged);
+        }
+    }
+
+    private static void writePostings(Output out, int delta, int[] positions) {
+        out.writeVarint(delta);
+        out.writeVarint(positions.length);
+        int previous = 0;
+        for (int p : positions) {
+            out.writeVarint(p - previous);
+            previous = p;
+        }
+    }
+
+    /**
+     * Splits a text into terms.
+     *
+     * @param text the text
+     * @return the positions of each term in ascending order
+     */
+    static Map<String, int[]> tokenize(String text) {
+        // the first element holds the number of positions
+        Map<String, int[]> terms = new HashMap<>();
+        scan(text, (term, position) -> {
+            int[] positions = terms.get(term);
+            if (positions == null) {
+                positions = new int[4];
+                terms.put(term, positions);
+            } else if (positions[0] + 1 == positions.length) {
+                positions = Arrays.copyOf(positions, positions.length * 2);
+                terms.put(term, positions);
+            }
+            positions[0] += 1;
+            positions[positions[0]] = position;
+        });
+        for (Map.Entry<String, int[]> e : terms.entrySet()) {
+            int[] positions = e.getValue();
+            e.setValue(Arrays.copyOfRange(positions, 1, positions[0] + 1));
+        }
+        return terms;
+    }
+
+    private static void scan(String text, ObjIntConsumer<String> consumer) {
+        int length = text.length();
+        int position = 0;
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+                i += 1;
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                i += 1;
+            }
+            if (i > start) {
+                if (i - start <= MAX_TERM_LENGTH) {
+                    consumer.accept(text.substring(start, i).toLowerCase(Locale.ROOT), position);
+                }
+                position += 1;
+            }
+        }
+    }
+
+    /**
+     * A copy of the index taken under its lock, from which the new file is
+     * built. Terms and the positions in the overlay are never modified, so
+     * the maps holding them are copied shallowly.
+     */
+    private class Snapshot {
+
+        private final FileChannel oldChannel = channel;
+        private final String[] oldNames = names;
+        private final long oldPostingsStart = postingsStart;
+        private final TreeMap<String, Term> oldDictionary = new TreeMap<>(dictionary);
+        private final Map<String, Map<String, int[]>> updates = new HashMap<>(overlay);
+        private final Set<String> outdated = new HashSet<>(stale);
+        private final Map<String, Long> currentStamps = new HashMap<>(stamps);
+
+        int snippetCount;
+        int termCount;
+
+        /*
+         * Merges the postings in the file with the updates and writes the
+         * result to a temporary file.
+         */
+        Path write() throws IOException {
+            // new numbers: snippets kept from the file first, then the updated ones
+            List<String> newNames = new ArrayList<>();
+            int[] renumber = new int[oldNames.length];
+            for (int i = 0; i < oldNames.length; i++) {
+                if (outdated.contains(oldNames[i])) {
+                    renumber[i] = -1;
+                } else {
+                    renumber[i] = newNames.size();
+                    newNames.add(oldNames[i]);
+                }
+            }
+            int firstUpdated = newNames.size();
+            newNames.addAll(new TreeSet<>(updates.keySet()));
+            // invert the overlay: term -> (number, positions) in ascending order
+            Map<String, List<Object[]>> updated = new HashMap<>();
+            for (int number = firstUpdated; number < newNames.size(); number++) {
+                for (Map.Entry<String, int[]> e : updates.get(newNames.get(number)).entrySet()) {
+                    updated.computeIfAbsent(e.getKey(), t -> new ArrayList<>())
+                            .add(new Object[]{number, e.getValue()});
+                }
+            }
+            // read through the channel the dictionary was read from: another
+            // instance may have replaced the file since then
+            ByteBuffer buf = ByteBuffer.allocate(0);
+            if (oldNames.length > 0) {
+                if (oldChannel == null) {
+                    throw new IOException(String.format("%s is not open", file.getAbsolutePath()));
+                }
+                buf = FileHelper.read(oldChannel, oldPostingsStart, oldChannel.size() - oldPostingsStart);
+            }
+            Output postings = new Output();
+            Output terms = new Output();
+            TreeSet<String> allTerms = new TreeSet<>(oldDictionary.keySet());
+            allTerms.addAll(updated.keySet());
+            for (String term : allTerms) {
+                long offset = postings.size();
+                int docFreq = 0;
+                int previous = 0;
+                Term t = oldDictionary.get(term);
+                if (t != null) {
+                    int[] pos = {(int) t.offset};
+                    int number = 0;
+                    for (int i = 0; i < t.docFreq; i++) {
+                        number += (int) SnippetList.getVarint(buf, pos);
+                        int count = (int) SnippetList.getVarint(buf, pos);
+                        int[] positions = new int[count];
+                        int p = 0;
+                        for (int j = 0; j < count; j++) {
+                            p += (int) SnippetList.getVarint(buf, pos);
+                            positions[j] = p;
+                        }
+                        if (renumber[number] >= 0) {
+                            writePostings(postings, renumber[number] - previous, positions);
+                            previous = renumber[number];
+                            docFreq += 1;
+                        }
+                    }
+                }
+                List<Object[]> l = updated.get(term);
+                if (l != null) {
+                    for (Object[] o : l) {
+                        int number = (Integer) o[0];
+                        writePostings(postings, number - previous, (int[]) o[1]);
+                        previous = number;
+                        docFreq += 1;
+                    }
+                }
+                if (docFreq > 0) {
+                    terms.writeString(term);
+                    terms.writeVarint(docFreq);
+                    terms.writeVarint(offset);
+                    terms.writeVarint(postings.size() - offset);
+                    termCount += 1;
+                }
+            }
+            Output head = new Output();
+            head.write(HEADER);
+            head.writeByte(VERSION);
+            head.write(new byte[8]);
+            head.writeVarint(newNames.size());
+            for (String name : newNames) {
+                head.writeString(name);
+                head.writeVarint(currentStamps.get(name));
+            }
+            head.writeVarint(termCount);
+            byte[] headBytes = head.toByteArray();
+            byte[] termBytes = terms.toByteArray();
+            ByteBuffer.wrap(headBytes).putLong(HEADER.length + 1, headBytes.length + termBytes.length);
+            snippetCount = newNames.size();
+            return FileHelper.writeTemp(file, headBytes, termBytes, postings.toByteArray());
+        }
+    }
+
+    private static class Term {
+
+        final int docFreq;
+        final long offset;
+        final int length;
+
+        Term(int docFreq, long offset, int length) {
+            this.docFreq = docFreq;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * A growable byte array.
+     */
+    private static class Output {
+
+        private byte[] buf = new byte[4096];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        void writeByte(int b) {
+            ensureCapacity(1);
+            buf[size++] = (byte) b;
+        }
+
+        void write(byte[] b) {
+            ensureCapacity(b.length);
+            System.arraycopy(b, 0, buf, size, b.length);
+            size += b.length;
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7fL) != 0) {
+                writeByte((int) ((value & 0x7f) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        void writeString(String s) {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            writeVarint(b.length);
+            write(b);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, size);
+        }
+
+        private void ensureCapacity(int additional) {
+            if (size + additional > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(size + additional, buf.length * 2));
+            }
+        }
+    }
+}
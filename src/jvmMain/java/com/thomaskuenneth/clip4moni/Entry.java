@@ -20,10 +20,23 @@
  */
 package com.thomaskuenneth.clip4moni;
 
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
 public class Entry {
 
+    public static final int TYPE_UNKNOWN = 0;
+    public static final int TYPE_TEXT = 1;
+    public static final int TYPE_RTF = 2;
+    public static final int TYPE_HTML = 3;
+
     private String key, value;
 
+    // metadata about the contents, -1 and TYPE_UNKNOWN if not known
+    private long size = -1;
+    private int contentType = TYPE_UNKNOWN;
+    private int checksum;
+
     public Entry() {
     }
 
@@ -64,6 +77,51 @@ public class Entry {
         return value;
     }
 
+    public long getSize() {
+        return size;
+    }
+
+    public int getContentType() {
+        return contentType;
+    }
+
+    public int getChecksum() {
+        return checksum;
+    }
+
+    public void setMetadata(long size, int contentType, int checksum) {
+        this.size = size;
+        this.contentType = contentType;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Updates size, content type and checksum from the contents of the snippet.
+     *
+     * @param contents the contents
+     */
+    public void updateMetadata(String contents) {
+        byte[] buf = contents.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc32 = new CRC32();
+        crc32.update(buf);
+        setMetadata(buf.length, detectContentType(contents), (int) crc32.getValue());
+    }
+
+    public static int detectContentType(String contents) {
+        if (contents.startsWith("{\\rtf1")) {
+            return TYPE_RTF;
+        }
+        int start = 0;
+        while (start < contents.length() && Character.isWhitespace(contents.charAt(start))) {
+            start += 1;
+        }
+        if (contents.regionMatches(true, start, "<html", 0, 5)
+                || contents.regionMatches(true, start, "<!doctype html", 0, 14)) {
+            return TYPE_HTML;
+        }
+        return TYPE_TEXT;
+    }
+
     @Override
     public String toString() {
         return getKey();
@@ -0,0 +1,457 @@
+/*
+ * EscapeCodec.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * This class decodes and encodes escaped text. Each method makes one pass
+ * over its input and presizes its output; escapes are parsed in place.
+ * <p>
+ * Decoders keep malformed escapes as they are, except for Base64 and hex,
+ * which are not text with escapes in it; they throw an {@link
+ * IllegalArgumentException}. Bytes (percent, Base64, hex) are interpreted
+ * as UTF-8; invalid sequences become U+FFFD.
+ *
+ * @author Thomas Kuenneth
+ */
+public final class EscapeCodec {
+
+    public enum Scheme {
+        /**
+         * Escapes of Java and JSON string literals: \n, \t, \r, \b, \f, \",
+         * \', \\, \/, \0 to \377 (octal), backslash, 'u' and four hex digits
+         * (surrogate pairs as two escapes) and \xHH (a code point up to
+         * U+00FF).
+         */
+        JAVA,
+        /**
+         * Percent-encoding of URLs (RFC 3986); '+' is not a blank.
+         */
+        PERCENT,
+        /**
+         * HTML character references: named ones like &amp;amp; and
+         * &amp;eacute;, &amp;#NNN; and &amp;#xHHHH;.
+         */
+        HTML,
+        /**
+         * Base64, also the URL-safe alphabet; line breaks and padding are
+         * optional when decoding.
+         */
+        BASE64,
+        /**
+         * Two hex digits per byte; blanks, line breaks, ':' and '-' between
+         * bytes are ignored when decoding.
+         */
+        HEX
+    }
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final char[] HEX_UPPER = "0123456789ABCDEF".toCharArray();
+
+    private EscapeCodec() {
+    }
+
+    /**
+     * Decodes text.
+     *
+     * @param scheme the kind of escapes
+     * @param s      the text
+     * @return the decoded text
+     * @throws IllegalArgumentException if Base64 or hex input is invalid
+     */
+    public static String decode(Scheme scheme, CharSequence s) {
+        switch (scheme) {
+            case JAVA:
+                return decodeJava(s);
+            case PERCENT:
+                return decodePercent(s);
+            case HTML:
+                return decodeHtml(s);
+            case BASE64:
+                return decodeBase64(s);
+            default:
+                return decodeHex(s);
+        }
+    }
+
+    /**
+     * Encodes text.
+     *
+     * @param scheme the kind of escapes
+     * @param s      the text
+     * @return the encoded text
+     */
+    public static String encode(Scheme scheme, CharSequence s) {
+        switch (scheme) {
+            case JAVA:
+                return encodeJava(s);
+            case PERCENT:
+                return encodePercent(s);
+            case HTML:
+                return encodeHtml(s);
+            case BASE64:
+                return Base64.getEncoder().encodeToString(utf8(s));
+            default:
+                return encodeHex(s);
+        }
+    }
+
+    private static String decodeJava(CharSequence s) {
+        int length = s.length();
+        StringBuilder sb = new StringBuilder(length);
+        int i = 0;
+        while (i < length) {
+            char ch = s.charAt(i++);
+            if (ch != '\\' || i == length) {
+                sb.append(ch);
+                continue;
+            }
+            ch = s.charAt(i++);
+            switch (ch) {
+                case 'n' -> sb.append('\n');
+                case 't' -> sb.append('\t');
+                case 'r' -> sb.append('\r');
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case '"', '\'', '\\', '/' -> sb.append(ch);
+                case 'u', 'U' -> {
+                    // Java allows any number of 'u'
+                    int start = i;
+                    while (start < length && s.charAt(start) == 'u') {
+                        start += 1;
+                    }
+                    int value = parseHex(s, start, 4);
+                    if (value < 0) {
+                        sb.append('\\').append(ch);
+                    } else {
+                        sb.append((char) value);
+                        i = start + 4;
+                    }
+                }
+                case 'x' -> {
+                    int value = parseHex(s, i, 2);
+                    if (value < 0) {
+                        sb.append('\\').append(ch);
+                    } else {
+                        sb.append((char) value);
+                        i += 2;
+                    }
+                }
+                default -> {
+                    if (ch >= '0' && ch <= '7') {
+                        // up to three digits, at most \377
+                        int value = ch - '0';
+                        int max = ch <= '3' ? 3 : 2;
+                        for (int n = 1; n < max && i < length
+                                && s.charAt(i) >= '0' && s.charAt(i) <= '7'; n++) {
+                            value = value * 8 + s.charAt(i++) - '0';
+                        }
+                        sb.append((char) value);
+                    } else {
+                        sb.append('\\').append(ch);
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /*
+     * Produces valid Java and JSON string literal contents; control and
+     * non-ASCII characters are written as backslash, 'u' and four hex digits.
+     */
+    private static String encodeJava(CharSequence s) {
+        int length = s.length();
+        StringBuilder sb = new StringBuilder(length + (length >> 3));
+        for (int i = 0; i < length; i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '\n' -> sb.append("\\n");
+                case '\t' -> sb.append("\\t");
+                case '\r' -> sb.append("\\r");
+                case '\b' -> sb.append("\\b");
+                case '\f' -> sb.append("\\f");
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                default -> {
+                    if (ch >= 0x20 && ch < 0x7f) {
+                        sb.append(ch);
+                    } else {
+                        sb.append("\\u");
+                        appendHex(sb, ch, 4, HEX);
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String decodePercent(CharSequence s) {
+        int length = s.length();
+        StringBuilder sb = new StringBuilder(length);
+        // bytes of consecutive escapes, which may form one character
+        byte[] bytes = new byte[16];
+        int count = 0;
+        int i = 0;
+        while (i < length) {
+            char ch = s.charAt(i);
+            int value = ch == '%' ? parseHex(s, i + 1, 2) : -1;
+            if (value >= 0) {
+                if (count == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, count * 2);
+                }
+                bytes[count++] = (byte) value;
+                i += 3;
+            } else {
+                if (count > 0) {
+                    sb.append(new String(bytes, 0, count, StandardCharsets.UTF_8));
+                    count = 0;
+                }
+                sb.append(ch);
+                i += 1;
+            }
+        }
+        if (count > 0) {
+            sb.append(new String(bytes, 0, count, StandardCharsets.UTF_8));
+        }
+        return sb.toString();
+    }
+
+    /*
+     * Keeps the unreserved characters of RFC 3986 and escapes the UTF-8
+     * bytes of all others.
+     */
+    private static String encodePercent(CharSequence s) {
+        int length = s.length();
+        StringBuilder sb = new StringBuilder(length + (length >> 1));
+        for (int i = 0; i < length; i++) {
+            char ch = s.charAt(i);
+            if ((ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9')
+                    || ch == '-' || ch == '.' || ch == '_' || ch == '~') {
+                sb.append(ch);
+                continue;
+            }
+            int cp = ch;
+            if (Character.isHighSurrogate(ch) && i + 1 < length
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                cp = Character.toCodePoint(ch, s.charAt(++i));
+            } else if (Character.isSurrogate(ch)) {
+                // like String.getBytes()
+                cp = '?';
+            }
+            if (cp < 0x80) {
+                appendPercent(sb, cp);
+            } else if (cp < 0x800) {
+                appendPercent(sb, 0xc0 | (cp >> 6));
+                appendPercent(sb, 0x80 | (cp & 0x3f));
+            } else if (cp < 0x10000) {
+                appendPercent(sb, 0xe0 | (cp >> 12));
+                appendPercent(sb, 0x80 | ((cp >> 6) & 0x3f));
+                appendPercent(sb, 0x80 | (cp & 0x3f));
+            } else {
+                appendPercent(sb, 0xf0 | (cp >> 18));
+                appendPercent(sb, 0x80 | ((cp >> 12) & 0x3f));
+                appendPercent(sb, 0x80 | ((cp >> 6) & 0x3f));
+                appendPercent(sb, 0x80 | (cp & 0x3f));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendPercent(StringBuilder sb, int b) {
+        sb.append('%');
+        appendHex(sb, b, 2, HEX_UPPER);
+    }
+
+    private static String decodeHtml(CharSequence s) {
+        int length = s.length();
+        StringBuilder sb = new StringBuilder(length);
+        int i = 0;
+        while (i < length) {
+            char ch = s.charAt(i++);
+            if (ch != '&') {
+                sb.append(ch);
+                continue;
+            }
+            // i is the index after '&'
+            int end = i;
+            int cp = -1;
+            if (end < length && s.charAt(end) == '#') {
+                end += 1;
+                int radix = 10;
+                if (end < length && (s.charAt(end) == 'x' || s.charAt(end) == 'X')) {
+                    radix = 16;
+                    end += 1;
+                }
+                int start = end;
+                int value = 0;
+                int digit;
+                while (end < length && (digit = digit(s.charAt(end), radix)) >= 0
+                        && value <= Character.MAX_CODE_POINT) {
+                    value = value * radix + digit;
+                    end += 1;
+                }
+                if (end > start && value <= Character.MAX_CODE_POINT) {
+                    cp = value;
+                    // ';' is optional after numbers
+                    if (end < length && s.charAt(end) == ';') {
+                        end += 1;
+                    }
+                }
+            } else {
+                while (end < length && end - i <= HtmlEntities.MAX_NAME_LENGTH
+                        && Character.isLetterOrDigit(s.charAt(end))) {
+                    end += 1;
+                }
+                if (end < length && s.charAt(end) == ';') {
+                    cp = HtmlEntities.find(s, i, end);
+                    if (cp >= 0) {
+                        end += 1;
+                    }
+                }
+            }
+            if (cp < 0) {
+                sb.append('&');
+            } else {
+                sb.appendCodePoint(cp);
+                i = end;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String encodeHtml(CharSequence s) {
+        int length = s.length();
+        StringBuilder sb = new StringBuilder(length + (length >> 3));
+        for (int i = 0; i < length; i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '&' -> sb.append("&amp;");
+                case '<' -> sb.append("&lt;");
+                case '>' -> sb.append("&gt;");
+                case '"' -> sb.append("&quot;");
+                case '\'' -> sb.append("&#39;");
+                default -> sb.append(ch);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String decodeBase64(CharSequence s) {
+        int length = s.length();
+        byte[] ascii = new byte[length];
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            char ch = s.charAt(i);
+            if (ch == '-') {
+                ch = '+';
+            } else if (ch == '_') {
+                ch = '/';
+            } else if (Character.isWhitespace(ch)) {
+                continue;
+            } else if (ch >= 0x80) {
+                throw new IllegalArgumentException("Illegal base64 character " + ch);
+            }
+            ascii[count++] = (byte) ch;
+        }
+        byte[] bytes = Base64.getDecoder().decode(Arrays.copyOf(ascii, count));
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String decodeHex(CharSequence s) {
+        int length = s.length();
+        byte[] bytes = new byte[length / 2];
+        int count = 0;
+        int i = 0;
+        while (i < length) {
+            char ch = s.charAt(i);
+            if (Character.isWhitespace(ch) || ch == ':' || ch == '-') {
+                i += 1;
+                continue;
+            }
+            int value = parseHex(s, i, 2);
+            if (value < 0) {
+                throw new IllegalArgumentException("Illegal hex digits at index " + i);
+            }
+            bytes[count++] = (byte) value;
+            i += 2;
+        }
+        return new String(bytes, 0, count, StandardCharsets.UTF_8);
+    }
+
+    private static String encodeHex(CharSequence s) {
+        byte[] bytes = utf8(s);
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            appendHex(sb, b, 2, HEX);
+        }
+        return sb.toString();
+    }
+
+    private static byte[] utf8(CharSequence s) {
+        return s.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /*
+     * Returns the value of the given number of hex digits at index, or -1
+     * if there are fewer.
+     */
+    private static int parseHex(CharSequence s, int index, int digits) {
+        if (index + digits > s.length()) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = index; i < index + digits; i++) {
+            int digit = digit(s.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    /*
+     * Like Character.digit(), but for ASCII digits and letters only.
+     */
+    private static int digit(char ch, int radix) {
+        int value;
+        if (ch >= '0' && ch <= '9') {
+            value = ch - '0';
+        } else if (ch >= 'a' && ch <= 'z') {
+            value = ch - 'a' + 10;
+        } else if (ch >= 'A' && ch <= 'Z') {
+            value = ch - 'A' + 10;
+        } else {
+            return -1;
+        }
+        return value < radix ? value : -1;
+    }
+
+    private static void appendHex(StringBuilder sb, int value, int digits, char[] alphabet) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            sb.append(alphabet[(value >>> shift) & 0xf]);
+        }
+    }
+}
@@ -22,8 +22,27 @@ package com.thomaskuenneth.clip4moni;
 
 import javax.swing.*;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -38,35 +57,205 @@ public class FileHelper {
     private static final Logger LOGGER = Logger.getLogger(TAG);
     private static final byte[] MAGIC = {0x2, 0x9, 0x0, 0x8};
 
+    static final String TEMP_SUFFIX = ".tmp";
+
+    private static final int MOVE_ATTEMPTS = 10;
+    private static final long MOVE_RETRY_DELAY = 50;
+
+    private static final WriteBehindQueue QUEUE = new WriteBehindQueue(500);
+
+    private static PackedStore store;
+
     /**
      * Saves a string to a file using UTF-8. The first four bytes form a magic
      * number: 0x2, 0x9, 0x0, 0x8
+     * <p>
+     * The data is written to a temporary file in the same directory, which
+     * then replaces the target. So a crash while writing leaves the previous
+     * version intact.
      *
      * @param f    the file
      * @param text the string
      * @return true if the file could be written successfully, false otherwise
      */
     public static boolean saveFile(File f, String text) {
-        boolean result = false;
-        FileOutputStream fos = null;
+        return saveBytes(f, MAGIC, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Saves raw data to a file (see {@link #saveFile(File, String)}).
+     *
+     * @param f     the file
+     * @param parts the data, written one after another
+     * @return true if the file could be written successfully, false otherwise
+     */
+    public static boolean saveBytes(File f, byte[]... parts) {
+        Path temp = null;
         try {
-            fos = new FileOutputStream(f);
-            byte[] buf = text.getBytes(StandardCharsets.UTF_8);
-            fos.write(MAGIC);
-            fos.write(buf);
-            result = true;
+            temp = writeTemp(f, parts);
+            replace(temp, f.toPath().toAbsolutePath());
+            return true;
         } catch (IOException e) {
-            LOGGER.throwing(TAG, "saveFile", e);
+            LOGGER.throwing(TAG, "saveBytes", e);
+            if (temp != null) {
+                deleteQuietly(temp);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes data to a temporary file in the directory of a file, which can
+     * then replace it (see {@link #replace(Path, Path)}).
+     *
+     * @param f     the file to be replaced later
+     * @param parts the data, written one after another
+     * @return the temporary file
+     * @throws IOException if the data could not be written
+     */
+    static Path writeTemp(File f, byte[]... parts) throws IOException {
+        Path target = f.toPath().toAbsolutePath();
+        Path temp = createTemp(target);
+        boolean written = false;
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer[] buffers = new ByteBuffer[parts.length];
+                for (int i = 0; i < parts.length; i++) {
+                    buffers[i] = ByteBuffer.wrap(parts[i]);
+                }
+                while (buffers.length > 0 && buffers[buffers.length - 1].hasRemaining()) {
+                    channel.write(buffers);
+                }
+                channel.force(true);
+            }
+            copyPermissions(target, temp);
+            written = true;
+            return temp;
         } finally {
-            if (fos != null) {
+            if (!written) {
+                deleteQuietly(temp);
+            }
+        }
+    }
+
+    /*
+     * Unlike Files.createTempFile(), which restricts access to the owner,
+     * this uses the default permissions (honoring the umask).
+     */
+    private static Path createTemp(Path target) throws IOException {
+        while (true) {
+            Path temp = target.resolveSibling(String.format("%s.%s%s", target.getFileName(),
+                    Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36), TEMP_SUFFIX));
+            try {
+                return Files.createFile(temp);
+            } catch (FileAlreadyExistsException e) {
+                // try another name
+            }
+        }
+    }
+
+    /*
+     * The replacement gets the permissions of the file it replaces.
+     */
+    private static void copyPermissions(Path from, Path to) {
+        try {
+            if (Files.exists(from)) {
+                Files.setPosixFilePermissions(to, Files.getPosixFilePermissions(from));
+            }
+        } catch (UnsupportedOperationException e) {
+            // not a POSIX file system
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "could not copy permissions", e);
+        }
+    }
+
+    static void deleteQuietly(Path p) {
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException e) {
+            LOGGER.throwing(TAG, "deleteQuietly", e);
+        }
+    }
+
+    /**
+     * Saves a string to a file in the background (see {@link #saveFile(File, String)}).
+     * Saving the same file again shortly afterwards replaces the pending
+     * contents, so only the latest version is written.
+     *
+     * @param f    the file
+     * @param text the string
+     */
+    public static void saveFileLater(File f, String text) {
+        byte[] buf = text.getBytes(StandardCharsets.UTF_8);
+        byte[] data = Arrays.copyOf(MAGIC, MAGIC.length + buf.length);
+        System.arraycopy(buf, 0, data, MAGIC.length, buf.length);
+        saveBytesLater(f, data);
+    }
+
+    /**
+     * Saves raw data to a file in the background (see {@link #saveFileLater(File, String)}).
+     *
+     * @param f    the file
+     * @param data the data
+     */
+    public static void saveBytesLater(File f, byte[] data) {
+        QUEUE.enqueue(f, data);
+    }
+
+    /**
+     * Writes all files passed to {@link #saveFileLater(File, String)} that have
+     * not been written yet.
+     */
+    public static void flush() {
+        QUEUE.flush();
+    }
+
+    /**
+     * Atomically replaces a file with another one from the same directory. If
+     * the file system does not support atomic moves, the file is replaced
+     * non-atomically. On Windows a file cannot be replaced while another
+     * process (for example a virus scanner or a sync client) has it open, so
+     * the move is retried a few times before giving up.
+     *
+     * @param source the new version
+     * @param target the file to be replaced
+     * @throws IOException if the file could not be replaced
+     */
+    static void replace(Path source, Path target) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                move(source, target);
+                break;
+            } catch (NoSuchFileException e) {
+                throw e;
+            } catch (FileSystemException e) {
+                if (attempt == MOVE_ATTEMPTS) {
+                    throw e;
+                }
+                LOGGER.log(Level.FINE, String.format("could not replace %s, retrying", target), e);
                 try {
-                    fos.close();
-                } catch (IOException e) {
-                    LOGGER.throwing(TAG, "saveFile", e);
+                    Thread.sleep(MOVE_RETRY_DELAY * attempt);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw e;
                 }
             }
         }
-        return result;
+        // make the rename itself durable; not supported on every platform
+        try (FileChannel dir = FileChannel.open(target.getParent(), StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "could not sync directory", e);
+        }
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
     }
 
     /**
@@ -79,33 +268,102 @@ public class FileHelper {
     public static String loadFile(File f) {
         String result = null;
         if (f != null) {
-            int len = (int) f.length();
-            byte[] buf = new byte[len];
-            FileInputStream fin = null;
+            result = StringUtils.EMPTY;
             try {
-                fin = new FileInputStream(f);
-                var read = fin.read(buf);
-                if (len != read)
-                    LOGGER.log(Level.SEVERE, String.format("length is %d but %d bytes were read", len, read));
+                ByteBuffer buf = loadBytes(f);
+                result = decode(buf, skipMagic(buf));
             } catch (IOException e) {
                 LOGGER.throwing(TAG, "loadFile", e);
-            } finally {
-                if (fin != null) {
-                    try {
-                        fin.close();
-                    } catch (IOException e) {
-                        LOGGER.throwing(TAG, "loadFile", e);
-                    }
-                }
             }
-            if (len >= 4) {
-                if (Arrays.equals(MAGIC, Arrays.copyOfRange(buf, 0, 4))) {
-                    return new String(buf, 4, len - 4, StandardCharsets.UTF_8);
+        }
+        return result;
+    }
+
+    /**
+     * Opens a file for reading (see {@link #loadFile(File)}). The contents are
+     * decoded while being read, so they are not held in memory as a string.
+     *
+     * @param f the file
+     * @return a reader for the contents of the file
+     * @throws IOException if the file could not be read
+     */
+    public static Reader openReader(File f) throws IOException {
+        ByteBuffer buf = loadBytes(f);
+        return createReader(buf, skipMagic(buf));
+    }
+
+    /**
+     * Reads the raw contents of a file, including data passed to
+     * {@link #saveBytesLater(File, byte[])} that has not been written yet.
+     *
+     * @param f the file
+     * @return the contents of the file
+     * @throws IOException if the file could not be read
+     */
+    public static ByteBuffer loadBytes(File f) throws IOException {
+        byte[] pending = QUEUE.getPending(f);
+        if (pending != null) {
+            return ByteBuffer.wrap(pending);
+        }
+        return readFile(f);
+    }
+
+    /**
+     * Reads a file into a buffer on the heap. Files are not mapped into
+     * memory: a mapping stays open until it is garbage collected, and on
+     * Windows a mapped file cannot be replaced by {@link #replace(Path, Path)}.
+     *
+     * @param f the file
+     * @return the contents of the file
+     * @throws IOException if the file could not be read
+     */
+    static ByteBuffer readFile(File f) throws IOException {
+        try (FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            return read(channel, 0, channel.size());
+        }
+    }
+
+    static ByteBuffer read(FileChannel channel, long position, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException(String.format("%d bytes are too many", length));
+        }
+        ByteBuffer buf = ByteBuffer.allocate((int) length);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) {
+                throw new IOException(String.format("length is %d but %d bytes were read",
+                        length, buf.position()));
+            }
+        }
+        return buf.flip();
+    }
+
+    static String decode(ByteBuffer buf, Charset cs) {
+        if (buf.hasArray()) {
+            return new String(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining(), cs);
+        }
+        return cs.decode(buf).toString();
+    }
+
+    static Reader createReader(ByteBuffer buf, Charset cs) {
+        return new ByteBufferReader(buf, cs);
+    }
+
+    /*
+     * Checks the magic in place. If present, it is skipped and the contents
+     * are UTF-8, otherwise the platform encoding is assumed.
+     */
+    static Charset skipMagic(ByteBuffer buf) {
+        if (buf.remaining() >= MAGIC.length) {
+            int pos = buf.position();
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (buf.get(pos + i) != MAGIC[i]) {
+                    return Charset.defaultCharset();
                 }
             }
-            result = new String(buf);
+            buf.position(pos + MAGIC.length);
+            return StandardCharsets.UTF_8;
         }
-        return result;
+        return Charset.defaultCharset();
     }
 
     /**
@@ -130,28 +388,284 @@ public class FileHelper {
     public static boolean hasMagic(File f) {
         boolean result = false;
         if (f != null) {
-            byte[] buf = new byte[4];
-            FileInputStream fin = null;
-            try {
-                fin = new FileInputStream(f);
-                if (fin.read(buf) == 4) {
-                    result = Arrays.equals(MAGIC, Arrays.copyOfRange(buf, 0, 4));
+            try (FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+                ByteBuffer buf = ByteBuffer.allocate(MAGIC.length);
+                while (buf.hasRemaining() && channel.read(buf) >= 0) {
+                    // read until the magic is complete or the file ends
                 }
+                result = !buf.hasRemaining() && ByteBuffer.wrap(MAGIC).equals(buf.flip());
             } catch (IOException e) {
                 LOGGER.throwing(TAG, "hasMagic()", e);
-            } finally {
-                if (fin != null) {
-                    try {
-                        fin.close();
-                    } catch (IOException e) {
-                        LOGGER.throwing(TAG, "hasMagic()", e);
-                    }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks if a file in the snippets directory holds a snippet in the legacy
+     * one-file-per-snippet layout.
+     *
+     * @param f file to check
+     * @return true if the file is a snippet
+     */
+    public static boolean isSnippetFile(File f) {
+        String name = f.getName();
+        return f.isFile() && !Helper.LISTNAME.equals(name)
+                && !name.startsWith(Helper.PACKNAME) && !name.startsWith(Helper.IDXNAME) && !name.endsWith(TEMP_SUFFIX)
+                && !Helper.CHAINSNAME.equals(name)
+                && hasMagic(f);
+    }
+
+    /**
+     * Reads the contents of a snippet. If the packed store is active, it is
+     * consulted first. Snippets not (yet) contained in it are read from their
+     * own file.
+     *
+     * @param name name of the snippet (the value of an {@link Entry})
+     * @return the contents or {@code null}
+     */
+    public static String loadSnippet(String name) {
+        if (name == null) {
+            return null;
+        }
+        PackedStore s = getPackedStore();
+        if (s != null && s.contains(name)) {
+            return s.load(name);
+        }
+        File f = createFilename(name);
+        return f.isFile() ? loadFile(f) : null;
+    }
+
+    /**
+     * Opens a snippet for reading (see {@link #loadSnippet(String)}).
+     *
+     * @param name name of the snippet (the value of an {@link Entry})
+     * @return a reader for the contents or {@code null}
+     */
+    public static Reader openSnippetReader(String name) {
+        if (name != null) {
+            PackedStore s = getPackedStore();
+            if (s != null && s.contains(name)) {
+                return s.openReader(name);
+            }
+            File f = createFilename(name);
+            if (f.isFile()) {
+                try {
+                    return openReader(f);
+                } catch (IOException e) {
+                    LOGGER.throwing(TAG, "openSnippetReader()", e);
                 }
             }
         }
+        return null;
+    }
+
+    /**
+     * Saves the contents of a snippet, either to the packed store or to a file
+     * of its own.
+     *
+     * @param name name of the snippet (the value of an {@link Entry})
+     * @param text the contents
+     * @return true if the snippet could be written successfully, false otherwise
+     */
+    public static boolean saveSnippet(String name, String text) {
+        PackedStore s = getPackedStore();
+        if (s != null) {
+            return s.save(name, text);
+        }
+        return saveFile(createFilename(name), text);
+    }
+
+    /**
+     * Deletes a snippet. A file left over from the legacy layout is deleted, too,
+     * so that the snippet does not reappear.
+     *
+     * @param name name of the snippet (the value of an {@link Entry})
+     * @return true if the snippet has been deleted, false otherwise
+     */
+    public static boolean deleteSnippet(String name) {
+        boolean result = false;
+        PackedStore s = getPackedStore();
+        if (s != null) {
+            result = s.delete(name);
+        }
+        File f = createFilename(name);
+        if (f.isFile()) {
+            result = f.delete() || result;
+        }
         return result;
     }
 
+    /**
+     * Gets the names of all snippets in the snippets directory.
+     *
+     * @return names of all snippets
+     */
+    public static List<String> getSnippetNames() {
+        PackedStore s = getPackedStore();
+        if (s != null) {
+            return s.getNames();
+        }
+        List<String> names = new ArrayList<>();
+        File[] files = Helper.getSnippetsDir().listFiles();
+        if (files != null) {
+            for (File current : files) {
+                if (isSnippetFile(current)) {
+                    names.add(current.getName());
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Gets a value that changes whenever a snippet is saved: the checksum of
+     * its record in the packed store, or the time its file was last modified.
+     *
+     * @param name name of the snippet (the value of an {@link Entry})
+     * @return the stamp or -1 if there is no such snippet
+     */
+    public static long getSnippetStamp(String name) {
+        PackedStore s = getPackedStore();
+        if (s != null) {
+            long stamp = s.getStamp(name);
+            if (stamp >= 0) {
+                return stamp;
+            }
+        }
+        File f = createFilename(name);
+        return isSnippetFile(f) ? f.lastModified() : -1;
+    }
+
+    /**
+     * Gets the stamps of all snippets (see {@link #getSnippetStamp(String)}).
+     *
+     * @return stamps by name
+     */
+    public static Map<String, Long> getSnippetStamps() {
+        PackedStore s = getPackedStore();
+        if (s != null) {
+            return s.getStamps();
+        }
+        Map<String, Long> stamps = new HashMap<>();
+        File[] files = Helper.getSnippetsDir().listFiles();
+        if (files != null) {
+            for (File current : files) {
+                if (isSnippetFile(current)) {
+                    stamps.put(current.getName(), current.lastModified());
+                }
+            }
+        }
+        return stamps;
+    }
+
+    /**
+     * Switches between the packed store and the one-file-per-snippet layout.
+     * When the packed store is activated for the first time, existing snippet
+     * files are imported. When it is deactivated, all snippets are written back
+     * to files of their own and the segment file is removed.
+     *
+     * @param active true if the packed store should be used
+     */
+    public static synchronized void setPackedStoreActive(boolean active) {
+        if (active == Helper.isPackedStoreActive()) {
+            return;
+        }
+        if (!active) {
+            PackedStore s = getPackedStore();
+            if (s != null) {
+                if (!s.exportTo(Helper.getSnippetsDir())) {
+                    LOGGER.log(Level.SEVERE, "could not export packed store, keeping it");
+                    return;
+                }
+                s.close();
+                if (!s.getFile().delete()) {
+                    LOGGER.log(Level.SEVERE, String.format("could not delete %s",
+                            s.getFile().getAbsolutePath()));
+                }
+            }
+            store = null;
+        }
+        Helper.setPackedStoreActive(active);
+    }
+
+    private static synchronized PackedStore getPackedStore() {
+        if (!Helper.isPackedStoreActive()) {
+            return null;
+        }
+        File dir = Helper.getSnippetsDir();
+        if (store != null && !store.getFile().getParentFile().equals(dir)) {
+            store.close();
+            store = null;
+        }
+        if (store == null) {
+            store = PackedStore.open(dir);
+        }
+        return store;
+    }
+
+    /**
+     * Decodes the contents of a buffer while they are being read. If a
+     * character does not fit into the space a caller provides (a surrogate
+     * pair if just one char is requested), it is decoded into a small buffer
+     * of our own and handed out from there.
+     */
+    private static class ByteBufferReader extends Reader {
+
+        private final ByteBuffer in;
+        private final CharsetDecoder decoder;
+        private final CharBuffer pending;
+        private boolean flushed;
+
+        ByteBufferReader(ByteBuffer in, Charset cs) {
+            this.in = in;
+            decoder = cs.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            pending = CharBuffer.allocate(16);
+            pending.flip();
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (pending.hasRemaining()) {
+                int n = Math.min(len, pending.remaining());
+                pending.get(cbuf, off, n);
+                return n;
+            }
+            CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+            decode(out);
+            int read = out.position() - off;
+            while (read == 0 && !flushed) {
+                pending.clear();
+                decode(pending);
+                pending.flip();
+                if (pending.hasRemaining()) {
+                    read = Math.min(len, pending.remaining());
+                    pending.get(cbuf, off, read);
+                }
+            }
+            return read == 0 ? -1 : read;
+        }
+
+        private void decode(CharBuffer out) {
+            if (flushed) {
+                return;
+            }
+            decoder.decode(in, out, true);
+            if (!in.hasRemaining() && out.hasRemaining()) {
+                flushed = decoder.flush(out).isUnderflow();
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
     public static String getResourceAsString(Class<? extends JComponent> c, String url) {
         StringBuilder sb = new StringBuilder();
         try (InputStream is = c.getResourceAsStream(url)) {
@@ -0,0 +1,54 @@
+/*
+ * FusableTransform.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * A transform that can be expressed as a {@link TransformWriter}. Such
+ * transforms can be stacked (see {@link TransformPipeline}), so that text
+ * runs through several of them in one pass.
+ *
+ * @author Thomas Kuenneth
+ */
+public interface FusableTransform extends TextTransform {
+
+    /**
+     * Creates a writer that transforms what is written to it.
+     *
+     * @param out receives the result
+     * @return the writer
+     */
+    TransformWriter open(Writer out);
+
+    @Override
+    default void transform(Reader in, Writer out) throws IOException {
+        TransformWriter w = open(out);
+        char[] buf = new char[CHUNK_SIZE];
+        int read;
+        while ((read = in.read(buf)) >= 0) {
+            w.write(buf, 0, read);
+        }
+        w.finish();
+    }
+}
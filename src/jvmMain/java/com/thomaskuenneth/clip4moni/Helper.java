@@ -41,8 +41,18 @@ public class Helper {
     private static final String SNIPPETS_DIR = "SnippetsDir";
     private static final String LOOK_AND_FEEL = "LookAndFeel";
     private static final String MACOSX_WORKAROUND = "MacOSXWorkaround";
+    private static final String PACKED_STORE = "PackedStore";
+    private static final String WATCH_QUIET_PERIOD = "WatchQuietPeriod";
+    private static final String MENU_GROUPING = "MenuGrouping";
+    private static final String LAST_REPAIR = "LastRepair";
+
+    private static volatile File snippetsDir;
 
     public static final String LISTNAME = "Clip4Moni.list";
+    public static final String PACKNAME = "Clip4Moni.pack";
+    public static final String IDXNAME = "Clip4Moni.idx";
+    public static final String CHAINSNAME = "Clip4Moni.chains";
+    public static final String PLUGINS_DIRNAME = "plugins";
     public static final int SCREEN_RESOLUTION = DEFAULT_TOOLKIT.getScreenResolution();
     public static final String PROGNAME = Messages.getString("PROGNAME");
 
@@ -70,15 +80,24 @@ public class Helper {
     }
 
     public static File getSnippetsDir() {
-        Preferences prefs = getPrefs();
-        String path = prefs.get(SNIPPETS_DIR, getLibraryDir()
-                + File.separator + PROGNAME);
-        return getFileFromPath(path);
+        File dir = snippetsDir;
+        if (dir == null) {
+            Preferences prefs = getPrefs();
+            String path = prefs.get(SNIPPETS_DIR, getLibraryDir()
+                    + File.separator + PROGNAME);
+            dir = getFileFromPath(path);
+            snippetsDir = dir;
+        } else if (!dir.isDirectory()) {
+            // recreate the directory if it has been removed
+            getFileFromPath(dir.getPath());
+        }
+        return dir;
     }
 
     public static void setSnippetsDir(String dir) {
         Preferences prefs = getPrefs();
         prefs.put(SNIPPETS_DIR, dir);
+        snippetsDir = null;
     }
 
     public static boolean isMacOSXWorkaroundActive() {
@@ -91,6 +110,62 @@ public class Helper {
         prefs.putBoolean(MACOSX_WORKAROUND, active);
     }
 
+    public static boolean isPackedStoreActive() {
+        Preferences prefs = getPrefs();
+        return prefs.getBoolean(PACKED_STORE, false);
+    }
+
+    public static void setPackedStoreActive(boolean active) {
+        Preferences prefs = getPrefs();
+        prefs.putBoolean(PACKED_STORE, active);
+    }
+
+    /**
+     * Gets the time in milliseconds a file in the snippets directory must
+     * be left alone before its changes are picked up.
+     *
+     * @return the quiet period in milliseconds
+     */
+    public static long getWatchQuietPeriod() {
+        Preferences prefs = getPrefs();
+        return prefs.getLong(WATCH_QUIET_PERIOD, 300);
+    }
+
+    public static void setWatchQuietPeriod(long millis) {
+        Preferences prefs = getPrefs();
+        prefs.putLong(WATCH_QUIET_PERIOD, millis);
+    }
+
+    /**
+     * Gets how snippets are grouped in the tray menu.
+     *
+     * @return one of the {@code GROUPING_} constants of {@link TrayMenuManager}
+     */
+    public static int getMenuGrouping() {
+        Preferences prefs = getPrefs();
+        return prefs.getInt(MENU_GROUPING, TrayMenuManager.GROUPING_NONE);
+    }
+
+    public static void setMenuGrouping(int grouping) {
+        Preferences prefs = getPrefs();
+        prefs.putInt(MENU_GROUPING, grouping);
+    }
+
+    /**
+     * Gets the time the snippets directory was last repaired.
+     *
+     * @return the time in milliseconds, 0 if it has never been repaired
+     */
+    public static long getLastRepair() {
+        Preferences prefs = getPrefs();
+        return prefs.getLong(LAST_REPAIR, 0);
+    }
+
+    public static void setLastRepair(long millis) {
+        Preferences prefs = getPrefs();
+        prefs.putLong(LAST_REPAIR, millis);
+    }
+
     public static void restoreLookAndFeel() {
         Preferences prefs = getPrefs();
         String lookAndFeelClassName = prefs.get(LOOK_AND_FEEL, UIManager.getSystemLookAndFeelClassName());
@@ -117,6 +192,23 @@ public class Helper {
         return new File(getSnippetsDir(), LISTNAME);
     }
 
+    public static File getFileIndex() {
+        return new File(getSnippetsDir(), IDXNAME);
+    }
+
+    public static File getFileChains() {
+        return new File(getSnippetsDir(), CHAINSNAME);
+    }
+
+    /**
+     * Gets the directory plugin jars are loaded from. It is not created.
+     *
+     * @return the plugins directory inside the snippets directory
+     */
+    public static File getPluginsDir() {
+        return new File(getSnippetsDir(), PLUGINS_DIRNAME);
+    }
+
     @SuppressWarnings("ResultOfMethodCallIgnored")
     public static File getFileFromPath(String path) {
         File f = new File(path);
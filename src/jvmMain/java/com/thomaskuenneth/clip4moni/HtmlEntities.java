@@ -0,0 +1,157 @@
+/*
+ * HtmlEntities.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.util.Arrays;
+
+/**
+ * This class looks up the named character references of HTML 4 (plus
+ * {@code apos}). It is used by {@link EscapeCodec} and {@link HtmlToRtf}.
+ *
+ * @author Thomas Kuenneth
+ */
+final class HtmlEntities {
+
+    /**
+     * Length of the longest name.
+     */
+    static final int MAX_NAME_LENGTH = 8;
+
+    // sorted names; CHARS holds the characters
+    private static final String[] NAMES;
+    private static final char[] CHARS;
+
+    // U+00A0 to U+00FF
+    private static final String LATIN1 = "nbsp iexcl cent pound curren yen brvbar sect "
+            + "uml copy ordf laquo not shy reg macr deg plusmn sup2 sup3 acute micro para "
+            + "middot cedil sup1 ordm raquo frac14 frac12 frac34 iquest Agrave Aacute Acirc "
+            + "Atilde Auml Aring AElig Ccedil Egrave Eacute Ecirc Euml Igrave Iacute Icirc "
+            + "Iuml ETH Ntilde Ograve Oacute Ocirc Otilde Ouml times Oslash Ugrave Uacute "
+            + "Ucirc Uuml Yacute THORN szlig agrave aacute acirc atilde auml aring aelig "
+            + "ccedil egrave eacute ecirc euml igrave iacute icirc iuml eth ntilde ograve "
+            + "oacute ocirc otilde ouml divide oslash ugrave uacute ucirc uuml yacute thorn "
+            + "yuml";
+
+    // U+0391 to U+03C9; '-' marks unassigned code points
+    private static final String GREEK = "Alpha Beta Gamma Delta Epsilon Zeta Eta Theta "
+            + "Iota Kappa Lambda Mu Nu Xi Omicron Pi Rho - Sigma Tau Upsilon Phi Chi Psi "
+            + "Omega - - - - - - - alpha beta gamma delta epsilon zeta eta theta iota kappa "
+            + "lambda mu nu xi omicron pi rho sigmaf sigma tau upsilon phi chi psi omega";
+
+    private static final String[][] OTHERS = {
+            {"quot", "\""}, {"amp", "&"}, {"apos", "'"}, {"lt", "<"}, {"gt", ">"},
+            {"OElig", "\u0152"}, {"oelig", "\u0153"}, {"Scaron", "\u0160"},
+            {"scaron", "\u0161"}, {"Yuml", "\u0178"}, {"fnof", "\u0192"},
+            {"circ", "\u02c6"}, {"tilde", "\u02dc"}, {"thetasym", "\u03d1"},
+            {"upsih", "\u03d2"}, {"piv", "\u03d6"}, {"ensp", "\u2002"},
+            {"emsp", "\u2003"}, {"thinsp", "\u2009"}, {"zwnj", "\u200c"},
+            {"zwj", "\u200d"}, {"lrm", "\u200e"}, {"rlm", "\u200f"}, {"ndash", "\u2013"},
+            {"mdash", "\u2014"}, {"lsquo", "\u2018"}, {"rsquo", "\u2019"},
+            {"sbquo", "\u201a"}, {"ldquo", "\u201c"}, {"rdquo", "\u201d"},
+            {"bdquo", "\u201e"}, {"dagger", "\u2020"}, {"Dagger", "\u2021"},
+            {"bull", "\u2022"}, {"hellip", "\u2026"}, {"permil", "\u2030"},
+            {"prime", "\u2032"}, {"Prime", "\u2033"}, {"lsaquo", "\u2039"},
+            {"rsaquo", "\u203a"}, {"oline", "\u203e"}, {"frasl", "\u2044"},
+            {"euro", "\u20ac"}, {"image", "\u2111"}, {"weierp", "\u2118"},
+            {"real", "\u211c"}, {"trade", "\u2122"}, {"alefsym", "\u2135"},
+            {"larr", "\u2190"}, {"uarr", "\u2191"}, {"rarr", "\u2192"},
+            {"darr", "\u2193"}, {"harr", "\u2194"}, {"crarr", "\u21b5"},
+            {"lArr", "\u21d0"}, {"uArr", "\u21d1"}, {"rArr", "\u21d2"},
+            {"dArr", "\u21d3"}, {"hArr", "\u21d4"}, {"forall", "\u2200"},
+            {"part", "\u2202"}, {"exist", "\u2203"}, {"empty", "\u2205"},
+            {"nabla", "\u2207"}, {"isin", "\u2208"}, {"notin", "\u2209"},
+            {"ni", "\u220b"}, {"prod", "\u220f"}, {"sum", "\u2211"}, {"minus", "\u2212"},
+            {"lowast", "\u2217"}, {"radic", "\u221a"}, {"prop", "\u221d"},
+            {"infin", "\u221e"}, {"ang", "\u2220"}, {"and", "\u2227"}, {"or", "\u2228"},
+            {"cap", "\u2229"}, {"cup", "\u222a"}, {"int", "\u222b"}, {"there4", "\u2234"},
+            {"sim", "\u223c"}, {"cong", "\u2245"}, {"asymp", "\u2248"}, {"ne", "\u2260"},
+            {"equiv", "\u2261"}, {"le", "\u2264"}, {"ge", "\u2265"}, {"sub", "\u2282"},
+            {"sup", "\u2283"}, {"nsub", "\u2284"}, {"sube", "\u2286"}, {"supe", "\u2287"},
+            {"oplus", "\u2295"}, {"otimes", "\u2297"}, {"perp", "\u22a5"},
+            {"sdot", "\u22c5"}, {"lceil", "\u2308"}, {"rceil", "\u2309"},
+            {"lfloor", "\u230a"}, {"rfloor", "\u230b"}, {"lang", "\u2329"},
+            {"rang", "\u232a"}, {"loz", "\u25ca"}, {"spades", "\u2660"},
+            {"clubs", "\u2663"}, {"hearts", "\u2665"}, {"diams", "\u2666"}
+    };
+
+    static {
+        String[] latin1 = LATIN1.split(" ");
+        String[] greek = GREEK.split(" ");
+        String[][] all = new String[latin1.length + greek.length + OTHERS.length][];
+        int count = 0;
+        for (int i = 0; i < latin1.length; i++) {
+            all[count++] = new String[]{latin1[i], String.valueOf((char) (0xa0 + i))};
+        }
+        for (int i = 0; i < greek.length; i++) {
+            if (!"-".equals(greek[i])) {
+                all[count++] = new String[]{greek[i], String.valueOf((char) (0x391 + i))};
+            }
+        }
+        for (String[] other : OTHERS) {
+            all[count++] = other;
+        }
+        all = Arrays.copyOf(all, count);
+        Arrays.sort(all, (a, b) -> a[0].compareTo(b[0]));
+        NAMES = new String[all.length];
+        CHARS = new char[all.length];
+        for (int i = 0; i < all.length; i++) {
+            NAMES[i] = all[i][0];
+            CHARS[i] = all[i][1].charAt(0);
+        }
+    }
+
+    private HtmlEntities() {
+    }
+
+    /**
+     * Looks up the name {@code s[start, end)} without creating a string.
+     * Names are case-sensitive.
+     *
+     * @param s     the text containing the name
+     * @param start index of the first character of the name
+     * @param end   index after the last character of the name
+     * @return the character or -1 if there is no entity of that name
+     */
+    static int find(CharSequence s, int start, int end) {
+        int low = 0;
+        int high = NAMES.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            String name = NAMES[mid];
+            int c = 0;
+            int n = Math.min(name.length(), end - start);
+            for (int k = 0; k < n && c == 0; k++) {
+                c = name.charAt(k) - s.charAt(start + k);
+            }
+            if (c == 0) {
+                c = name.length() - (end - start);
+            }
+            if (c < 0) {
+                low = mid + 1;
+            } else if (c > 0) {
+                high = mid - 1;
+            } else {
+                return CHARS[mid];
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,502 @@
+/*
+ * HtmlToRtf.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+
+/**
+ * Converts HTML fragments to RTF in one pass. Supported are {@code b},
+ * {@code strong}, {@code i}, {@code em}, {@code u}, headings, paragraphs,
+ * line breaks, ordered and unordered lists and links; other tags are
+ * ignored, the contents of {@code head}, {@code script} and {@code style}
+ * are skipped. Whitespace is collapsed like a browser does. The result
+ * contains only ASCII characters; others are written as {@code \\uN?}.
+ *
+ * @author Thomas Kuenneth
+ */
+public class HtmlToRtf implements FusableTransform {
+
+    public static final String HEADER = "{\\rtf1\\ansi\\deff0{\\fonttbl{\\f0\\fswiss Helvetica;}}\n";
+
+    private static final int MAX_TAG_LENGTH = 8192;
+    private static final int MAX_ENTITY_LENGTH = 10;
+
+    @Override
+    public TransformWriter open(Writer out) {
+        return new RtfWriter(out);
+    }
+
+    private static class RtfWriter extends TransformWriter {
+
+        private static final int TEXT = 0;
+        private static final int TAG_START = 1;
+        private static final int TAG = 2;
+        private static final int ENTITY = 3;
+        private static final int COMMENT = 4;
+
+        private final StringBuilder rtf = new StringBuilder(HEADER);
+        private final StringBuilder token = new StringBuilder();
+        // one entry per open list: {1 if ordered, number of items}
+        private final Deque<int[]> lists = new ArrayDeque<>();
+
+        private int state = TEXT;
+        private char quote;
+        private int dashes;
+        private String skipUntil;
+        // characters of "</" + skipUntil seen so far
+        private int matched;
+
+        private boolean lineStart = true;
+        private boolean parStart = true;
+        private boolean pendingSpace;
+        private int bold;
+        private int italic;
+        private int underline;
+        private boolean link;
+
+        RtfWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                process(cbuf[i]);
+                if (rtf.length() >= CHUNK_SIZE) {
+                    flushRtf();
+                }
+            }
+        }
+
+        @Override
+        protected void endOfInput() throws IOException {
+            if (state == TAG_START) {
+                text('<');
+            } else if (state == ENTITY) {
+                literalEntity();
+            }
+            state = TEXT;
+            endLink();
+            rtf.append('}');
+            flushRtf();
+        }
+
+        private void flushRtf() throws IOException {
+            out.append(rtf);
+            rtf.setLength(0);
+        }
+
+        private void process(char ch) {
+            switch (state) {
+                case TEXT:
+                    if (skipUntil != null) {
+                        raw(ch);
+                    } else if (ch == '<') {
+                        token.setLength(0);
+                        state = TAG_START;
+                    } else if (ch == '&') {
+                        token.setLength(0);
+                        state = ENTITY;
+                    } else {
+                        text(ch);
+                    }
+                    break;
+                case TAG_START:
+                    if (Character.isLetter(ch) || ch == '/' || ch == '!' || ch == '?') {
+                        token.append(ch);
+                        quote = 0;
+                        state = TAG;
+                    } else {
+                        // a lone '<'
+                        text('<');
+                        state = TEXT;
+                        process(ch);
+                    }
+                    break;
+                case TAG:
+                    if (quote != 0) {
+                        if (ch == quote) {
+                            quote = 0;
+                        }
+                    } else if (ch == '>') {
+                        tag(token.toString());
+                        state = TEXT;
+                        break;
+                    } else if ((ch == '"' || ch == '\'') && token.indexOf("=") >= 0) {
+                        quote = ch;
+                    }
+                    if (token.length() < MAX_TAG_LENGTH) {
+                        token.append(ch);
+                    }
+                    if (token.length() == 3 && "!--".contentEquals(token)) {
+                        dashes = 0;
+                        state = COMMENT;
+                    }
+                    break;
+                case ENTITY:
+                    if (ch == ';') {
+                        entity(token.toString());
+                        state = TEXT;
+                    } else if ((Character.isLetterOrDigit(ch) || ch == '#')
+                            && token.length() < MAX_ENTITY_LENGTH) {
+                        token.append(ch);
+                    } else {
+                        literalEntity();
+                        state = TEXT;
+                        process(ch);
+                    }
+                    break;
+                case COMMENT:
+                    if (ch == '>' && dashes >= 2) {
+                        state = TEXT;
+                    } else {
+                        dashes = ch == '-' ? dashes + 1 : 0;
+                    }
+                    break;
+            }
+        }
+
+        /*
+         * The contents of head, script and style are not parsed, as they may
+         * contain '<' (for example in "if (x<y)"); only the end tag counts.
+         */
+        private void raw(char ch) {
+            if (matched == skipUntil.length() + 2) {
+                matched = 0;
+                if (ch == '>' || ch == '/' || Character.isWhitespace(ch)) {
+                    token.setLength(0);
+                    token.append('/').append(skipUntil);
+                    quote = 0;
+                    state = TAG;
+                    process(ch);
+                    return;
+                }
+            }
+            char expected = matched == 0 ? '<' : matched == 1 ? '/' : skipUntil.charAt(matched - 2);
+            if (Character.toLowerCase(ch) == expected) {
+                matched += 1;
+            } else {
+                matched = ch == '<' ? 1 : 0;
+            }
+        }
+
+        private void text(char ch) {
+            if (skipUntil != null) {
+                return;
+            }
+            if (ch == ' ' || ch == '\n' || ch == '\r' || ch == '\t' || ch == '\f') {
+                if (!lineStart) {
+                    pendingSpace = true;
+                }
+            } else if (ch >= ' ') {
+                visible();
+                appendEscaped(rtf, ch);
+            }
+        }
+
+        private void visible() {
+            flushSpace();
+            lineStart = false;
+            parStart = false;
+        }
+
+        private void flushSpace() {
+            if (pendingSpace) {
+                rtf.append(' ');
+                pendingSpace = false;
+            }
+        }
+
+        private void literalEntity() {
+            text('&');
+            for (int i = 0; i < token.length(); i++) {
+                text(token.charAt(i));
+            }
+        }
+
+        private void entity(String name) {
+            int cp = -1;
+            if (name.startsWith("#x") || name.startsWith("#X")) {
+                cp = parseCodePoint(name.substring(2), 16);
+            } else if (name.startsWith("#")) {
+                cp = parseCodePoint(name.substring(1), 10);
+            } else if ("nbsp".equals(name)) {
+                if (skipUntil == null) {
+                    visible();
+                    rtf.append("\\~");
+                }
+                return;
+            } else {
+                cp = HtmlEntities.find(name, 0, name.length());
+            }
+            if (cp < 0) {
+                literalEntity();
+                text(';');
+            } else {
+                for (char ch : Character.toChars(cp)) {
+                    text(ch);
+                }
+            }
+        }
+
+        private static int parseCodePoint(String s, int radix) {
+            try {
+                int cp = Integer.parseInt(s, radix);
+                return Character.isValidCodePoint(cp) ? cp : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        private void tag(String raw) {
+            boolean closing = raw.startsWith("/");
+            int start = closing ? 1 : 0;
+            int end = start;
+            while (end < raw.length() && Character.isLetterOrDigit(raw.charAt(end))) {
+                end += 1;
+            }
+            String name = raw.substring(start, end).toLowerCase(Locale.ROOT);
+            if (skipUntil != null) {
+                if (closing && name.equals(skipUntil)) {
+                    skipUntil = null;
+                }
+                return;
+            }
+            switch (name) {
+                case "b":
+                case "strong":
+                    bold = format(closing, bold, "\\b ", "\\b0 ");
+                    break;
+                case "i":
+                case "em":
+                    italic = format(closing, italic, "\\i ", "\\i0 ");
+                    break;
+                case "u":
+                    underline = format(closing, underline, "\\ul ", "\\ulnone ");
+                    break;
+                case "h1":
+                case "h2":
+                case "h3":
+                case "h4":
+                case "h5":
+                case "h6":
+                    if (closing) {
+                        bold = format(true, bold, "\\b ", "\\b0 ");
+                        paragraph();
+                    } else {
+                        paragraph();
+                        bold = format(false, bold, "\\b ", "\\b0 ");
+                    }
+                    break;
+                case "p":
+                case "div":
+                case "blockquote":
+                    paragraph();
+                    break;
+                case "br":
+                    rtf.append("\\line ");
+                    pendingSpace = false;
+                    lineStart = true;
+                    break;
+                case "ul":
+                case "ol":
+                    paragraph();
+                    if (!closing) {
+                        lists.push(new int[]{"ol".equals(name) ? 1 : 0, 0});
+                    } else if (!lists.isEmpty()) {
+                        lists.pop();
+                        if (lists.isEmpty()) {
+                            rtf.append("\\pard ");
+                        }
+                    }
+                    break;
+                case "li":
+                    paragraph();
+                    if (!closing) {
+                        listItem();
+                    }
+                    break;
+                case "a":
+                    endLink();
+                    if (!closing) {
+                        String href = getAttribute(raw, end, "href");
+                        if (href != null) {
+                            flushSpace();
+                            rtf.append("{\\field{\\*\\fldinst{HYPERLINK \"");
+                            appendUrl(href);
+                            rtf.append("\"}}{\\fldrslt{\\ul ");
+                            link = true;
+                        }
+                    }
+                    break;
+                case "head":
+                case "script":
+                case "style":
+                    if (!closing && !raw.endsWith("/")) {
+                        skipUntil = name;
+                        matched = 0;
+                    }
+                    break;
+            }
+        }
+
+        private int format(boolean closing, int depth, String on, String off) {
+            if (!closing) {
+                if (depth == 0) {
+                    // the space belongs in front of the formatted text
+                    flushSpace();
+                    rtf.append(on);
+                }
+                return depth + 1;
+            }
+            if (depth == 1) {
+                rtf.append(off);
+            }
+            return Math.max(0, depth - 1);
+        }
+
+        private void paragraph() {
+            if (!parStart) {
+                rtf.append("\\par\n");
+                parStart = true;
+            }
+            lineStart = true;
+            pendingSpace = false;
+        }
+
+        private void listItem() {
+            int[] list = lists.peek();
+            String marker;
+            if (list != null && list[0] == 1) {
+                list[1] += 1;
+                marker = list[1] + ".";
+            } else {
+                marker = "\\bullet";
+            }
+            int indent = 360 * (Math.max(1, lists.size()) + 1);
+            rtf.append("\\pard\\li").append(indent).append("\\fi-360 ")
+                    .append(marker).append("\\tab ");
+            parStart = false;
+        }
+
+        private void endLink() {
+            if (link) {
+                rtf.append("}}}");
+                link = false;
+                // the field group has ended, so formatting must be restored
+                if (bold > 0) {
+                    rtf.append("\\b ");
+                }
+                if (italic > 0) {
+                    rtf.append("\\i ");
+                }
+                if (underline > 0) {
+                    rtf.append("\\ul ");
+                }
+            }
+        }
+
+        private void appendUrl(String url) {
+            for (int i = 0; i < url.length(); i++) {
+                char ch = url.charAt(i);
+                if (ch == '"') {
+                    rtf.append("%22");
+                } else if (ch >= ' ') {
+                    appendEscaped(rtf, ch);
+                }
+            }
+        }
+
+        /*
+         * Gets the value of an attribute; raw is the text between '<' and
+         * '>', from is the index after the tag name.
+         */
+        private static String getAttribute(String raw, int from, String name) {
+            int i = from;
+            int len = raw.length();
+            while (i < len) {
+                while (i < len && (Character.isWhitespace(raw.charAt(i)) || raw.charAt(i) == '/')) {
+                    i += 1;
+                }
+                int nameStart = i;
+                while (i < len && raw.charAt(i) != '=' && raw.charAt(i) != '/'
+                        && !Character.isWhitespace(raw.charAt(i))) {
+                    i += 1;
+                }
+                String attr = raw.substring(nameStart, i);
+                while (i < len && Character.isWhitespace(raw.charAt(i))) {
+                    i += 1;
+                }
+                String value = null;
+                if (i < len && raw.charAt(i) == '=') {
+                    i += 1;
+                    while (i < len && Character.isWhitespace(raw.charAt(i))) {
+                        i += 1;
+                    }
+                    int valueStart;
+                    int valueEnd;
+                    if (i < len && (raw.charAt(i) == '"' || raw.charAt(i) == '\'')) {
+                        valueStart = i + 1;
+                        valueEnd = raw.indexOf(raw.charAt(i), valueStart);
+                        if (valueEnd < 0) {
+                            valueEnd = len;
+                        }
+                        i = Math.min(len, valueEnd + 1);
+                    } else {
+                        valueStart = i;
+                        while (i < len && !Character.isWhitespace(raw.charAt(i))) {
+                            i += 1;
+                        }
+                        valueEnd = i;
+                    }
+                    value = raw.substring(valueStart, valueEnd);
+                }
+                if (attr.equalsIgnoreCase(name)) {
+                    return value != null ? value.replace("&amp;", "&") : StringUtils.EMPTY;
+                }
+                if (attr.isEmpty() && value == null) {
+                    break;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Appends a character to RTF text, escaping it if necessary.
+     *
+     * @param rtf receives the character
+     * @param ch  the character
+     */
+    public static void appendEscaped(StringBuilder rtf, char ch) {
+        if (ch == '\\' || ch == '{' || ch == '}') {
+            rtf.append('\\').append(ch);
+        } else if (ch < 0x80) {
+            rtf.append(ch);
+        } else {
+            rtf.append("\\u").append((int) (short) ch).append('?');
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * IdGenerator.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This class creates unique ids in several formats, many at a time. Random
+ * bits come from {@link ThreadLocalRandom}, which neither blocks nor is
+ * shared between threads; the ids are meant to be unique, not to be
+ * secrets.
+ * <p>
+ * UUIDv7, ULID and Snowflake ids start with a timestamp in milliseconds, so
+ * they sort by the time they were created. Ids created by one generator
+ * within the same millisecond are kept in order by a counter; if it
+ * overflows, the timestamp is advanced by a millisecond rather than
+ * waiting for the clock.
+ *
+ * @author Thomas Kuenneth
+ */
+public class IdGenerator {
+
+    public enum Format {
+        /**
+         * Random UUID (version 4), like {@link java.util.UUID#randomUUID()}.
+         */
+        UUID_V4,
+        /**
+         * Time-ordered UUID (version 7, RFC 9562); the 12 bits after the
+         * timestamp count ids within a millisecond.
+         */
+        UUID_V7,
+        /**
+         * 26 characters of Crockford's Base32: timestamp and 80 random
+         * bits, which are incremented within a millisecond.
+         */
+        ULID,
+        /**
+         * Decimal 64-bit number: 41 bits of milliseconds since 2010-11-04
+         * (Twitter's epoch), 10 bits worker id and a 12 bit sequence.
+         */
+        SNOWFLAKE
+    }
+
+    public static final long SNOWFLAKE_EPOCH = 1288834974657L;
+    public static final int MAX_WORKER_ID = 1023;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final Format format;
+    private final int workerId;
+
+    private long lastMillis = -1;
+    // UUID_V7 and SNOWFLAKE: counter within lastMillis
+    private int sequence;
+    // ULID: the random part of the last id, 16 + 64 bits
+    private int randomHigh;
+    private long randomLow;
+
+    /**
+     * Creates a generator. Snowflake ids get a random worker id.
+     *
+     * @param format the format of the ids
+     */
+    public IdGenerator(Format format) {
+        this(format, ThreadLocalRandom.current().nextInt(MAX_WORKER_ID + 1));
+    }
+
+    /**
+     * Creates a generator.
+     *
+     * @param format   the format of the ids
+     * @param workerId worker id of Snowflake ids, 0 to {@link #MAX_WORKER_ID}
+     */
+    public IdGenerator(Format format, int workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("workerId " + workerId);
+        }
+        this.format = format;
+        this.workerId = workerId;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Creates an id.
+     *
+     * @return the id
+     */
+    public String next() {
+        StringBuilder sb = new StringBuilder(36);
+        append(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Creates ids, one per line. The result does not end with a line
+     * terminator.
+     *
+     * @param count number of ids
+     * @return the ids
+     */
+    public String next(int count) {
+        StringBuilder sb = new StringBuilder(count * 37);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append('\n');
+            }
+            append(sb);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Appends an id.
+     *
+     * @param sb receives the id
+     */
+    public synchronized void append(StringBuilder sb) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (format) {
+            case UUID_V4:
+                appendUuid(sb, (random.nextLong() & ~0xf000L) | 0x4000L,
+                        (random.nextLong() & ~(3L << 62)) | (2L << 62));
+                break;
+            case UUID_V7: {
+                long millis = tick(0xfff);
+                appendUuid(sb, (millis << 16) | 0x7000L | sequence,
+                        (random.nextLong() & ~(3L << 62)) | (2L << 62));
+                break;
+            }
+            case ULID: {
+                long millis = System.currentTimeMillis();
+                if (millis > lastMillis) {
+                    lastMillis = millis;
+                    randomHigh = random.nextInt() & 0xffff;
+                    randomLow = random.nextLong();
+                } else if (++randomLow == 0 && ++randomHigh > 0xffff) {
+                    lastMillis += 1;
+                    randomHigh = 0;
+                }
+                // 10 characters time, 4 + 12 characters random
+                appendBase32(sb, lastMillis, 50);
+                appendBase32(sb, ((long) randomHigh << 4) | (randomLow >>> 60), 20);
+                appendBase32(sb, randomLow, 60);
+                break;
+            }
+            case SNOWFLAKE: {
+                long millis = tick(0xfff);
+                sb.append(((millis - SNOWFLAKE_EPOCH) << 22) | ((long) workerId << 12) | sequence);
+                break;
+            }
+        }
+    }
+
+    /*
+     * Returns the timestamp of the next id and updates sequence; starts with
+     * 0 in each millisecond.
+     */
+    private long tick(int maxSequence) {
+        long millis = System.currentTimeMillis();
+        if (millis > lastMillis) {
+            lastMillis = millis;
+            sequence = 0;
+        } else if (++sequence > maxSequence) {
+            // also if the clock went backwards
+            lastMillis += 1;
+            sequence = 0;
+        }
+        return lastMillis;
+    }
+
+    private static void appendUuid(StringBuilder sb, long msb, long lsb) {
+        appendHex(sb, msb >>> 32, 8);
+        sb.append('-');
+        appendHex(sb, msb >>> 16, 4);
+        sb.append('-');
+        appendHex(sb, msb, 4);
+        sb.append('-');
+        appendHex(sb, lsb >>> 48, 4);
+        sb.append('-');
+        appendHex(sb, lsb, 12);
+    }
+
+    private static void appendHex(StringBuilder sb, long value, int digits) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            sb.append(HEX[(int) (value >>> shift) & 0xf]);
+        }
+    }
+
+    /*
+     * Appends the lowest bits of value (a multiple of 5), 5 bits per character.
+     */
+    private static void appendBase32(StringBuilder sb, long value, int bits) {
+        for (int shift = bits - 5; shift >= 0; shift -= 5) {
+            sb.append(CROCKFORD[(int) (value >>> shift) & 0x1f]);
+        }
+    }
+}
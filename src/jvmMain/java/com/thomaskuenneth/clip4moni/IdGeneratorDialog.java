@@ -0,0 +1,100 @@
+/*
+ * IdGeneratorDialog.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.awt.BorderLayout;
+import javax.swing.Box;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerNumberModel;
+
+/**
+ * This dialog asks for the format and the number of ids to create (see
+ * {@link IdGenerator}).
+ *
+ * @author Thomas Kuenneth
+ */
+public class IdGeneratorDialog extends AbstractDialog {
+
+    private static final int MAX_COUNT = 100000;
+
+    // kept for the next invocation
+    private static int lastFormat;
+    private static int lastCount = 1;
+
+    private final JComboBox<String> comboboxFormat;
+    private final JSpinner spinnerCount;
+
+    public IdGeneratorDialog() {
+        comboboxFormat = new JComboBox<>(new String[]{Messages.getString("STR_ID_UUID_V4"),
+                Messages.getString("STR_ID_UUID_V7"),
+                Messages.getString("STR_ID_ULID"),
+                Messages.getString("STR_ID_SNOWFLAKE")});
+        spinnerCount = new JSpinner(new SpinnerNumberModel(lastCount, 1, MAX_COUNT, 1));
+        init();
+    }
+
+    private void init() {
+        comboboxFormat.setSelectedIndex(lastFormat);
+        comboboxFormat.setAlignmentX(LEFT_ALIGNMENT);
+        spinnerCount.setAlignmentX(LEFT_ALIGNMENT);
+        Box b = Box.createVerticalBox();
+        b.add(createLabel(Messages.getString("STR_ID_FORMAT")));
+        b.add(comboboxFormat);
+        b.add(Box.createVerticalStrut(10));
+        b.add(createLabel(Messages.getString("STR_ID_COUNT")));
+        b.add(spinnerCount);
+        add(b, BorderLayout.CENTER);
+    }
+
+    /**
+     * Shows the dialog and creates the ids.
+     *
+     * @return the ids, one per line, or {@code null} if the dialog has been
+     * cancelled
+     */
+    public String createIds() {
+        if (showDialog() != JOptionPane.OK_OPTION) {
+            return null;
+        }
+        lastFormat = comboboxFormat.getSelectedIndex();
+        lastCount = (Integer) spinnerCount.getValue();
+        return new IdGenerator(IdGenerator.Format.values()[lastFormat]).next(lastCount);
+    }
+
+    @Override
+    public String getTitle() {
+        return Messages.getString("TITLE_CREATE_IDS");
+    }
+
+    @Override
+    public int getOption() {
+        return JOptionPane.OK_CANCEL_OPTION;
+    }
+
+    private JLabel createLabel(String s) {
+        JLabel l = new JLabel(s);
+        l.setAlignmentX(LEFT_ALIGNMENT);
+        return l;
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * LineTransform.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+/**
+ * This transform applies a {@link CharFilter} to each line of a text. Lines
+ * end with '\n', '\r' or "\r\n" (like {@link java.io.BufferedReader#readLine()})
+ * and are joined with '\n'; the output does not end with a line terminator.
+ * Empty lines before the first non-empty one are dropped. If {@code
+ * addEmptyLines} is false, all lines that are empty after filtering are
+ * dropped.
+ * <p>
+ * The input is read in chunks; lines are never held in memory as a whole.
+ * Inputs larger than {@link #PARALLEL_CHUNK_SIZE} are split on line
+ * boundaries and the pieces are filtered in parallel on the common
+ * fork/join pool. Filters with per-line state must therefore be passed as a
+ * {@link Supplier}; each writer and each piece gets its own filter.
+ *
+ * @author Thomas Kuenneth
+ */
+public class LineTransform implements FusableTransform {
+
+    /**
+     * Size (in characters) of the pieces filtered in parallel.
+     */
+    public static final int PARALLEL_CHUNK_SIZE = 1 << 18;
+
+    private final Supplier<? extends CharFilter> filters;
+    private final boolean addEmptyLines;
+
+    /**
+     * Creates a transform with a stateless filter.
+     *
+     * @param filter        the filter
+     * @param addEmptyLines whether lines that are empty after filtering are kept
+     */
+    public LineTransform(CharFilter filter, boolean addEmptyLines) {
+        this(() -> filter, addEmptyLines);
+    }
+
+    public LineTransform(Supplier<? extends CharFilter> filters, boolean addEmptyLines) {
+        this.filters = filters;
+        this.addEmptyLines = addEmptyLines;
+    }
+
+    public boolean isAddEmptyLines() {
+        return addEmptyLines;
+    }
+
+    @Override
+    public TransformWriter open(Writer out) {
+        return new LineWriter(out);
+    }
+
+    @Override
+    public void transform(Reader in, Writer out) throws IOException {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        char[] buf = new char[PARALLEL_CHUNK_SIZE];
+        int len = fill(in, buf, 0);
+        if (parallelism < 2 || len < buf.length) {
+            TransformWriter w = open(out);
+            while (len > 0) {
+                w.write(buf, 0, len);
+                len = fill(in, buf, 0);
+            }
+            w.finish();
+            return;
+        }
+        // bounds the memory needed to (number of pieces in flight) * piece size
+        int maxPending = parallelism * 2;
+        Deque<ForkJoinTask<Piece>> pending = new ArrayDeque<>();
+        Joiner joiner = new Joiner(out);
+        boolean eof = false;
+        while (!eof) {
+            if (len == buf.length) {
+                int end = lastLineBoundary(buf, len);
+                if (end < 0) {
+                    // no line ends in this piece, so it needs to grow
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+                    len = fill(in, buf, len);
+                    continue;
+                }
+                char[] piece = buf;
+                int pieceLen = end;
+                pending.add(ForkJoinTask.adapt(() -> filterPiece(piece, pieceLen)).fork());
+                buf = new char[Math.max(PARALLEL_CHUNK_SIZE, len - end)];
+                System.arraycopy(piece, end, buf, 0, len - end);
+                len = fill(in, buf, len - end);
+            } else {
+                char[] piece = buf;
+                int pieceLen = len;
+                pending.add(ForkJoinTask.adapt(() -> filterPiece(piece, pieceLen)).fork());
+                eof = true;
+            }
+            while (pending.size() >= maxPending || (eof && !pending.isEmpty())) {
+                joiner.append(pending.remove().join());
+            }
+        }
+    }
+
+    /*
+     * Reads until buf is full or the end of the input has been reached;
+     * returns the number of characters in buf.
+     */
+    private static int fill(Reader in, char[] buf, int len) throws IOException {
+        while (len < buf.length) {
+            int read = in.read(buf, len, buf.length - len);
+            if (read < 0) {
+                break;
+            }
+            len += read;
+        }
+        return len;
+    }
+
+    /*
+     * Returns the index after the last line terminator of buf, or -1. A '\r'
+     * at the very end does not count, as a '\n' may follow.
+     */
+    private static int lastLineBoundary(char[] buf, int len) {
+        for (int i = len - 1; i >= 0; i--) {
+            if (buf[i] == '\n' || (buf[i] == '\r' && i < len - 1)) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private Piece filterPiece(char[] buf, int len) throws IOException {
+        StringWriter out = new StringWriter(len);
+        LineWriter w = new LineWriter(out);
+        w.write(buf, 0, len);
+        w.finish();
+        return new Piece(w.state.leadingEmptyLines, out.toString(), !w.state.outputEmpty);
+    }
+
+    /*
+     * The result of filtering a piece as if it were the whole text.
+     */
+    private static final class Piece {
+
+        final int leadingEmptyLines;
+        final String text;
+        final boolean hasContent;
+
+        Piece(int leadingEmptyLines, String text, boolean hasContent) {
+            this.leadingEmptyLines = leadingEmptyLines;
+            this.text = text;
+            this.hasContent = hasContent;
+        }
+    }
+
+    /*
+     * Writes pieces in order, adding what filtering the whole text would
+     * have produced at their beginning.
+     */
+    private class Joiner {
+
+        final Writer out;
+        boolean outputEmpty = true;
+
+        Joiner(Writer out) {
+            this.out = out;
+        }
+
+        void append(Piece piece) throws IOException {
+            if (outputEmpty) {
+                out.write(piece.text);
+                outputEmpty = !piece.hasContent;
+                return;
+            }
+            if (addEmptyLines) {
+                for (int i = 0; i < piece.leadingEmptyLines; i++) {
+                    out.write('\n');
+                }
+            }
+            if (piece.hasContent) {
+                out.write('\n');
+                out.write(piece.text);
+            }
+        }
+    }
+
+    private class LineWriter extends TransformWriter {
+
+        private final State state;
+        private boolean skipLF = false;
+
+        LineWriter(Writer out) {
+            super(out);
+            state = new State(out, filters.get());
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            int start = off;
+            int end = off + len;
+            int i = off;
+            while ((i = CharKernels.indexOfLineTerminator(cbuf, i, end)) < end) {
+                char ch = cbuf[i];
+                if (skipLF && ch == '\n' && i == start) {
+                    // second half of "\r\n"
+                    skipLF = false;
+                } else {
+                    state.segment(cbuf, start, i - start);
+                    state.endLine();
+                    skipLF = ch == '\r';
+                }
+                i += 1;
+                start = i;
+            }
+            if (start < end) {
+                skipLF = false;
+                state.segment(cbuf, start, end - start);
+            }
+        }
+
+        @Override
+        protected void endOfInput() throws IOException {
+            if (state.lineStarted) {
+                state.endLine();
+            }
+        }
+    }
+
+    /*
+     * Output state; mirrors appending lines to a StringBuilder that are
+     * separated by '\n' once it is no longer empty.
+     */
+    private class State {
+
+        final Writer out;
+        final CharFilter filter;
+        final StringBuilder filtered = new StringBuilder();
+
+        boolean outputEmpty = true;
+        boolean lineStarted;
+        boolean lineWritten;
+        boolean separate;
+        int leadingEmptyLines;
+
+        State(Writer out, CharFilter filter) {
+            this.out = out;
+            this.filter = filter;
+        }
+
+        void segment(char[] buf, int off, int len) throws IOException {
+            if (!lineStarted) {
+                lineStarted = true;
+                lineWritten = false;
+                separate = !outputEmpty;
+            }
+            if (len > 0) {
+                filtered.setLength(0);
+                filter.filter(buf, off, len, filtered);
+                write();
+            }
+        }
+
+        void endLine() throws IOException {
+            if (!lineStarted) {
+                segment(null, 0, 0);
+            }
+            filtered.setLength(0);
+            filter.endLine(filtered);
+            write();
+            if (!lineWritten && addEmptyLines && separate) {
+                out.write('\n');
+            } else if (outputEmpty) {
+                leadingEmptyLines += 1;
+            }
+            lineStarted = false;
+        }
+
+        private void write() throws IOException {
+            if (filtered.length() > 0) {
+                if (!lineWritten) {
+                    if (separate) {
+                        out.write('\n');
+                    }
+                    lineWritten = true;
+                    outputEmpty = false;
+                }
+                out.append(filtered);
+            }
+        }
+    }
+}
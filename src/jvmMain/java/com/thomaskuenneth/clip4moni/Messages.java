@@ -38,6 +38,8 @@ public class Messages {
     public static final String MI_CLIPBOARD = getString("MI_CLIPBOARD");
     public static final String MI_SETTINGS = getString("MI_SETTINGS");
     public static final String MI_LAUNCH = getString("MI_LAUNCH");
+    public static final String MI_QUICKSEARCH = getString("MI_QUICKSEARCH");
+    public static final String MI_EDITCHAINS = getString("MI_EDITCHAINS");
 
     // buttons
     public static final String BTTN_UP = getString("BTTN_UP");
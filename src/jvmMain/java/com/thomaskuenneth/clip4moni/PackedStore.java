@@ -0,0 +1,726 @@
+/*
+ * PackedStore.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * This class stores all snippets in one append-only segment file. Each record
+ * holds the name of a snippet (the value of an {@link Entry}) and its contents
+ * encoded using UTF-8. Records are never modified in place; saving a snippet
+ * appends a new record, deleting one appends a tombstone. An in-memory index
+ * maps names to the offset of their latest record. Once the file contains more
+ * dead than live bytes it is compacted. The checksum of the latest record
+ * serves as the stamp of a snippet; unlike the offset it survives compaction.
+ * <p>
+ * Several instances may share the file (for example on a synced profile
+ * drive). Appending and compacting take an exclusive {@link FileLock}. Each
+ * compaction creates a file with a new generation id in its header, so other
+ * instances notice that they must reread it. The file being replaced gets the
+ * generation id 0, which tells instances that still have it
+ * open to wait for its successor.
+ * <p>
+ * Header layout: magic 'C', '4', 'M', 'P', 0x0 (5 bytes), version (1 byte),
+ * generation id (8 bytes)
+ * <p>
+ * Record layout: type (1 byte), name length (2 bytes), data length (4 bytes),
+ * CRC32 of name and data (4 bytes), name (UTF-8), data (UTF-8)
+ *
+ * @author Thomas Kuenneth
+ */
+public class PackedStore {
+
+    private static final String TAG = PackedStore.class.getName();
+    private static final Logger LOGGER = Logger.getLogger(TAG);
+
+    private static final byte[] MAGIC = {'C', '4', 'M', 'P', 0x0};
+    private static final byte VERSION = 2;
+    private static final int GENERATION_OFFSET = MAGIC.length + 1;
+    private static final int HEADER_LENGTH = GENERATION_OFFSET + Long.BYTES;
+    private static final long NO_GENERATION = 0;
+    private static final int RECORD_HEADER_LENGTH = 11;
+    private static final byte TYPE_PUT = 1;
+    private static final byte TYPE_DELETE = 2;
+    private static final long COMPACTION_THRESHOLD = 64 * 1024;
+
+    // a region far behind the records, so that holding the lock does not keep
+    // others from reading (locks are mandatory on Windows)
+    private static final long LOCK_POSITION = Long.MAX_VALUE - 1;
+    private static final int ATTEMPTS = 50;
+    private static final long RETRY_DELAY = 20;
+
+    private static final int HEADER_MISSING = 0;
+    private static final int HEADER_RETIRED = 1;
+    private static final int HEADER_VALID = 2;
+
+    private final File file;
+    private final Map<String, Location> index;
+
+    private FileChannel channel;
+    private long generation;
+    private long end;
+    private long liveBytes;
+    private long deadBytes;
+
+    private PackedStore(File file) {
+        this.file = file;
+        index = new HashMap<>();
+    }
+
+    /**
+     * Opens the segment file in a snippets directory. If it does not exist yet,
+     * the snippets stored in the legacy one-file-per-snippet layout are imported.
+     *
+     * @param dir the snippets directory
+     * @return the store or {@code null} if it could not be opened
+     */
+    public static PackedStore open(File dir) {
+        File f = new File(dir, Helper.PACKNAME);
+        boolean migrate = !f.exists();
+        PackedStore store = new PackedStore(f);
+        try {
+            store.openChannel(true);
+            if (migrate) {
+                store.importLegacyFiles(dir);
+            }
+            store.compactIfNeeded();
+            return store;
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "open()", e);
+            store.close();
+        }
+        return null;
+    }
+
+    public synchronized boolean contains(String name) {
+        refresh();
+        return index.containsKey(name);
+    }
+
+    public synchronized List<String> getNames() {
+        refresh();
+        return new ArrayList<>(index.keySet());
+    }
+
+    /**
+     * Gets the stamp of a snippet: the checksum of its latest record, which
+     * changes whenever different contents are saved, but not when the file
+     * is compacted.
+     *
+     * @param name name of the snippet
+     * @return the stamp or -1 if the store does not contain the snippet
+     */
+    public synchronized long getStamp(String name) {
+        refresh();
+        Location l = index.get(name);
+        return l != null ? l.getStamp() : -1;
+    }
+
+    /**
+     * Gets the stamps of all snippets (see {@link #getStamp(String)}).
+     *
+     * @return stamps by name
+     */
+    public synchronized Map<String, Long> getStamps() {
+        refresh();
+        Map<String, Long> stamps = new HashMap<>();
+        for (Map.Entry<String, Location> e : index.entrySet()) {
+            stamps.put(e.getKey(), e.getValue().getStamp());
+        }
+        return stamps;
+    }
+
+    /**
+     * Reads the contents of a snippet.
+     *
+     * @param name name of the snippet
+     * @return the contents or {@code null} if the store does not contain it
+     */
+    public synchronized String load(String name) {
+        refresh();
+        Location l = index.get(name);
+        if (l != null) {
+            try {
+                return FileHelper.decode(FileHelper.read(channel, l.offset, l.length),
+                        StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "load()", e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Opens a snippet for reading. The contents are decoded while being read,
+     * so they are not held in memory as a string.
+     *
+     * @param name name of the snippet
+     * @return a reader for the contents or {@code null} if the store does not contain it
+     */
+    public synchronized Reader openReader(String name) {
+        refresh();
+        Location l = index.get(name);
+        if (l != null) {
+            try {
+                return FileHelper.createReader(FileHelper.read(channel, l.offset, l.length),
+                        StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "openReader()", e);
+            }
+        }
+        return null;
+    }
+
+    public synchronized boolean save(String name, String text) {
+        refresh();
+        try {
+            append(TYPE_PUT, name, text.getBytes(StandardCharsets.UTF_8));
+            compactIfNeeded();
+            return true;
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "save()", e);
+        }
+        return false;
+    }
+
+    public synchronized boolean delete(String name) {
+        refresh();
+        if (index.containsKey(name)) {
+            try {
+                append(TYPE_DELETE, name, new byte[0]);
+                compactIfNeeded();
+                return true;
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "delete()", e);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes every snippet to a file of its own, so that the legacy layout is
+     * up-to-date again.
+     *
+     * @param dir the snippets directory
+     * @return true if all snippets could be written, false otherwise
+     */
+    public synchronized boolean exportTo(File dir) {
+        boolean result = true;
+        for (String name : getNames()) {
+            String text = load(name);
+            if (text == null || !FileHelper.saveFile(new File(dir, name), text)) {
+                result = false;
+            }
+        }
+        return result;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public synchronized void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.throwing(TAG, "close()", e);
+            }
+            channel = null;
+        }
+    }
+
+    /*
+     * Opens the file and reads all complete records. Only the first instance
+     * to open the file (initial is true) creates it or cuts off a torn record
+     * at its end, and only while holding the lock; a record another instance
+     * is still appending looks just like a torn one.
+     */
+    private void openChannel(boolean initial) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            index.clear();
+            liveBytes = 0;
+            deadBytes = 0;
+            boolean ready = false;
+            channel = initial
+                    ? FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)
+                    : FileChannel.open(file.toPath(), StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            try {
+                if (initial) {
+                    FileLock lock = lock();
+                    try {
+                        ready = initialize(attempt == ATTEMPTS);
+                    } finally {
+                        lock.release();
+                    }
+                } else if (readHeader() == HEADER_VALID) {
+                    scan(false);
+                    ready = true;
+                }
+            } finally {
+                if (!ready) {
+                    close();
+                }
+            }
+            if (ready) {
+                return;
+            } else if (!initial) {
+                throw new IOException(String.format("%s is being replaced", file.getAbsolutePath()));
+            }
+            pause();
+        }
+    }
+
+    /*
+     * Called with the lock held. A file that is still retired after all
+     * attempts has been left behind by an interrupted compaction.
+     */
+    private boolean initialize(boolean lastAttempt) throws IOException {
+        switch (readHeader()) {
+            case HEADER_MISSING:
+                generation = newGeneration();
+                channel.truncate(0);
+                writeFully(createHeader(generation), 0);
+                channel.force(true);
+                end = HEADER_LENGTH;
+                return true;
+            case HEADER_RETIRED:
+                if (!lastAttempt) {
+                    return false;
+                }
+                LOGGER.log(Level.WARNING, String.format("%s has not been replaced, using it again",
+                        file.getAbsolutePath()));
+                generation = newGeneration();
+                writeGeneration(generation);
+                break;
+            default:
+                break;
+        }
+        scan(true);
+        return true;
+    }
+
+    private int readHeader() throws IOException {
+        long size = channel.size();
+        ByteBuffer buf = ByteBuffer.allocate((int) Math.min(size, HEADER_LENGTH));
+        readFully(buf, 0);
+        for (int i = 0; i < MAGIC.length && i < buf.limit(); i++) {
+            if (buf.get(i) != MAGIC[i]) {
+                throw new IOException(String.format("%s is not a snippet store", file.getAbsolutePath()));
+            }
+        }
+        if (buf.limit() <= MAGIC.length) {
+            return HEADER_MISSING;
+        }
+        byte version = buf.get(MAGIC.length);
+        if (version != VERSION) {
+            throw new IOException(String.format("%s has unknown version %d", file.getAbsolutePath(), version));
+        }
+        if (buf.limit() < HEADER_LENGTH) {
+            return HEADER_MISSING;
+        }
+        generation = buf.getLong(GENERATION_OFFSET);
+        end = HEADER_LENGTH;
+        return generation == NO_GENERATION ? HEADER_RETIRED : HEADER_VALID;
+    }
+
+    /*
+     * Reads the generation of the file we have opened. Another instance sets
+     * it to 0 before replacing the file, and gives it a new one if it reuses
+     * a file left behind by an interrupted compaction.
+     */
+    private long readGeneration() throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(Long.BYTES);
+        readFully(buf, GENERATION_OFFSET);
+        return buf.getLong(0);
+    }
+
+    /*
+     * Reads the generation of the file currently found under our name. It is
+     * only opened once ours has been retired, to find out whether its
+     * successor is in place.
+     */
+    private long readSuccessorGeneration() {
+        try (FileChannel c = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(HEADER_LENGTH);
+            while (buf.hasRemaining() && c.read(buf) >= 0) {
+                // read until the header is complete or the file ends
+            }
+            if (!buf.hasRemaining() && buf.get(MAGIC.length) == VERSION) {
+                return buf.getLong(GENERATION_OFFSET);
+            }
+        } catch (IOException e) {
+            // for example while a non-atomic move replaces the file
+            LOGGER.log(Level.FINE, "readSuccessorGeneration()", e);
+        }
+        return NO_GENERATION;
+    }
+
+    private void writeGeneration(long value) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(Long.BYTES);
+        buf.putLong(value).flip();
+        writeFully(buf, GENERATION_OFFSET);
+        channel.force(true);
+    }
+
+    private static ByteBuffer createHeader(long generation) {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_LENGTH);
+        buf.put(MAGIC).put(VERSION).putLong(generation);
+        return buf.flip();
+    }
+
+    private static long newGeneration() {
+        long value;
+        do {
+            value = ThreadLocalRandom.current().nextLong();
+        } while (value == NO_GENERATION);
+        return value;
+    }
+
+    private FileLock lock() throws IOException {
+        return channel.lock(LOCK_POSITION, 1, false);
+    }
+
+    private static void pause() throws IOException {
+        try {
+            Thread.sleep(RETRY_DELAY);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    /*
+     * Picks up records appended by another instance, and rereads the file
+     * once another instance has compacted it. While the file is being
+     * replaced the one we have opened is still valid, so it keeps being used.
+     */
+    private void refresh() {
+        try {
+            if (channel == null) {
+                openChannel(false);
+                return;
+            }
+            long current = readGeneration();
+            if (current != generation) {
+                if (current != NO_GENERATION || readSuccessorGeneration() != NO_GENERATION) {
+                    close();
+                    openChannel(false);
+                }
+                return;
+            }
+            long size = channel.size();
+            if (size < end) {
+                close();
+                openChannel(false);
+            } else if (size > end) {
+                scan(false);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "refresh()", e);
+        }
+    }
+
+    /*
+     * Reads records starting at end and stops at the first one that is
+     * incomplete or invalid. It may still be written by another instance, so
+     * it is only cut off if truncate is true.
+     */
+    private void scan(boolean truncate) throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_LENGTH);
+        while (end + RECORD_HEADER_LENGTH <= size) {
+            header.clear();
+            readFully(header, end);
+            header.flip();
+            byte type = header.get();
+            int nameLength = header.getShort() & 0xffff;
+            int dataLength = header.getInt();
+            int crc = header.getInt();
+            long recordLength = RECORD_HEADER_LENGTH + (long) nameLength + dataLength;
+            if ((type != TYPE_PUT && type != TYPE_DELETE) || dataLength < 0
+                    || end + recordLength > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(nameLength + dataLength);
+            readFully(payload, end + RECORD_HEADER_LENGTH);
+            CRC32 crc32 = new CRC32();
+            crc32.update(payload.array());
+            if ((int) crc32.getValue() != crc) {
+                break;
+            }
+            String name = new String(payload.array(), 0, nameLength, StandardCharsets.UTF_8);
+            apply(type, name, end + RECORD_HEADER_LENGTH + nameLength, dataLength, recordLength, crc);
+            end += recordLength;
+        }
+        if (truncate && end < size) {
+            // a torn record at the end of the file, most likely an interrupted write
+            LOGGER.log(Level.WARNING, String.format("discarding %d bytes at the end of %s",
+                    size - end, file.getAbsolutePath()));
+            channel.truncate(end);
+            channel.force(true);
+        }
+    }
+
+    /*
+     * Appends a record while holding the lock. Records of other instances
+     * are read first, so that the new one follows them. Remains of a torn
+     * record are overwritten. If the file has been compacted in the meantime,
+     * its successor is opened.
+     */
+    private void append(byte type, String name, byte[] data) throws IOException {
+        ByteBuffer record = createRecord(type, name, data);
+        for (int attempt = 1; ; attempt++) {
+            if (channel != null) {
+                FileLock lock = lock();
+                try {
+                    if (readGeneration() == generation) {
+                        scan(false);
+                        write(record);
+                        channel.force(false);
+                        return;
+                    }
+                } finally {
+                    lock.release();
+                }
+                close();
+            }
+            if (attempt == ATTEMPTS) {
+                throw new IOException(String.format("%s is being replaced", file.getAbsolutePath()));
+            }
+            if (attempt > 1) {
+                pause();
+            }
+            try {
+                openChannel(false);
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "append()", e);
+            }
+        }
+    }
+
+    private static ByteBuffer createRecord(byte type, String name, byte[] data) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc32 = new CRC32();
+        crc32.update(nameBytes);
+        crc32.update(data);
+        ByteBuffer buf = ByteBuffer.allocate(RECORD_HEADER_LENGTH + nameBytes.length + data.length);
+        buf.put(type);
+        buf.putShort((short) nameBytes.length);
+        buf.putInt(data.length);
+        buf.putInt((int) crc32.getValue());
+        buf.put(nameBytes);
+        buf.put(data);
+        return buf.flip();
+    }
+
+    /*
+     * Writes a record at the end of the file and adds it to the index. Called
+     * with the lock held.
+     */
+    private void write(ByteBuffer record) throws IOException {
+        writeFully(record, end);
+        byte type = record.get(0);
+        int nameLength = record.getShort(1) & 0xffff;
+        String name = new String(record.array(), RECORD_HEADER_LENGTH, nameLength, StandardCharsets.UTF_8);
+        apply(type, name, end + RECORD_HEADER_LENGTH + nameLength, record.getInt(3), record.limit(),
+                record.getInt(7));
+        end += record.limit();
+    }
+
+    private void apply(byte type, String name, long offset, int length, long recordLength, int crc) {
+        Location previous = index.remove(name);
+        if (previous != null) {
+            liveBytes -= previous.recordLength;
+            deadBytes += previous.recordLength;
+        }
+        if (type == TYPE_PUT) {
+            index.put(name, new Location(offset, length, recordLength, crc));
+            liveBytes += recordLength;
+        } else {
+            deadBytes += recordLength;
+        }
+    }
+
+    /*
+     * Appends all snippet files while holding the lock, and forces the file
+     * to disk once at the end.
+     */
+    private void importLegacyFiles(File dir) throws IOException {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        int count = 0;
+        FileLock lock = lock();
+        try {
+            if (readGeneration() != generation) {
+                throw new IOException(String.format("%s is being replaced", file.getAbsolutePath()));
+            }
+            scan(false);
+            for (File current : files) {
+                if (FileHelper.isSnippetFile(current)) {
+                    String text = FileHelper.loadFile(current);
+                    if (text != null) {
+                        write(createRecord(TYPE_PUT, current.getName(), text.getBytes(StandardCharsets.UTF_8)));
+                        count += 1;
+                    }
+                }
+            }
+            channel.force(false);
+        } finally {
+            lock.release();
+        }
+        LOGGER.log(Level.INFO, String.format("imported %d snippets into %s",
+                count, file.getAbsolutePath()));
+    }
+
+    /*
+     * Copies all live records to a new segment file which then replaces the
+     * current one. Failures are only logged, as no data has been lost.
+     */
+    private void compactIfNeeded() {
+        if (channel == null || deadBytes < COMPACTION_THRESHOLD || deadBytes < liveBytes) {
+            return;
+        }
+        try {
+            compact();
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "compactIfNeeded()", e);
+        }
+        if (channel == null) {
+            try {
+                openChannel(false);
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "compactIfNeeded()", e);
+            }
+        }
+    }
+
+    private void compact() throws IOException {
+        File temp = new File(file.getParentFile(), file.getName() + ".compact");
+        long previous = generation;
+        FileLock lock = lock();
+        try {
+            if (readGeneration() != generation) {
+                // another instance is compacting, or has done so
+                return;
+            }
+            scan(false);
+            try (FileChannel out = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                out.write(createHeader(newGeneration()));
+                for (Location l : index.values()) {
+                    long start = l.offset + l.length - l.recordLength;
+                    long pos = start;
+                    long stop = start + l.recordLength;
+                    while (pos < stop) {
+                        pos += channel.transferTo(pos, stop - pos, out);
+                    }
+                }
+                out.force(true);
+            }
+            writeGeneration(NO_GENERATION);
+        } finally {
+            lock.release();
+        }
+        close();
+        try {
+            FileHelper.replace(temp.toPath(), file.toPath());
+        } catch (IOException e) {
+            Files.deleteIfExists(temp.toPath());
+            restoreGeneration(previous);
+            throw e;
+        }
+        openChannel(false);
+        LOGGER.log(Level.INFO, String.format("compacted %s to %d bytes", file.getAbsolutePath(), end));
+    }
+
+    private void restoreGeneration(long previous) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            FileLock lock = lock();
+            try {
+                if (readHeader() == HEADER_RETIRED) {
+                    writeGeneration(previous);
+                }
+            } finally {
+                lock.release();
+            }
+        } finally {
+            close();
+        }
+    }
+
+    private void writeFully(ByteBuffer buf, long position) throws IOException {
+        buf.rewind();
+        while (buf.hasRemaining()) {
+            channel.write(buf, position + buf.position());
+        }
+    }
+
+    private void readFully(ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int read = channel.read(buf, position + buf.position());
+            if (read < 0) {
+                throw new IOException(String.format("unexpected end of %s", file.getAbsolutePath()));
+            }
+        }
+    }
+
+    private static class Location {
+
+        final long offset;
+        final int length;
+        final long recordLength;
+        final int crc;
+
+        Location(long offset, int length, long recordLength, int crc) {
+            this.offset = offset;
+            this.length = length;
+            this.recordLength = recordLength;
+            this.crc = crc;
+        }
+
+        long getStamp() {
+            return crc & 0xffffffffL;
+        }
+    }
+}
@@ -20,272 +20,458 @@
  */
 package com.thomaskuenneth.clip4moni;
 
-import javax.swing.text.BadLocationException;
-import javax.swing.text.Document;
-import javax.swing.text.html.HTMLEditorKit;
-import javax.swing.text.rtf.RTFEditorKit;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 import java.awt.Menu;
 import java.awt.event.ActionListener;
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
-import java.io.StringReader;
-import java.util.UUID;
-import java.util.function.Function;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 public class PluginManager {
 
     private static final String CLASSNAME = PluginManager.class.getName();
     private static final Logger LOGGER = Logger.getLogger(CLASSNAME);
 
-    private static final String PAR = "##PA_R##";
-    private static final String LINE = "##LINE_##";
-
-    private static final String MI_STRIP_NUMBERS = Messages.getString("MI_STRIP_NUMBERS");
-    private static final String MI_REMOVE_BLANKS = Messages.getString("MI_REMOVE_BLANKS");
-    private static final String MI_REMOVE_SEMIVOWELS = Messages
-            .getString("MI_REMOVE_SEMIVOWELS");
-    private static final String MI_TAB_TO_SPACE = Messages.getString("MI_TAB_TO_SPACE");
-    private static final String MI_UPPERCASE = Messages.getString("MI_UPPERCASE");
-    private static final String MI_REMOVE_CRLF = Messages.getString("MI_REMOVE_CRLF");
-    private static final String MI_REMOVE_SPECIALS = Messages.getString("MI_REMOVE_SPECIALS");
-    private static final String MI_SHOW_CONTENTS = Messages.getString("MI_SHOW_CONTENTS");
-    private static final String MI_HTML_TO_RTF = Messages.getString("MI_HTML_TO_RTF");
-    private static final String MI_QUOTE = Messages.getString("MI_QUOTE");
-    private static final String MI_REPLACE = Messages.getString("MI_REPLACE");
-    private static final String MI_CREATE_UUID = Messages.getString("MI_CREATE_UUID");
-
-    private static final String[] PLUGINS = new String[]{MI_SHOW_CONTENTS,
-            MI_REPLACE, MI_REMOVE_BLANKS,
-            MI_REMOVE_SEMIVOWELS, MI_TAB_TO_SPACE, MI_UPPERCASE,
-            MI_REMOVE_CRLF, MI_REMOVE_SPECIALS, MI_STRIP_NUMBERS,
-            MI_HTML_TO_RTF, MI_QUOTE, MI_CREATE_UUID};
+    private static final String SERVICES = "META-INF/services/" + TransformProvider.class.getName();
 
+    private static final Map<String, Plugin> PLUGINS = new ConcurrentHashMap<>();
+    private static final List<Plugin> BUILTIN = new ArrayList<>();
+
+    private static volatile List<Plugin> external = List.of();
+    private static volatile List<Plugin> chains = List.of();
+    private static volatile List<String> chainProblems = List.of();
+    private static boolean externalLoaded = false;
+    private static URL[] externalJars = new URL[0];
+    private static ClassLoader externalLoader;
+
+    static {
+        // the built-in plugins are providers like those in jars, but their
+        // label and group are keys of Messages
+        try {
+            ServiceLoader.load(TransformProvider.class, PluginManager.class.getClassLoader())
+                    .stream().forEach(provider -> {
+                        TransformInfo info = provider.type().getAnnotation(TransformInfo.class);
+                        if (info == null) {
+                            LOGGER.log(Level.WARNING, "{0} is not annotated with @TransformInfo",
+                                    provider.type().getName());
+                        } else {
+                            String group = info.group().isEmpty() ? null : Messages.getString(info.group());
+                            Plugin p = new Plugin(info.id(), Messages.getString(info.label()),
+                                    group, provider::get);
+                            PLUGINS.put(p.getId(), p);
+                            BUILTIN.add(p);
+                        }
+                    });
+        } catch (ServiceConfigurationError e) {
+            LOGGER.log(Level.SEVERE, "PluginManager", e);
+        }
+    }
+
+    /**
+     * Adds the plugins to a menu. The action command of each item is the id
+     * of its plugin.
+     *
+     * @param pm the menu
+     * @param al receives the actions
+     */
     public static void populateMenu(Menu pm, ActionListener al) {
-        for (String piName : PLUGINS) {
-            UIHelper.createMenuItem(piName, pm, al, null);
-            if (pm.getItemCount() == 2) {
+        addItems(pm, al, BUILTIN, true);
+        List<Plugin> l = external;
+        if (!l.isEmpty()) {
+            pm.addSeparator();
+            addItems(pm, al, l, false);
+        }
+        l = chains;
+        if (!l.isEmpty()) {
+            pm.addSeparator();
+            addItems(pm, al, l, false);
+        }
+    }
+
+    /*
+     * Plugins of a group are put in a submenu where the first of them
+     * appears.
+     */
+    private static void addItems(Menu pm, ActionListener al, List<Plugin> plugins,
+                                 boolean builtin) {
+        Map<String, Menu> groups = new HashMap<>();
+        for (Plugin p : plugins) {
+            Menu m = pm;
+            if (p.getGroup() != null) {
+                m = groups.get(p.getGroup());
+                if (m == null) {
+                    m = UIHelper.createMenu(p.getGroup());
+                    pm.add(m);
+                    groups.put(p.getGroup(), m);
+                }
+            }
+            UIHelper.createMenuItem(p.getLabel(), m, al, p.getId());
+            if (builtin && pm.getItemCount() == 2) {
                 pm.addSeparator();
             }
         }
     }
 
-    public static String callPlugin(String cmd, String in) {
-        if (cmd.equalsIgnoreCase(MI_STRIP_NUMBERS)) {
-            return processData(PluginManager::stripNumbers, in);
-        } else if (cmd.equalsIgnoreCase(MI_REMOVE_BLANKS)) {
-            return removeBlanks(in);
-        } else if (cmd.equalsIgnoreCase(MI_REMOVE_SEMIVOWELS)) {
-            return processData(PluginManager::removeSemivowels, in);
-        } else if (cmd.equalsIgnoreCase(MI_TAB_TO_SPACE)) {
-            return processData(PluginManager::convertTabToSpace, in);
-        } else if (cmd.equalsIgnoreCase(MI_UPPERCASE)) {
-            return toUpperCase(in);
-        } else if (cmd.equalsIgnoreCase(MI_HTML_TO_RTF)) {
-            return html2Rtf(in);
-        } else if (cmd.equalsIgnoreCase(MI_REMOVE_CRLF)) {
-            return processData(PluginManager::removeCrLf, in, false);
-        } else if (cmd.equalsIgnoreCase(MI_REMOVE_SPECIALS)) {
-            return processData(PluginManager::removeSpecials, in, false);
-        } else if (cmd.equalsIgnoreCase(MI_SHOW_CONTENTS)) {
-            new ShowContentsDialog(in).showDialog();
-            return in;
-        } else if (cmd.equalsIgnoreCase(MI_REPLACE)) {
-            ReplaceDialog d = new ReplaceDialog(in);
-            d.showDialog();
-            return d.getContents();
-        } else if (cmd.equalsIgnoreCase(MI_QUOTE)) {
-            return quote(in);
-        } else if (cmd.equalsIgnoreCase(MI_CREATE_UUID)) {
-            return createRandomUUID();
+    /**
+     * (Re)reads the transform chains (see {@link TransformChain}). Chains
+     * that cannot be used are left out; {@link #getChainProblems()} tells
+     * why.
+     *
+     * @return {@code true} if there were or are chains
+     */
+    public static synchronized boolean loadChains() {
+        List<Plugin> old = chains;
+        old.forEach(p -> PLUGINS.remove(p.getId()));
+        File f = Helper.getFileChains();
+        String data = f.isFile() ? FileHelper.loadFile(f) : null;
+        List<String> problems = new ArrayList<>();
+        List<Plugin> l = new ArrayList<>();
+        for (TransformChain chain : checkChains(data != null ? data : StringUtils.EMPTY, problems)) {
+            Plugin p = new Plugin(chain.getId(), chain.getName(), null, () -> chain);
+            PLUGINS.put(p.getId(), p);
+            l.add(p);
         }
-        return null;
+        chains = List.copyOf(l);
+        chainProblems = List.copyOf(problems);
+        return !(old.isEmpty() && l.isEmpty());
     }
 
-    private static String createRandomUUID() {
-        UUID uuid = UUID.randomUUID();
-        return uuid.toString();
+    /**
+     * Gets the reasons why chains have been left out by the last call of
+     * {@link #loadChains()}.
+     *
+     * @return one message per malformed line, unknown id or duplicate name
+     */
+    public static List<String> getChainProblems() {
+        return chainProblems;
     }
 
-    public static String quote(String in) {
-        StringBuilder result = new StringBuilder();
-        StringBuilder line = new StringBuilder();
-        String[] words = in.split("\\s+");
-        for (String w : words) {
-            if ((line.length() + w.length()) >= 40) {
-                result.append(line);
-                result.append("\n");
-                line.setLength(0);
-            }
-            if (line.length() == 0) {
-                line.append("> ");
+    /**
+     * Parses chains and checks that they refer to existing plugins only.
+     *
+     * @param data     the chains (see {@link TransformChain})
+     * @param problems receives a message for each chain that cannot be used
+     * @return the usable chains
+     */
+    public static List<TransformChain> checkChains(String data, List<String> problems) {
+        List<String> invalid = new ArrayList<>();
+        List<TransformChain> parsed = TransformChain.parse(data, invalid);
+        invalid.forEach(line -> problems.add(MessageFormat.format(
+                Messages.getString("STR_CHAIN_INVALID"), line)));
+        List<TransformChain> l = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (TransformChain chain : parsed) {
+            String unknown = chain.getIds().stream()
+                    .filter(id -> !PLUGINS.containsKey(id))
+                    .collect(Collectors.joining(", "));
+            if (!unknown.isEmpty()) {
+                LOGGER.log(Level.WARNING, "chain {0}: unknown plugins {1}",
+                        new Object[]{chain.getName(), unknown});
+                problems.add(MessageFormat.format(Messages.getString("STR_CHAIN_UNKNOWN_ID"),
+                        chain.getName(), unknown));
+            } else if (!names.add(chain.getName())) {
+                problems.add(MessageFormat.format(Messages.getString("STR_CHAIN_DUPLICATE"),
+                        chain.getName()));
             } else {
-                line.append(" ");
+                l.add(chain);
             }
-            line.append(w);
         }
-        if (line.length() > 0) {
-            result.append(line);
+        return l;
+    }
+
+    /**
+     * Gets the plugins that may be part of a chain, in menu order.
+     *
+     * @return built-in plugins and plugins from jars
+     */
+    static List<Plugin> getChainablePlugins() {
+        List<Plugin> l = new ArrayList<>(BUILTIN);
+        l.addAll(external);
+        return l;
+    }
+
+    /**
+     * Looks for plugin jars in the plugins directory. Only their service
+     * files and the annotations of the listed classes are read; the classes
+     * are loaded and instantiated when a plugin is used for the first time.
+     * A jar that cannot be read is skipped. This is done only once; should
+     * be called off the EDT.
+     *
+     * @return {@code true} if plugins have been found
+     */
+    public static synchronized boolean loadExternalPlugins() {
+        if (externalLoaded) {
+            return false;
+        }
+        externalLoaded = true;
+        File[] jars = Helper.getPluginsDir().listFiles((dir, name) ->
+                name.toLowerCase().endsWith(".jar"));
+        if (jars == null || jars.length == 0) {
+            return false;
+        }
+        Arrays.sort(jars);
+        List<URL> urls = new ArrayList<>();
+        List<Plugin> found = new ArrayList<>();
+        for (File jar : jars) {
+            try (JarFile jf = new JarFile(jar)) {
+                urls.add(jar.toURI().toURL());
+                JarEntry services = jf.getJarEntry(SERVICES);
+                if (services == null) {
+                    LOGGER.log(Level.WARNING, "{0} contains no plugins", jar);
+                    continue;
+                }
+                for (String className : readProviderNames(jf, services)) {
+                    Plugin p = readPlugin(jf, className);
+                    if (p != null) {
+                        PLUGINS.put(p.getId(), p);
+                        found.add(p);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "skipping " + jar, e);
+            }
         }
-        return result.toString().trim();
+        externalJars = urls.toArray(new URL[0]);
+        LOGGER.log(Level.INFO, "{0} plugins found in {1} jars",
+                new Object[]{found.size(), jars.length});
+        external = List.copyOf(found);
+        return !found.isEmpty();
     }
 
-    public static String html2Rtf(String html) {
-        InputStream is;
-        OutputStream os;
-        // need to replace a few things
-        html = html.replaceAll("<br.*?>", LINE);
-        html = html.replaceAll("</p>", PAR);
-        html = html.replaceAll("<p.*?>", StringUtils.EMPTY);
-        html = html.replaceAll("\n", StringUtils.EMPTY);
-        html = html.replaceAll("<strong.*?>", "<b>");
-        html = html.replaceAll("</strong>", "</b>");
-        html = html.replaceAll("<em.*?>", "<i>");
-        html = html.replaceAll("</em>", "</i>");
-        try {
-            is = new ByteArrayInputStream(html.getBytes());
-            os = new ByteArrayOutputStream();
-            RTFEditorKit editorKitRtf = new RTFEditorKit();
-            HTMLEditorKit editorKitHtml = new HTMLEditorKit();
-            Document doc = editorKitHtml.createDefaultDocument();
-            editorKitHtml.read(is, doc, 0);
-            editorKitRtf.write(os, doc, 0, doc.getLength());
-            is.close();
-            os.close();
-            // need to replace a few things
-            String result = os.toString();
-            result = result.replaceAll(LINE, "\\\\line ");
-            result = result.replaceAll(PAR, "\\\\par ");
-            return result;
-        } catch (IOException | BadLocationException e) {
-            LOGGER.log(Level.SEVERE, "html2Rtf()", e);
+    /*
+     * One class name per line; # starts a comment.
+     */
+    private static List<String> readProviderNames(JarFile jf, JarEntry services) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(
+                jf.getInputStream(services), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                int pos = line.indexOf('#');
+                String name = (pos >= 0 ? line.substring(0, pos) : line).trim();
+                if (!name.isEmpty() && !names.contains(name)) {
+                    names.add(name);
+                }
+            }
         }
-        return null;
+        return names;
     }
 
-    public static String convertTabToSpace(String line) {
-        return line.replaceAll("\t", "  ");
+    private static Plugin readPlugin(JarFile jf, String className) throws IOException {
+        JarEntry entry = jf.getJarEntry(className.replace('.', '/') + ".class");
+        Map<String, String> info = null;
+        if (entry != null) {
+            try (InputStream in = jf.getInputStream(entry)) {
+                info = TransformInfoReader.read(in);
+            }
+        }
+        if (info == null || !info.containsKey("id") || !info.containsKey("label")) {
+            LOGGER.log(Level.WARNING, "{0} is not annotated with @TransformInfo", className);
+            return null;
+        }
+        String id = info.get("id");
+        if (PLUGINS.containsKey(id)) {
+            LOGGER.log(Level.WARNING, "{0}: id {1} already in use", new Object[]{className, id});
+            return null;
+        }
+        String group = info.getOrDefault("group", "");
+        return new Plugin(id, info.get("label"), group.isEmpty() ? null : group,
+                () -> instantiate(className));
     }
 
-    public static String removeSemivowels(String line) {
-        char[] src = {'\u00e4', '\u00c4', '\u00f6', '\u00d6', '\u00fc',
-                '\u00dc', '\u00df'};
-        String[] dst = {"ae", "Ae", "oe", "Oe", "ue", "Ue", "ss"};
-        int len = line.length();
-        int pos = 0;
-        char[] result = new char[2 * len];
-        for (int i = 0; i < len; i++) {
-            char ch = line.charAt(i);
-            boolean found = false;
-            for (int j = 0; j < src.length; j++) {
-                if (ch == src[j]) {
-                    result[pos++] = dst[j].charAt(0);
-                    result[pos++] = dst[j].charAt(1);
-                    found = true;
-                    break;
+    /*
+     * All jars share one class loader, so plugins may use classes of other jars.
+     */
+    private static TransformProvider instantiate(String className) {
+        try {
+            ClassLoader loader;
+            synchronized (PluginManager.class) {
+                if (externalLoader == null) {
+                    externalLoader = new URLClassLoader(externalJars,
+                            PluginManager.class.getClassLoader());
                 }
+                loader = externalLoader;
             }
-            if (!found) {
-                result[pos++] = ch;
-            }
+            return Class.forName(className, true, loader).asSubclass(TransformProvider.class)
+                    .getConstructor().newInstance();
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            throw new ServiceConfigurationError(TransformProvider.class.getName() + ": "
+                    + className + " cannot be instantiated", e);
         }
-        return new String(result, 0, pos);
     }
 
-    public static String removeBlanks(String line) {
-        int pos = 0;
-        int len = line.length();
-        char[] chars = new char[len];
-        for (int i = 0; i < len; i++) {
-            char ch = line.charAt(i);
-            if (ch != ' ') {
-                chars[pos++] = ch;
+    private static TransformProvider getProvider(String id) {
+        Plugin p = PLUGINS.get(id);
+        if (p != null) {
+            try {
+                return p.getProvider();
+            } catch (ServiceConfigurationError e) {
+                LOGGER.log(Level.SEVERE, "getProvider()", e);
             }
         }
-        return new String(chars, 0, pos);
+        return null;
+    }
+
+    /**
+     * Gets the streaming transform of a plugin.
+     *
+     * @param id the id of the plugin
+     * @return the transform or {@code null} if the plugin does not stream
+     */
+    public static TextTransform getTransform(String id) {
+        TransformProvider p = getProvider(id);
+        return p != null ? p.getTextTransform() : null;
     }
 
-    public static String removeCrLf(String line) {
-        int len = line.length();
-        char[] chars = new char[len];
-        line.getChars(0, len, chars, 0);
-        int pos = 0;
-        for (int i = 0; i < len; i++) {
-            char ch = chars[i];
-            chars[pos] = ch;
-            if ((ch != '\n') && (ch != '\r')) {
-                pos++;
+    /**
+     * Invokes a plugin, streaming the input if the plugin supports it. If the
+     * plugin fails, the user is told so.
+     *
+     * @param id the id of the plugin
+     * @param in the input; not closed
+     * @return the result or {@code null}
+     * @throws IOException if the input cannot be read
+     */
+    public static String callPlugin(String id, Reader in) throws IOException {
+        TextTransform t = getTransform(id);
+        if (t != null) {
+            StringWriter out = new StringWriter();
+            try {
+                t.transform(in, out);
+                return out.toString();
+            } catch (RuntimeException e) {
+                failed(id, e);
+                return null;
             }
         }
-        return new String(chars, 0, pos);
+        StringWriter all = new StringWriter();
+        in.transferTo(all);
+        return callPlugin(id, all.toString());
     }
 
-    public static String stripNumbers(String line) {
-        for (int i = 0; i < line.length(); i++) {
-            if (Character.isLetter(line.charAt(i))) {
-                line = line.substring(i);
-                break;
+    /**
+     * Invokes a plugin. If it fails (for example because the input cannot be
+     * decoded), the user is told so.
+     *
+     * @param id the id of the plugin
+     * @param in the input
+     * @return the result or {@code null} if the plugin does not exist, has
+     * failed or has been cancelled
+     */
+    public static String callPlugin(String id, String in) {
+        TransformProvider p = getProvider(id);
+        if (p != null) {
+            try {
+                return p.transform(in);
+            } catch (RuntimeException e) {
+                failed(id, e);
             }
         }
-        return line;
+        return null;
+    }
+
+    private static void failed(String id, RuntimeException e) {
+        LOGGER.log(Level.SEVERE, "callPlugin(" + id + ")", e);
+        Plugin p = PLUGINS.get(id);
+        String reason = e.getLocalizedMessage() != null ? e.getLocalizedMessage() : e.toString();
+        String message = MessageFormat.format(Messages.getString("STR_PLUGIN_FAILED"),
+                p != null ? p.getLabel() : id, reason);
+        Runnable r = () -> JOptionPane.showMessageDialog(null, message, Helper.PROGNAME,
+                JOptionPane.ERROR_MESSAGE);
+        if (SwingUtilities.isEventDispatchThread()) {
+            r.run();
+        } else {
+            SwingUtilities.invokeLater(r);
+        }
+    }
+
+    /**
+     * Quotes text (see {@link Reflow#quote()}).
+     *
+     * @param in the text
+     * @return the quoted text
+     */
+    public static String quote(String in) {
+        return Reflow.quote().apply(in);
+    }
+
+    public static String html2Rtf(String html) {
+        return new HtmlToRtf().apply(html);
     }
 
     public static String toUpperCase(String in) {
         return in.toUpperCase();
     }
 
-    public static String removeSpecials(String line) {
-        line = removeSemivowels(line);
-        line = removeCrLf(line);
-        int len = line.length();
-        char[] chars = new char[len];
-        line.getChars(0, len, chars, 0);
-        int pos = 0;
-        for (int i = 0; i < len; i++) {
-            char ch = chars[i];
-            if (Character.isDigit(ch) || (' ' == ch) || Character.isLetter(ch)
-                    || ('.' == ch) || ('-' == ch)) {
-                chars[pos++] = chars[i];
-            }
+    static final class Plugin {
+
+        private final String id;
+        private final String label;
+        private final String group;
+        private final Supplier<TransformProvider> factory;
+        private volatile TransformProvider provider;
+
+        Plugin(String id, String label, String group, Supplier<TransformProvider> factory) {
+            this.id = id;
+            this.label = label;
+            this.group = group;
+            this.factory = factory;
         }
-        return new String(chars, 0, pos);
-    }
 
-    private static String processData(
-            Function<String, String> method,
-            String in) {
-        return processData(method, in, true);
-    }
+        String getId() {
+            return id;
+        }
 
-    private static String processData(
-            Function<String, String> method,
-            String in,
-            boolean addEmptyLines) {
-        StringBuilder sb = new StringBuilder();
-        try (
-                var sr = new StringReader(in);
-                var br = new BufferedReader(sr)
-        ) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                line = method.apply(line);
-                if (line == null) continue;
-                if (!addEmptyLines && (line.length() == 0)) {
-                    continue;
-                }
-                if (sb.length() > 0) {
-                    sb.append('\n');
+        String getLabel() {
+            return label;
+        }
+
+        /**
+         * Gets the label of the submenu the plugin is shown in.
+         *
+         * @return the label or {@code null} if the plugin is not grouped
+         */
+        String getGroup() {
+            return group;
+        }
+
+        TransformProvider getProvider() {
+            TransformProvider p = provider;
+            if (p == null) {
+                synchronized (this) {
+                    p = provider;
+                    if (p == null) {
+                        p = factory.get();
+                        provider = p;
+                    }
                 }
-                sb.append(line);
             }
-        } catch (IOException e) {
-            LOGGER.throwing(CLASSNAME, "processData", e);
+            return p;
         }
-        return sb.toString();
     }
 }
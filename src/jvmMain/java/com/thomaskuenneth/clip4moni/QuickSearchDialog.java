@@ -0,0 +1,231 @@
+/*
+ * QuickSearchDialog.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import javax.swing.BorderFactory;
+import javax.swing.DefaultListModel;
+import javax.swing.JCheckBox;
+import javax.swing.JList;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.AncestorEvent;
+import javax.swing.event.AncestorListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.BorderLayout;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This dialog finds entries while the user types. The selected entry is
+ * returned if the dialog is closed with OK (or Enter, or a double click).
+ * Searches run in the background once the user has stopped typing for a
+ * moment, as searching contents reads from the content index.
+ *
+ * @author Thomas Kuenneth
+ */
+public class QuickSearchDialog extends AbstractDialog {
+
+    private static final String TAG = QuickSearchDialog.class.getName();
+    private static final Logger LOGGER = Logger.getLogger(TAG);
+
+    private static final int MAX_RESULTS = 100;
+    private static final int SEARCH_DELAY = 150;
+
+    private final SnippetFinder finder;
+    private final JTextField textfieldQuery;
+    private final JCheckBox checkboxContents;
+    private final DefaultListModel<Entry> results;
+    private final JList<Entry> list;
+    private final Timer timer;
+
+    private SwingWorker<List<Entry>, Void> worker;
+
+    public QuickSearchDialog(SnippetFinder finder) {
+        this.finder = finder;
+        textfieldQuery = new JTextField();
+        checkboxContents = new JCheckBox(Messages.getString("CHECKBOX_SEARCH_CONTENTS"));
+        results = new DefaultListModel<>();
+        list = new JList<>(results);
+        timer = new Timer(SEARCH_DELAY, e -> search());
+        timer.setRepeats(false);
+        init();
+    }
+
+    private void init() {
+        textfieldQuery.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                scheduleSearch();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                scheduleSearch();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                scheduleSearch();
+            }
+        });
+        // cursor keys move the selection while the focus stays in the text field
+        textfieldQuery.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                int index = list.getSelectedIndex();
+                if (e.getKeyCode() == KeyEvent.VK_DOWN && index < results.size() - 1) {
+                    select(index + 1);
+                    e.consume();
+                } else if (e.getKeyCode() == KeyEvent.VK_UP && index > 0) {
+                    select(index - 1);
+                    e.consume();
+                }
+            }
+        });
+        textfieldQuery.addAncestorListener(new AncestorListener() {
+            @Override
+            public void ancestorAdded(AncestorEvent event) {
+                textfieldQuery.requestFocusInWindow();
+            }
+
+            @Override
+            public void ancestorRemoved(AncestorEvent event) {
+            }
+
+            @Override
+            public void ancestorMoved(AncestorEvent event) {
+            }
+        });
+        checkboxContents.addItemListener(e -> scheduleSearch());
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2 && list.getSelectedValue() != null) {
+                    JOptionPane pane = (JOptionPane) SwingUtilities.getAncestorOfClass(JOptionPane.class, list);
+                    if (pane != null) {
+                        pane.setValue(JOptionPane.OK_OPTION);
+                    }
+                }
+            }
+        });
+        JPanel panelQuery = new JPanel(new BorderLayout());
+        panelQuery.setBorder(BorderFactory.createEmptyBorder(0, 0, 10, 0));
+        panelQuery.add(textfieldQuery, BorderLayout.CENTER);
+        panelQuery.add(checkboxContents, BorderLayout.SOUTH);
+        JScrollPane sp = new JScrollPane(list);
+        sp.setPreferredSize(UIHelper.PREFERRED_SIZE);
+        add(panelQuery, BorderLayout.NORTH);
+        add(sp, BorderLayout.CENTER);
+    }
+
+    @Override
+    public int showDialog() {
+        int option = super.showDialog();
+        boolean pending = timer.isRunning() || (worker != null && !worker.isDone());
+        timer.stop();
+        if (worker != null) {
+            worker.cancel(false);
+        }
+        // the user has pressed Enter before the results were shown
+        if (option == JOptionPane.OK_OPTION && pending) {
+            showResults(finder.search(textfieldQuery.getText(), checkboxContents.isSelected(),
+                    MAX_RESULTS));
+        }
+        return option;
+    }
+
+    /**
+     * Gets the selected entry.
+     *
+     * @return the entry or {@code null}
+     */
+    public Entry getSelectedEntry() {
+        return list.getSelectedValue();
+    }
+
+    @Override
+    public String getTitle() {
+        return Messages.getString("TITLE_QUICKSEARCH");
+    }
+
+    @Override
+    public int getOption() {
+        return JOptionPane.OK_CANCEL_OPTION;
+    }
+
+    private void scheduleSearch() {
+        timer.restart();
+    }
+
+    private void search() {
+        if (worker != null) {
+            worker.cancel(false);
+        }
+        String query = textfieldQuery.getText();
+        boolean contents = checkboxContents.isSelected();
+        worker = new SwingWorker<>() {
+            @Override
+            protected List<Entry> doInBackground() {
+                return finder.search(query, contents, MAX_RESULTS);
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    showResults(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    LOGGER.log(Level.SEVERE, "search()", e);
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    private void showResults(List<Entry> found) {
+        results.clear();
+        results.addAll(found);
+        if (!found.isEmpty()) {
+            select(0);
+        }
+    }
+
+    private void select(int index) {
+        list.setSelectedIndex(index);
+        list.ensureIndexIsVisible(index);
+    }
+}
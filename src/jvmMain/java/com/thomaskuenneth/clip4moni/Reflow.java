@@ -0,0 +1,309 @@
+/*
+ * Reflow.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * This transform rewraps text so that lines, including a prefix, are at
+ * most a given number of characters long. Words are separated by
+ * whitespace; a word longer than a line gets a line of its own. The output
+ * lines are joined with '\n'.
+ * <p>
+ * Paragraphs (separated by lines without words) are kept if {@code
+ * paragraphs} is set; otherwise all words are joined. If {@code requote} is
+ * set, leading '&gt;' markers of already quoted text are recognized: lines
+ * with different markers are never joined, and the marker is kept after the
+ * prefix. Lines are filled greedily unless {@code balanced} is set. Then
+ * each paragraph is broken so that the sum of the squared free space at the
+ * end of its lines (except the last one) is minimal, which gives a less
+ * ragged margin.
+ * <p>
+ * The input is read once. Greedy filling writes each word as soon as it is
+ * complete; balanced filling holds back one paragraph at a time.
+ *
+ * @author Thomas Kuenneth
+ */
+public class Reflow implements FusableTransform {
+
+    private final int width;
+    private final String prefix;
+    private final boolean paragraphs;
+    private final boolean requote;
+    private final boolean balanced;
+
+    private Reflow(Builder builder) {
+        width = builder.width;
+        prefix = builder.prefix;
+        paragraphs = builder.paragraphs;
+        requote = builder.requote;
+        balanced = builder.balanced;
+    }
+
+    /**
+     * Quotes text like an email reply: lines of at most 40 characters
+     * starting with "&gt; ", filled greedily.
+     *
+     * @return the transform
+     */
+    public static Reflow quote() {
+        return new Builder()
+                .width(40)
+                .prefix("> ")
+                .requote(true)
+                .build();
+    }
+
+    @Override
+    public TransformWriter open(Writer out) {
+        return new ReflowWriter(out);
+    }
+
+    private class ReflowWriter extends TransformWriter {
+
+        private final StringBuilder word = new StringBuilder();
+        // the '>' markers (and blanks between them) at the start of the current line
+        private final StringBuilder marker = new StringBuilder();
+        // lines without words that may still have to be written
+        private final StringBuilder emptyLines = new StringBuilder();
+
+        private boolean skipLF;
+        // no word has been found in the current line yet
+        private boolean lineStart = true;
+        private boolean outputEmpty = true;
+        // marker of the current paragraph, null if there is none
+        private String paragraphMarker;
+        private String linePrefix;
+        // length of the current output line, 0 if none has been started
+        private int lineLength;
+
+        // balanced: words of the current paragraph and the index after each one
+        private final StringBuilder words = new StringBuilder();
+        private int[] ends = new int[64];
+        private int count;
+
+        ReflowWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                char ch = cbuf[i];
+                if (skipLF) {
+                    skipLF = false;
+                    if (ch == '\n') {
+                        continue;
+                    }
+                }
+                if (ch == '\n' || ch == '\r') {
+                    endLine();
+                    skipLF = ch == '\r';
+                } else if (Character.isWhitespace(ch)) {
+                    if (lineStart) {
+                        if (marker.length() > 0) {
+                            marker.append(ch);
+                        }
+                    } else {
+                        endWord();
+                    }
+                } else if (lineStart && requote && ch == '>') {
+                    marker.append(ch);
+                } else {
+                    if (lineStart) {
+                        startLine();
+                    }
+                    word.append(ch);
+                }
+            }
+        }
+
+        @Override
+        protected void endOfInput() throws IOException {
+            endWord();
+            if (paragraphMarker != null) {
+                endParagraph();
+            }
+        }
+
+        /*
+         * Invoked for the first word of a line.
+         */
+        private void startLine() throws IOException {
+            lineStart = false;
+            String m = marker.toString().stripTrailing();
+            marker.setLength(0);
+            if (paragraphMarker != null && !paragraphMarker.equals(m)) {
+                endParagraph();
+            }
+            if (paragraphMarker == null) {
+                if (!outputEmpty) {
+                    out.append(emptyLines);
+                }
+                emptyLines.setLength(0);
+                paragraphMarker = m;
+                linePrefix = m.isEmpty() ? prefix : prefix + m + " ";
+            }
+        }
+
+        private void endLine() throws IOException {
+            if (!lineStart) {
+                endWord();
+            } else if (paragraphs) {
+                // a line without words ends the paragraph
+                String m = marker.toString().stripTrailing();
+                if (paragraphMarker != null) {
+                    endParagraph();
+                }
+                emptyLines.append('\n').append((prefix + m).stripTrailing());
+            }
+            marker.setLength(0);
+            lineStart = true;
+        }
+
+        private void endWord() throws IOException {
+            if (word.length() == 0) {
+                return;
+            }
+            if (balanced) {
+                words.append(word);
+                if (count == ends.length) {
+                    ends = Arrays.copyOf(ends, count * 2);
+                }
+                ends[count++] = words.length();
+            } else if (lineLength > 0 && lineLength + 1 + word.length() <= width) {
+                out.write(' ');
+                out.append(word);
+                lineLength += 1 + word.length();
+            } else {
+                startOutputLine();
+                out.append(word);
+                lineLength = linePrefix.length() + word.length();
+            }
+            word.setLength(0);
+        }
+
+        private void endParagraph() throws IOException {
+            if (balanced && count > 0) {
+                writeBalanced();
+            }
+            paragraphMarker = null;
+            lineLength = 0;
+        }
+
+        private void startOutputLine() throws IOException {
+            if (!outputEmpty) {
+                out.write('\n');
+            }
+            outputEmpty = false;
+            out.write(linePrefix);
+        }
+
+        /*
+         * Finds the breaks with the least cost by dynamic programming from
+         * the last word backwards. As a line holds at most width / 2 words,
+         * this takes linear time for a given width.
+         */
+        private void writeBalanced() throws IOException {
+            // cost[i]: least cost of setting words i..count-1; next[i]: the word after the first line
+            long[] cost = new long[count + 1];
+            int[] next = new int[count + 1];
+            for (int i = count - 1; i >= 0; i--) {
+                cost[i] = Long.MAX_VALUE;
+                int start = i == 0 ? 0 : ends[i - 1];
+                for (int j = i + 1; j <= count; j++) {
+                    int length = linePrefix.length() + ends[j - 1] - start + (j - i - 1);
+                    if (length > width && j > i + 1) {
+                        break;
+                    }
+                    long free = Math.max(0, width - length);
+                    long c = (j == count ? 0 : free * free) + cost[j];
+                    if (c < cost[i]) {
+                        cost[i] = c;
+                        next[i] = j;
+                    }
+                }
+            }
+            for (int i = 0; i < count; i = next[i]) {
+                startOutputLine();
+                for (int k = i; k < next[i]; k++) {
+                    if (k > i) {
+                        out.write(' ');
+                    }
+                    int start = k == 0 ? 0 : ends[k - 1];
+                    out.append(words, start, ends[k]);
+                }
+            }
+            words.setLength(0);
+            count = 0;
+        }
+    }
+
+    /**
+     * Creates reflow transforms. By default, lines are 72 characters long,
+     * have no prefix, paragraphs are kept and quoted text is not recognized.
+     */
+    public static class Builder {
+
+        private int width = 72;
+        private String prefix = "";
+        private boolean paragraphs = true;
+        private boolean requote;
+        private boolean balanced;
+
+        /**
+         * Sets the maximum length of lines, prefix included.
+         *
+         * @param width the number of characters
+         * @return this builder
+         */
+        public Builder width(int width) {
+            this.width = width;
+            return this;
+        }
+
+        public Builder prefix(String prefix) {
+            this.prefix = prefix;
+            return this;
+        }
+
+        public Builder paragraphs(boolean paragraphs) {
+            this.paragraphs = paragraphs;
+            return this;
+        }
+
+        public Builder requote(boolean requote) {
+            this.requote = requote;
+            return this;
+        }
+
+        public Builder balanced(boolean balanced) {
+            this.balanced = balanced;
+            return this;
+        }
+
+        public Reflow build() {
+            return new Reflow(this);
+        }
+    }
+}
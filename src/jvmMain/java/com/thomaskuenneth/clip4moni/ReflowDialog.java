@@ -0,0 +1,121 @@
+/*
+ * ReflowDialog.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.awt.BorderLayout;
+import javax.swing.Box;
+import javax.swing.JCheckBox;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JSpinner;
+import javax.swing.JTextField;
+import javax.swing.SpinnerNumberModel;
+
+/**
+ * This dialog asks how text should be rewrapped (see {@link Reflow}).
+ *
+ * @author Thomas Kuenneth
+ */
+public class ReflowDialog extends AbstractDialog {
+
+    private static final int MIN_WIDTH = 10;
+    private static final int MAX_WIDTH = 500;
+
+    // kept for the next invocation
+    private static int lastWidth = 72;
+    private static String lastPrefix = "";
+    private static boolean lastParagraphs = true;
+    private static boolean lastRequote;
+    private static boolean lastBalanced;
+
+    private final JSpinner spinnerWidth;
+    private final JTextField textfieldPrefix;
+    private final JCheckBox checkboxParagraphs;
+    private final JCheckBox checkboxRequote;
+    private final JCheckBox checkboxBalanced;
+
+    public ReflowDialog() {
+        spinnerWidth = new JSpinner(new SpinnerNumberModel(lastWidth, MIN_WIDTH, MAX_WIDTH, 1));
+        textfieldPrefix = new JTextField(lastPrefix);
+        checkboxParagraphs = new JCheckBox(Messages.getString("CHECKBOX_REFLOW_PARAGRAPHS"), lastParagraphs);
+        checkboxRequote = new JCheckBox(Messages.getString("CHECKBOX_REFLOW_REQUOTE"), lastRequote);
+        checkboxBalanced = new JCheckBox(Messages.getString("CHECKBOX_REFLOW_BALANCED"), lastBalanced);
+        init();
+    }
+
+    private void init() {
+        spinnerWidth.setAlignmentX(LEFT_ALIGNMENT);
+        textfieldPrefix.setAlignmentX(LEFT_ALIGNMENT);
+        checkboxParagraphs.setAlignmentX(LEFT_ALIGNMENT);
+        checkboxRequote.setAlignmentX(LEFT_ALIGNMENT);
+        checkboxBalanced.setAlignmentX(LEFT_ALIGNMENT);
+        Box b = Box.createVerticalBox();
+        b.add(createLabel(Messages.getString("STR_REFLOW_WIDTH")));
+        b.add(spinnerWidth);
+        b.add(Box.createVerticalStrut(10));
+        b.add(createLabel(Messages.getString("STR_REFLOW_PREFIX")));
+        b.add(textfieldPrefix);
+        b.add(Box.createVerticalStrut(10));
+        b.add(checkboxParagraphs);
+        b.add(checkboxRequote);
+        b.add(checkboxBalanced);
+        add(b, BorderLayout.CENTER);
+    }
+
+    /**
+     * Shows the dialog and creates a transform with the chosen options.
+     *
+     * @return the transform or {@code null} if the dialog has been cancelled
+     */
+    public Reflow createReflow() {
+        if (showDialog() != JOptionPane.OK_OPTION) {
+            return null;
+        }
+        lastWidth = (Integer) spinnerWidth.getValue();
+        lastPrefix = textfieldPrefix.getText();
+        lastParagraphs = checkboxParagraphs.isSelected();
+        lastRequote = checkboxRequote.isSelected();
+        lastBalanced = checkboxBalanced.isSelected();
+        return new Reflow.Builder()
+                .width(lastWidth)
+                .prefix(lastPrefix)
+                .paragraphs(lastParagraphs)
+                .requote(lastRequote)
+                .balanced(lastBalanced)
+                .build();
+    }
+
+    @Override
+    public String getTitle() {
+        return Messages.getString("TITLE_REFLOW");
+    }
+
+    @Override
+    public int getOption() {
+        return JOptionPane.OK_CANCEL_OPTION;
+    }
+
+    private JLabel createLabel(String s) {
+        JLabel l = new JLabel(s);
+        l.setAlignmentX(LEFT_ALIGNMENT);
+        return l;
+    }
+}
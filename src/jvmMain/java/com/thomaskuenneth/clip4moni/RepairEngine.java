@@ -0,0 +1,222 @@
+/*
+ * RepairEngine.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class checks the snippets directory against the list of entries.
+ * Headers of snippet files are checked in parallel on a small thread pool.
+ * Entries whose snippet exists keep their key; snippets not referenced by
+ * the list (orphans) are added with a placeholder key, entries whose snippet
+ * is missing are removed.
+ * <p>
+ * In incremental mode files referenced by the list that have not been
+ * modified since the last run are not checked again.
+ *
+ * @author Thomas Kuenneth
+ */
+public class RepairEngine {
+
+    private static final String TAG = RepairEngine.class.getName();
+    private static final Logger LOGGER = Logger.getLogger(TAG);
+
+    private static final int MAX_THREADS = 4;
+
+    /**
+     * Receives progress updates (on the thread running the repair).
+     */
+    public interface ProgressListener {
+
+        void progress(int done, int total);
+    }
+
+    /**
+     * The outcome of a repair.
+     */
+    public static class Report {
+
+        private final List<String> orphaned = new ArrayList<>();
+        private final List<String> missing = new ArrayList<>();
+        private int checked;
+        private int skipped;
+        private boolean cancelled;
+
+        public List<String> getOrphaned() {
+            return orphaned;
+        }
+
+        public List<String> getMissing() {
+            return missing;
+        }
+
+        public int getChecked() {
+            return checked;
+        }
+
+        public int getSkipped() {
+            return skipped;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private final boolean incremental;
+
+    public RepairEngine(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * Checks the snippets directory and saves the repaired list. Nothing is
+     * saved if the repair has been cancelled.
+     *
+     * @param listener  receives progress updates
+     * @param cancelled checked regularly; the repair stops once it returns true
+     * @return the report
+     * @throws InterruptedException if the calling thread has been interrupted
+     * @throws IOException          if the list cannot be read; it is not repaired then
+     */
+    public Report run(ProgressListener listener, BooleanSupplier cancelled)
+            throws InterruptedException, IOException {
+        long start = System.currentTimeMillis();
+        Report report = new Report();
+        File fileList = Helper.getFileList();
+        List<Entry> entries = SnippetList.load(fileList);
+        Set<String> referenced = new HashSet<>();
+        for (Entry e : entries) {
+            referenced.add(e.getValue());
+        }
+        Set<String> valid = new HashSet<>();
+        if (Helper.isPackedStoreActive()) {
+            // records are verified by their checksums when the store is opened
+            valid.addAll(FileHelper.getSnippetNames());
+        }
+        List<File> candidates = new ArrayList<>();
+        long lastRun = incremental ? Helper.getLastRepair() : 0;
+        File[] files = Helper.getSnippetsDir().listFiles();
+        if (files != null) {
+            for (File f : files) {
+                String name = f.getName();
+                if (valid.contains(name) || !f.isFile()) {
+                    continue;
+                }
+                if (referenced.contains(name) && f.lastModified() < lastRun) {
+                    valid.add(name);
+                    report.skipped += 1;
+                } else {
+                    candidates.add(f);
+                }
+            }
+        }
+        if (!check(candidates, valid, report, listener, cancelled)) {
+            report.cancelled = true;
+            return report;
+        }
+        List<Entry> repaired = new ArrayList<>();
+        for (Entry e : entries) {
+            if (valid.contains(e.getValue())) {
+                repaired.add(e);
+            } else {
+                report.missing.add(e.getValue());
+            }
+        }
+        int count = 1;
+        for (String name : new TreeSet<>(valid)) {
+            if (!referenced.contains(name)) {
+                repaired.add(new Entry(String.format("#%d", count++), name));
+                report.orphaned.add(name);
+            }
+        }
+        if (!report.orphaned.isEmpty() || !report.missing.isEmpty()) {
+            SnippetList.save(fileList, repaired);
+        }
+        Helper.setLastRepair(start);
+        LOGGER.log(Level.INFO, String.format("%d files checked, %d skipped, %d orphaned, %d missing in %d ms",
+                report.checked, report.skipped, report.orphaned.size(), report.missing.size(),
+                System.currentTimeMillis() - start));
+        return report;
+    }
+
+    /*
+     * Checks the headers of files in parallel. Returns false if cancelled.
+     */
+    private boolean check(List<File> candidates, Set<String> valid, Report report,
+                          ProgressListener listener, BooleanSupplier cancelled) throws InterruptedException {
+        int total = candidates.size();
+        listener.progress(0, total);
+        if (total == 0) {
+            return !cancelled.getAsBoolean();
+        }
+        int threads = Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, TAG);
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            CompletionService<File> service = new ExecutorCompletionService<>(executor);
+            for (File f : candidates) {
+                service.submit(() -> FileHelper.isSnippetFile(f) ? f : null);
+            }
+            for (int done = 0; done < total; ) {
+                if (cancelled.getAsBoolean()) {
+                    return false;
+                }
+                Future<File> future = service.poll(100, TimeUnit.MILLISECONDS);
+                if (future == null) {
+                    continue;
+                }
+                try {
+                    File f = future.get();
+                    if (f != null) {
+                        valid.add(f.getName());
+                    }
+                } catch (ExecutionException e) {
+                    LOGGER.log(Level.SEVERE, "check()", e);
+                }
+                report.checked += 1;
+                listener.progress(++done, total);
+            }
+            return true;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -22,58 +22,177 @@ package com.thomaskuenneth.clip4moni;
 
 import java.awt.BorderLayout;
 import java.awt.Dimension;
+import java.awt.SecondaryLoop;
+import java.awt.Toolkit;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.PatternSyntaxException;
+import javax.swing.BorderFactory;
 import javax.swing.Box;
+import javax.swing.DefaultCellEditor;
+import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextArea;
 import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.DefaultTableModel;
 
 /**
- * This dialog can replace text in the contents of the clipboard.
+ * This dialog can replace text in the contents of the clipboard. The user
+ * enters any number of pairs of search string and replacement and chooses
+ * how search strings are interpreted (see {@link ReplaceEngine}). The number
+ * of matches and the result are previewed while the user types; they are
+ * computed in the background shortly after the last keystroke. When the
+ * user clicks OK, the last preview is used if it is still up to date.
  *
  * @author thomas
  */
 public class ReplaceDialog extends AbstractDialog {
 
-    private final JTextField tfFrom, tfTo;
+    private static final String TAG = ReplaceDialog.class.getName();
+    private static final Logger LOGGER = Logger.getLogger(TAG);
 
-    private String contents;
+    // milliseconds without changes before the preview is updated
+    private static final int PREVIEW_DELAY = 250;
+
+    private static final int VISIBLE_PAIRS = 5;
+
+    private final String contents;
+    private final DefaultTableModel pairs;
+    private final JTable table;
+    private final JTextField textfieldEditor;
+    private final JComboBox<String> comboboxMode;
+    private final JTextArea textareaPreview;
+    private final JLabel labelStatus;
+    private final Timer timer;
+
+    private String result;
+    private SwingWorker<Preview, Void> worker;
+    private Preview lastPreview;
 
     public ReplaceDialog(final String contents) {
         this.contents = contents;
-        tfFrom = createTextField();
-        tfTo = createTextField();
+        result = contents;
+        pairs = new DefaultTableModel(new Object[]{Messages.getString("STR_REPLACE_FROM"),
+                Messages.getString("STR_REPLACE_TO")}, 1);
+        table = new JTable(pairs);
+        textfieldEditor = new JTextField();
+        comboboxMode = new JComboBox<>(new String[]{Messages.getString("STR_REPLACE_LITERAL"),
+                Messages.getString("STR_REPLACE_WHOLE_WORD"),
+                Messages.getString("STR_REPLACE_REGEX")});
+        textareaPreview = new JTextArea(contents);
+        labelStatus = new JLabel(" ");
+        timer = new Timer(PREVIEW_DELAY, e -> updatePreview());
+        timer.setRepeats(false);
         init();
     }
 
     private void init() {
-        Box b = Box.createVerticalBox();
-//        final JTextArea textareaContents = new JTextArea(contents);
-//        textareaContents.setEditable(false);
-//        textareaContents.setWrapStyleWord(true);
-//        textareaContents.setLineWrap(true);
-//        b.add(new JScrollPane(textareaContents));
-        b.add(createLabel(Messages.getString("STR_REPLACE_FROM")));
-        b.add(tfFrom);
-        b.add(createLabel(Messages.getString("STR_REPLACE_TO")));
-        b.add(tfTo);
-        b.add(new Box.Filler(new Dimension(0, 0),
-                new Dimension(0, Short.MAX_VALUE),
-                new Dimension(0, Short.MAX_VALUE)));
+        // pairs; there always is an empty row for the next one
+        table.setDefaultEditor(Object.class, new DefaultCellEditor(textfieldEditor));
+        table.putClientProperty("terminateEditOnFocusLost", Boolean.TRUE);
+        table.setPreferredScrollableViewportSize(new Dimension(0,
+                table.getRowHeight() * VISIBLE_PAIRS));
+        pairs.addTableModelListener(e -> {
+            // other listeners (the table) must see the change first
+            SwingUtilities.invokeLater(() -> {
+                if (!getValue(pairs.getRowCount() - 1, 0).isEmpty()) {
+                    pairs.addRow(new Object[]{"", ""});
+                }
+            });
+            schedulePreview();
+        });
+        textfieldEditor.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                schedulePreview();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                schedulePreview();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                schedulePreview();
+            }
+        });
+        comboboxMode.addItemListener(e -> schedulePreview());
+        Box b = Box.createHorizontalBox();
+        b.add(new JLabel(Messages.getString("STR_REPLACE_MODE")));
+        b.add(Box.createHorizontalStrut(10));
+        b.add(comboboxMode);
+        JPanel panelPairs = new JPanel(new BorderLayout());
+        panelPairs.setBorder(BorderFactory.createEmptyBorder(0, 0, 10, 0));
+        panelPairs.add(b, BorderLayout.NORTH);
+        panelPairs.add(new JScrollPane(table), BorderLayout.CENTER);
+        panelPairs.add(labelStatus, BorderLayout.SOUTH);
+        // preview
+        textareaPreview.setEditable(false);
+        textareaPreview.setWrapStyleWord(true);
+        textareaPreview.setLineWrap(true);
         setPreferredSize(UIHelper.PREFERRED_SIZE);
-        add(b, BorderLayout.CENTER);
+        add(panelPairs, BorderLayout.NORTH);
+        add(new JScrollPane(textareaPreview), BorderLayout.CENTER);
+        schedulePreview();
     }
 
+    /**
+     * Shows the dialog until the search strings and replacements can be
+     * used or the user cancels.
+     *
+     * @return the option chosen by the user
+     */
     @Override
     public int showDialog() {
-        int result = super.showDialog();
-        if (result == JOptionPane.OK_OPTION) {
-            contents = contents.replaceAll(tfFrom.getText(), tfTo.getText());
+        int option;
+        while ((option = super.showDialog()) == JOptionPane.OK_OPTION) {
+            if (table.isEditing()) {
+                table.getCellEditor().stopCellEditing();
+            }
+            timer.stop();
+            ReplaceEngine.Mode mode = getMode();
+            String[][] p = getPairs();
+            Preview preview = lastPreview;
+            if (preview == null || !preview.isFor(mode, p)) {
+                if (worker != null) {
+                    worker.cancel(false);
+                }
+                preview = replace(mode, p);
+                lastPreview = preview;
+                labelStatus.setText(preview.status);
+            }
+            if (!preview.failed) {
+                result = preview.text;
+                break;
+            }
+            // like in the preview, the reason is shown
+            JOptionPane.showMessageDialog(null, preview.status, getTitle(),
+                    JOptionPane.ERROR_MESSAGE);
         }
-        return result;
+        timer.stop();
+        if (worker != null) {
+            worker.cancel(false);
+        }
+        return option;
     }
 
     public String getContents() {
-        return contents;
+        return result;
     }
 
     @Override
@@ -86,15 +205,130 @@ public class ReplaceDialog extends AbstractDialog {
         return JOptionPane.OK_CANCEL_OPTION;
     }
 
-    private JLabel createLabel(String s) {
-        JLabel l = new JLabel(s);
-        l.setAlignmentX(LEFT_ALIGNMENT);
-        return l;
+    private void schedulePreview() {
+        timer.restart();
+    }
+
+    private void updatePreview() {
+        if (worker != null) {
+            worker.cancel(false);
+        }
+        ReplaceEngine.Mode mode = getMode();
+        String[][] p = getPairs();
+        worker = new SwingWorker<>() {
+            @Override
+            protected Preview doInBackground() {
+                return createPreview(mode, p);
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    Preview preview = get();
+                    lastPreview = preview;
+                    labelStatus.setText(preview.status);
+                    textareaPreview.setText(preview.text);
+                    textareaPreview.setCaretPosition(0);
+                } catch (InterruptedException | ExecutionException e) {
+                    LOGGER.log(Level.SEVERE, "updatePreview()", e);
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    /*
+     * Replaces in the background; events are dispatched while waiting, so
+     * the user interface does not freeze.
+     */
+    private Preview replace(ReplaceEngine.Mode mode, String[][] p) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            return createPreview(mode, p);
+        }
+        SecondaryLoop loop = Toolkit.getDefaultToolkit().getSystemEventQueue().createSecondaryLoop();
+        SwingWorker<Preview, Void> w = new SwingWorker<>() {
+            @Override
+            protected Preview doInBackground() {
+                return createPreview(mode, p);
+            }
+
+            @Override
+            protected void done() {
+                loop.exit();
+            }
+        };
+        w.execute();
+        // done() runs on this thread, so it cannot exit the loop before it is entered
+        loop.enter();
+        try {
+            return w.get();
+        } catch (InterruptedException | ExecutionException e) {
+            LOGGER.log(Level.SEVERE, "replace()", e);
+            return new Preview(mode, p, contents, e.toString(), true);
+        }
     }
 
-    private JTextField createTextField() {
-        JTextField tf = new JTextField();
-        tf.setAlignmentX(LEFT_ALIGNMENT);
-        return tf;
+    private Preview createPreview(ReplaceEngine.Mode mode, String[][] p) {
+        try {
+            ReplaceEngine engine = new ReplaceEngine(mode, p);
+            StringBuilder sb = new StringBuilder(contents.length());
+            int count = engine.replace(contents, sb);
+            return new Preview(mode, p, sb.toString(), MessageFormat.format(
+                    Messages.getString("STR_REPLACE_MATCHES"), count), false);
+        } catch (PatternSyntaxException e) {
+            return new Preview(mode, p, contents, e.getDescription(), true);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return new Preview(mode, p, contents, e.getMessage(), true);
+        }
+    }
+
+    private ReplaceEngine.Mode getMode() {
+        return ReplaceEngine.Mode.values()[comboboxMode.getSelectedIndex()];
+    }
+
+    private String[][] getPairs() {
+        List<String[]> l = new ArrayList<>();
+        for (int row = 0; row < pairs.getRowCount(); row++) {
+            l.add(new String[]{getValue(row, 0), getValue(row, 1)});
+        }
+        return l.toArray(new String[0][]);
+    }
+
+    /*
+     * Gets the contents of a cell, including what is being typed into it.
+     */
+    private String getValue(int row, int column) {
+        if (table.isEditing() && table.getEditingRow() == row
+                && table.getEditingColumn() == column) {
+            return textfieldEditor.getText();
+        }
+        Object value = pairs.getValueAt(row, column);
+        return value == null ? "" : value.toString();
+    }
+
+    private static final class Preview {
+
+        final ReplaceEngine.Mode mode;
+        final String[][] pairs;
+        final String text;
+        final String status;
+        // the search strings or replacements cannot be used
+        final boolean failed;
+
+        Preview(ReplaceEngine.Mode mode, String[][] pairs, String text, String status,
+                boolean failed) {
+            this.mode = mode;
+            this.pairs = pairs;
+            this.text = text;
+            this.status = status;
+            this.failed = failed;
+        }
+
+        boolean isFor(ReplaceEngine.Mode mode, String[][] pairs) {
+            return this.mode == mode && Arrays.deepEquals(this.pairs, pairs);
+        }
     }
 }
@@ -0,0 +1,435 @@
+/*
+ * ReplaceEngine.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replaces a table of search strings in one pass over a text. Matches do
+ * not overlap; at each position the leftmost match wins, and of those the
+ * longest one (literal modes) or the first one in the table (regular
+ * expressions).
+ * <p>
+ * Literal search strings are combined into an Aho-Corasick automaton, so
+ * the text is scanned once no matter how many pairs there are. Regular
+ * expressions are compiled once and kept in a small cache shared by all
+ * instances, as the replace dialog creates a new engine whenever the user
+ * types. Replacements of regular expressions may refer to groups like
+ * {@link Matcher#appendReplacement(StringBuffer, String)}; in the literal
+ * modes they are inserted as they are.
+ * <p>
+ * Instances are immutable and can be used by several threads.
+ *
+ * @author Thomas Kuenneth
+ */
+public final class ReplaceEngine {
+
+    public enum Mode {
+        /**
+         * Search strings are plain text.
+         */
+        LITERAL,
+        /**
+         * Search strings are plain text and must not be part of a longer
+         * word.
+         */
+        WHOLE_WORD,
+        /**
+         * Search strings are regular expressions.
+         */
+        REGEX
+    }
+
+    private static final int MAX_CACHED_PATTERNS = 64;
+
+    private static final Map<String, Pattern> PATTERNS =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
+                    return size() > MAX_CACHED_PATTERNS;
+                }
+            };
+
+    private final Mode mode;
+    private final String[] replacements;
+    // REGEX
+    private final Pattern[] patterns;
+    // LITERAL and WHOLE_WORD: the automaton, node 0 is the root
+    private final char[][] labels;
+    private final int[][] targets;
+    private final int[] fail;
+    private final int[] depth;
+    // index of the pair ending at a node, or -1
+    private final int[] pair;
+    // nearest node on the fail chain (the node itself included) that ends a pair, or -1
+    private final int[] output;
+
+    /**
+     * Creates an engine. Pairs with an empty search string are ignored; if a
+     * search string occurs more than once, the first pair is used.
+     *
+     * @param mode  how search strings are interpreted
+     * @param pairs search string and replacement
+     * @throws java.util.regex.PatternSyntaxException if a regular expression
+     *                                                is invalid
+     */
+    public ReplaceEngine(Mode mode, String[][] pairs) {
+        this.mode = mode;
+        List<String[]> used = new ArrayList<>();
+        for (String[] p : pairs) {
+            if (!p[0].isEmpty()) {
+                used.add(p);
+            }
+        }
+        replacements = new String[used.size()];
+        for (int i = 0; i < replacements.length; i++) {
+            replacements[i] = used.get(i)[1];
+        }
+        if (mode == Mode.REGEX) {
+            patterns = new Pattern[used.size()];
+            for (int i = 0; i < patterns.length; i++) {
+                patterns[i] = compile(used.get(i)[0]);
+            }
+            labels = null;
+            targets = null;
+            fail = null;
+            depth = null;
+            pair = null;
+            output = null;
+            return;
+        }
+        patterns = null;
+        // trie
+        List<StringBuilder> nodeLabels = new ArrayList<>();
+        List<List<Integer>> nodeTargets = new ArrayList<>();
+        List<Integer> nodeDepth = new ArrayList<>();
+        List<Integer> nodePair = new ArrayList<>();
+        nodeLabels.add(new StringBuilder());
+        nodeTargets.add(new ArrayList<>());
+        nodeDepth.add(0);
+        nodePair.add(-1);
+        for (int i = 0; i < used.size(); i++) {
+            String s = used.get(i)[0];
+            int node = 0;
+            for (int k = 0; k < s.length(); k++) {
+                int index = nodeLabels.get(node).indexOf(String.valueOf(s.charAt(k)));
+                if (index >= 0) {
+                    node = nodeTargets.get(node).get(index);
+                } else {
+                    int child = nodeLabels.size();
+                    nodeLabels.add(new StringBuilder());
+                    nodeTargets.add(new ArrayList<>());
+                    nodeDepth.add(k + 1);
+                    nodePair.add(-1);
+                    nodeLabels.get(node).append(s.charAt(k));
+                    nodeTargets.get(node).add(child);
+                    node = child;
+                }
+            }
+            if (nodePair.get(node) < 0) {
+                nodePair.set(node, i);
+            }
+        }
+        int size = nodeLabels.size();
+        labels = new char[size][];
+        targets = new int[size][];
+        depth = new int[size];
+        pair = new int[size];
+        for (int node = 0; node < size; node++) {
+            // children sorted by label for binary search
+            char[] l = nodeLabels.get(node).toString().toCharArray();
+            int[] t = new int[l.length];
+            Integer[] order = new Integer[l.length];
+            for (int k = 0; k < l.length; k++) {
+                order[k] = k;
+            }
+            Arrays.sort(order, (a, b) -> Character.compare(l[a], l[b]));
+            labels[node] = new char[l.length];
+            for (int k = 0; k < l.length; k++) {
+                labels[node][k] = l[order[k]];
+                t[k] = nodeTargets.get(node).get(order[k]);
+            }
+            targets[node] = t;
+            depth[node] = nodeDepth.get(node);
+            pair[node] = nodePair.get(node);
+        }
+        // fail links and outputs, breadth first
+        fail = new int[size];
+        output = new int[size];
+        output[0] = -1;
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[0]) {
+            fail[child] = 0;
+            output[child] = pair[child] >= 0 ? child : -1;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.remove();
+            for (int k = 0; k < labels[node].length; k++) {
+                int child = targets[node][k];
+                fail[child] = next(fail[node], labels[node][k]);
+                output[child] = pair[child] >= 0 ? child : output[fail[child]];
+                queue.add(child);
+            }
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Replaces all matches.
+     *
+     * @param text the text
+     * @return the result
+     */
+    public String replace(CharSequence text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        run(text, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Replaces all matches.
+     *
+     * @param text the text
+     * @param dst  receives the result
+     * @return the number of matches
+     */
+    public int replace(CharSequence text, StringBuilder dst) {
+        return run(text, dst);
+    }
+
+    /**
+     * Counts the matches {@link #replace(CharSequence)} would replace.
+     *
+     * @param text the text
+     * @return the number of matches
+     */
+    public int count(CharSequence text) {
+        return run(text, null);
+    }
+
+    private int run(CharSequence text, StringBuilder dst) {
+        if (replacements.length == 0) {
+            if (dst != null) {
+                dst.append(text);
+            }
+            return 0;
+        }
+        return mode == Mode.REGEX ? runPatterns(text, dst) : runAutomaton(text, dst);
+    }
+
+    private int runAutomaton(CharSequence text, StringBuilder dst) {
+        int count = 0;
+        int len = text.length();
+        // text before this index has been handled
+        int copied = 0;
+        int state = 0;
+        // the best match found so far
+        int bestStart = -1;
+        int bestEnd = -1;
+        int bestPair = -1;
+        int i = 0;
+        while (i < len || bestStart >= 0) {
+            if (i < len) {
+                state = next(state, text.charAt(i));
+                i += 1;
+                for (int node = output[state]; node >= 0; node = output[fail[node]]) {
+                    // on the fail chain, matches start further to the right;
+                    // one starting at bestStart is longer than the best match
+                    int start = i - depth[node];
+                    if (bestStart >= 0 && start > bestStart) {
+                        break;
+                    }
+                    if (mode != Mode.WHOLE_WORD || isWordBoundary(text, start, i)) {
+                        bestStart = start;
+                        bestEnd = i;
+                        bestPair = pair[node];
+                        break;
+                    }
+                }
+                if (bestStart < 0) {
+                    continue;
+                }
+                // a later match starting at bestStart would be longer
+                if (i < len && i - depth[state] <= bestStart) {
+                    continue;
+                }
+            }
+            count += 1;
+            if (dst != null) {
+                dst.append(text, copied, bestStart).append(replacements[bestPair]);
+            }
+            copied = bestEnd;
+            // continue right after the match
+            i = bestEnd;
+            state = 0;
+            bestStart = -1;
+        }
+        if (dst != null) {
+            dst.append(text, copied, len);
+        }
+        return count;
+    }
+
+    private int next(int state, char ch) {
+        while (true) {
+            int k = Arrays.binarySearch(labels[state], ch);
+            if (k >= 0) {
+                return targets[state][k];
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = fail[state];
+        }
+    }
+
+    private static boolean isWordBoundary(CharSequence text, int start, int end) {
+        return (start == 0 || !isWordChar(text.charAt(start - 1))
+                || !isWordChar(text.charAt(start)))
+                && (end == text.length() || !isWordChar(text.charAt(end))
+                || !isWordChar(text.charAt(end - 1)));
+    }
+
+    private static boolean isWordChar(char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '_';
+    }
+
+    private int runPatterns(CharSequence text, StringBuilder dst) {
+        int count = 0;
+        int len = text.length();
+        Matcher[] matchers = new Matcher[patterns.length];
+        // start of the next match of each matcher, len + 1 if there is none
+        int[] starts = new int[patterns.length];
+        for (int k = 0; k < matchers.length; k++) {
+            matchers[k] = patterns[k].matcher(text);
+            starts[k] = matchers[k].find() ? matchers[k].start() : len + 1;
+        }
+        int copied = 0;
+        int pos = 0;
+        while (pos <= len) {
+            int best = -1;
+            for (int k = 0; k < matchers.length; k++) {
+                if (starts[k] < pos) {
+                    // overlaps with a replaced match
+                    starts[k] = matchers[k].find(pos) ? matchers[k].start() : len + 1;
+                }
+                if (starts[k] <= len && (best < 0 || starts[k] < starts[best])) {
+                    best = k;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            Matcher m = matchers[best];
+            count += 1;
+            if (dst != null) {
+                dst.append(text, copied, m.start());
+                appendReplacement(m, replacements[best], dst);
+            }
+            copied = m.end();
+            pos = m.end();
+            if (m.end() == m.start()) {
+                // like Matcher.find(), continue after an empty match
+                pos += 1;
+            }
+            starts[best] = -1;
+        }
+        if (dst != null) {
+            dst.append(text, copied, len);
+        }
+        return count;
+    }
+
+    /*
+     * Appends a replacement, resolving $n, ${name} and \ escapes like
+     * Matcher.appendReplacement() does.
+     */
+    private static void appendReplacement(Matcher m, String replacement, StringBuilder dst) {
+        int i = 0;
+        int len = replacement.length();
+        while (i < len) {
+            char ch = replacement.charAt(i++);
+            if (ch == '\\') {
+                if (i == len) {
+                    throw new IllegalArgumentException("character to be escaped is missing");
+                }
+                dst.append(replacement.charAt(i++));
+            } else if (ch != '$') {
+                dst.append(ch);
+            } else {
+                if (i == len) {
+                    throw new IllegalArgumentException("Illegal group reference: group index is missing");
+                }
+                String group;
+                if (replacement.charAt(i) == '{') {
+                    int close = replacement.indexOf('}', i);
+                    if (close < 0) {
+                        throw new IllegalArgumentException("named capturing group is missing trailing '}'");
+                    }
+                    group = m.group(replacement.substring(i + 1, close));
+                    i = close + 1;
+                } else {
+                    int number = Character.digit(replacement.charAt(i), 10);
+                    if (number < 0) {
+                        throw new IllegalArgumentException("Illegal group reference");
+                    }
+                    i += 1;
+                    // take further digits as long as the group exists
+                    while (i < len) {
+                        int digit = Character.digit(replacement.charAt(i), 10);
+                        if (digit < 0 || number * 10 + digit > m.groupCount()) {
+                            break;
+                        }
+                        number = number * 10 + digit;
+                        i += 1;
+                    }
+                    group = m.group(number);
+                }
+                if (group != null) {
+                    dst.append(group);
+                }
+            }
+        }
+    }
+
+    private static Pattern compile(String regex) {
+        synchronized (PATTERNS) {
+            Pattern p = PATTERNS.get(regex);
+            if (p == null) {
+                p = Pattern.compile(regex);
+                PATTERNS.put(regex, p);
+            }
+            return p;
+        }
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ * RtfConverter.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Base class of writers that convert RTF to other formats. It keeps track
+ * of groups and character formatting, skips destinations that do not
+ * contain text (font and color tables, pictures, ...) and resolves
+ * {@code \\'hh} and {@code \\uN} to characters. Hyperlink fields are
+ * recognized, too.
+ *
+ * @author Thomas Kuenneth
+ */
+public abstract class RtfConverter extends TransformWriter implements RtfTokenizer.Handler {
+
+    private static final Set<String> DESTINATIONS = Set.of("fonttbl", "colortbl",
+            "stylesheet", "info", "pict", "object", "header", "headerl", "headerr",
+            "headerf", "footer", "footerl", "footerr", "footerf", "footnote",
+            "listtable", "listoverridetable", "rsidtbl", "generator", "xmlnstbl",
+            "themedata", "colorschememapping", "latentstyles", "datastore", "filetbl",
+            "revtbl", "nonshppict", "shpinst", "mmathPr", "pgdsctbl");
+
+    private static final char[] WINDOWS_1252 = createCodePage(1252);
+
+    /**
+     * Receives the converted text; it is passed on in chunks.
+     */
+    protected final StringBuilder buffer = new StringBuilder();
+
+    private final RtfTokenizer tokenizer = new RtfTokenizer(this);
+    private final Deque<Group> groups = new ArrayDeque<>();
+
+    private Group group = new Group();
+    private int skipChars;
+    private char[] codePage = WINDOWS_1252;
+
+    protected RtfConverter(Writer out) {
+        super(out);
+    }
+
+    /**
+     * Appends a character of the text.
+     *
+     * @param ch the character
+     */
+    protected abstract void character(char ch);
+
+    /**
+     * Invoked at the end of a paragraph.
+     */
+    protected abstract void paragraph();
+
+    /**
+     * Invoked for a line break inside a paragraph.
+     */
+    protected abstract void lineBreak();
+
+    /**
+     * Invoked at the end of the input, before the buffer is written.
+     */
+    protected abstract void end();
+
+    protected boolean isBold() {
+        return group.bold;
+    }
+
+    protected boolean isItalic() {
+        return group.italic;
+    }
+
+    protected boolean isUnderline() {
+        return group.underline;
+    }
+
+    /**
+     * Gets the target of the hyperlink the current text belongs to.
+     *
+     * @return the target or {@code null}
+     */
+    protected String getLink() {
+        return group.link;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        tokenizer.write(cbuf, off, len);
+        if (buffer.length() >= TextTransform.CHUNK_SIZE) {
+            out.append(buffer);
+            buffer.setLength(0);
+        }
+    }
+
+    @Override
+    protected void endOfInput() throws IOException {
+        tokenizer.finish();
+        end();
+        out.append(buffer);
+        buffer.setLength(0);
+    }
+
+    @Override
+    public void groupStart() {
+        groups.push(group);
+        group = group.child();
+        skipChars = 0;
+    }
+
+    @Override
+    public void groupEnd() {
+        if (groups.isEmpty()) {
+            return;
+        }
+        Group parent = groups.pop();
+        if (group.instruction != null && group.instruction != parent.instruction) {
+            parent.fieldUrl = getHyperlink(group.instruction.toString());
+        }
+        group = parent;
+        skipChars = 0;
+    }
+
+    @Override
+    public void controlWord(String word, boolean hasParam, int param) {
+        boolean first = group.first;
+        group.first = false;
+        if (group.skip) {
+            return;
+        }
+        if (group.starred) {
+            // \* marks destinations that may be ignored if unknown
+            group.starred = false;
+            if ("fldinst".equals(word)) {
+                group.instruction = new StringBuilder();
+            } else {
+                group.skip = true;
+            }
+            return;
+        }
+        if (first && DESTINATIONS.contains(word)) {
+            group.skip = true;
+            return;
+        }
+        if (skipChars > 0) {
+            skipChars -= 1;
+            return;
+        }
+        boolean on = !hasParam || param != 0;
+        switch (word) {
+            case "par":
+            case "sect":
+            case "page":
+            case "row":
+                if (group.instruction == null) {
+                    paragraph();
+                }
+                break;
+            case "line":
+                if (group.instruction == null) {
+                    lineBreak();
+                }
+                break;
+            case "tab":
+            case "cell":
+                emit('\t');
+                break;
+            case "emdash":
+                emit('\u2014');
+                break;
+            case "endash":
+                emit('\u2013');
+                break;
+            case "bullet":
+                emit('\u2022');
+                break;
+            case "lquote":
+                emit('\u2018');
+                break;
+            case "rquote":
+                emit('\u2019');
+                break;
+            case "ldblquote":
+                emit('\u201c');
+                break;
+            case "rdblquote":
+                emit('\u201d');
+                break;
+            case "b":
+                group.bold = on;
+                break;
+            case "i":
+                group.italic = on;
+                break;
+            case "ul":
+                group.underline = on;
+                break;
+            case "ulnone":
+                group.underline = false;
+                break;
+            case "plain":
+                group.bold = false;
+                group.italic = false;
+                group.underline = false;
+                break;
+            case "u":
+                emit((char) param);
+                skipChars = group.uc;
+                break;
+            case "uc":
+                group.uc = Math.max(0, param);
+                break;
+            case "ansicpg":
+                codePage = createCodePage(param);
+                break;
+            case "fldrslt":
+                group.link = group.fieldUrl;
+                break;
+        }
+    }
+
+    @Override
+    public void controlSymbol(char symbol) {
+        boolean first = group.first;
+        group.first = false;
+        if (group.skip) {
+            return;
+        }
+        if (symbol == '*') {
+            group.starred = first;
+            return;
+        }
+        if (skipChars > 0) {
+            skipChars -= 1;
+            return;
+        }
+        if (symbol == '~') {
+            emit('\u00a0');
+        } else if (symbol == '_') {
+            emit('\u2011');
+        }
+    }
+
+    @Override
+    public void hexByte(int b) {
+        group.first = false;
+        if (group.skip) {
+            return;
+        }
+        if (skipChars > 0) {
+            skipChars -= 1;
+            return;
+        }
+        emit(codePage[b & 0xff]);
+    }
+
+    @Override
+    public void text(char ch) {
+        group.first = false;
+        if (group.skip) {
+            return;
+        }
+        if (skipChars > 0) {
+            skipChars -= 1;
+            return;
+        }
+        emit(ch);
+    }
+
+    private void emit(char ch) {
+        if (group.skip) {
+            return;
+        }
+        if (group.instruction != null) {
+            group.instruction.append(ch);
+        } else {
+            character(ch);
+        }
+    }
+
+    private static String getHyperlink(String instruction) {
+        String s = instruction.trim();
+        if (!s.toUpperCase(Locale.ROOT).startsWith("HYPERLINK")) {
+            return null;
+        }
+        s = s.substring("HYPERLINK".length()).trim();
+        if (s.startsWith("\"")) {
+            int end = s.indexOf('"', 1);
+            return s.substring(1, end < 0 ? s.length() : end);
+        }
+        int end = s.indexOf(' ');
+        return end < 0 ? s : s.substring(0, end);
+    }
+
+    private static char[] createCodePage(int number) {
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        try {
+            String s = new String(bytes, Charset.forName("windows-" + number));
+            if (s.length() == bytes.length) {
+                return s.toCharArray();
+            }
+        } catch (IllegalArgumentException e) {
+            // not supported; see below
+        }
+        // multi-byte or unknown code pages
+        return WINDOWS_1252 != null ? WINDOWS_1252
+                : new String(bytes, StandardCharsets.ISO_8859_1).toCharArray();
+    }
+
+    private static final class Group {
+
+        boolean first = true;
+        boolean starred;
+        boolean skip;
+        boolean bold;
+        boolean italic;
+        boolean underline;
+        int uc = 1;
+        String fieldUrl;
+        String link;
+        StringBuilder instruction;
+
+        Group child() {
+            Group g = new Group();
+            g.skip = skip;
+            g.bold = bold;
+            g.italic = italic;
+            g.underline = underline;
+            g.uc = uc;
+            g.fieldUrl = fieldUrl;
+            g.link = link;
+            // the instruction may contain groups
+            g.instruction = instruction;
+            return g;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * RtfToHtml.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.Writer;
+import java.util.Objects;
+
+/**
+ * Converts RTF to an HTML fragment. Paragraphs become {@code p} elements;
+ * bold, italic and underlined text and hyperlinks are kept, everything
+ * else is dropped.
+ *
+ * @author Thomas Kuenneth
+ */
+public class RtfToHtml implements FusableTransform {
+
+    @Override
+    public TransformWriter open(Writer out) {
+        return new RtfConverter(out) {
+
+            // open elements, outermost first: a, b, i, u
+            private final String[] open = new String[4];
+            private final String[] wanted = new String[4];
+            private boolean inParagraph;
+
+            @Override
+            protected void character(char ch) {
+                sync();
+                switch (ch) {
+                    case '&':
+                        buffer.append("&amp;");
+                        break;
+                    case '<':
+                        buffer.append("&lt;");
+                        break;
+                    case '>':
+                        buffer.append("&gt;");
+                        break;
+                    case '"':
+                        buffer.append("&quot;");
+                        break;
+                    case '\u00a0':
+                        buffer.append("&nbsp;");
+                        break;
+                    default:
+                        buffer.append(ch);
+                }
+            }
+
+            @Override
+            protected void paragraph() {
+                if (inParagraph) {
+                    close(0);
+                    buffer.append("</p>\n");
+                    inParagraph = false;
+                }
+            }
+
+            @Override
+            protected void lineBreak() {
+                sync();
+                buffer.append("<br>");
+            }
+
+            @Override
+            protected void end() {
+                paragraph();
+            }
+
+            /*
+             * Makes the open elements match the current formatting.
+             */
+            private void sync() {
+                if (!inParagraph) {
+                    buffer.append("<p>");
+                    inParagraph = true;
+                }
+                wanted[0] = getLink();
+                wanted[1] = isBold() ? "b" : null;
+                wanted[2] = isItalic() ? "i" : null;
+                wanted[3] = isUnderline() ? "u" : null;
+                int level = 0;
+                while (level < open.length && Objects.equals(open[level], wanted[level])) {
+                    level += 1;
+                }
+                if (level == open.length) {
+                    return;
+                }
+                close(level);
+                for (int i = level; i < open.length; i++) {
+                    if (wanted[i] != null) {
+                        if (i == 0) {
+                            buffer.append("<a href=\"");
+                            for (int j = 0; j < wanted[i].length(); j++) {
+                                char ch = wanted[i].charAt(j);
+                                if (ch == '"') {
+                                    buffer.append("&quot;");
+                                } else if (ch == '&') {
+                                    buffer.append("&amp;");
+                                } else {
+                                    buffer.append(ch);
+                                }
+                            }
+                            buffer.append("\">");
+                        } else {
+                            buffer.append('<').append(wanted[i]).append('>');
+                        }
+                        open[i] = wanted[i];
+                    }
+                }
+            }
+
+            /*
+             * Closes all elements from level on.
+             */
+            private void close(int level) {
+                for (int i = open.length - 1; i >= level; i--) {
+                    if (open[i] != null) {
+                        buffer.append("</").append(i == 0 ? "a" : open[i]).append('>');
+                        open[i] = null;
+                    }
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * RtfToText.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.Writer;
+
+/**
+ * Extracts the text of an RTF document. Paragraphs and line breaks become
+ * '\n'; line breaks at the beginning and the end are dropped.
+ *
+ * @author Thomas Kuenneth
+ */
+public class RtfToText implements FusableTransform {
+
+    @Override
+    public TransformWriter open(Writer out) {
+        return new RtfConverter(out) {
+
+            private boolean empty = true;
+            private int pendingLineBreaks;
+
+            @Override
+            protected void character(char ch) {
+                if (!empty) {
+                    for (; pendingLineBreaks > 0; pendingLineBreaks--) {
+                        buffer.append('\n');
+                    }
+                }
+                pendingLineBreaks = 0;
+                buffer.append(ch);
+                empty = false;
+            }
+
+            @Override
+            protected void paragraph() {
+                pendingLineBreaks += 1;
+            }
+
+            @Override
+            protected void lineBreak() {
+                pendingLineBreaks += 1;
+            }
+
+            @Override
+            protected void end() {
+            }
+        };
+    }
+}
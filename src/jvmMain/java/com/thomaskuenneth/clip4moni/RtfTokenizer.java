@@ -0,0 +1,220 @@
+/*
+ * RtfTokenizer.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+/**
+ * Splits RTF into groups, control words, control symbols and text. The
+ * tokenizer is fed one character at a time and reports tokens to a
+ * {@link Handler}, so it runs in linear time and needs no buffer besides
+ * the current control word.
+ *
+ * @author Thomas Kuenneth
+ */
+public class RtfTokenizer {
+
+    /**
+     * Receives tokens.
+     */
+    public interface Handler {
+
+        void groupStart();
+
+        void groupEnd();
+
+        /**
+         * A control word such as {@code \b0}.
+         *
+         * @param word     the word without backslash
+         * @param hasParam whether a numeric parameter follows
+         * @param param    the parameter; 0 if there is none
+         */
+        void controlWord(String word, boolean hasParam, int param);
+
+        /**
+         * A control symbol such as {@code \~}.
+         *
+         * @param symbol the character following the backslash
+         */
+        void controlSymbol(char symbol);
+
+        /**
+         * A byte given as {@code \'hh}.
+         *
+         * @param b the value (0 to 255)
+         */
+        void hexByte(int b);
+
+        void text(char ch);
+    }
+
+    private static final int NORMAL = 0;
+    private static final int BACKSLASH = 1;
+    private static final int WORD = 2;
+    private static final int PARAM = 3;
+    private static final int HEX = 4;
+    private static final int BINARY = 5;
+
+    private static final int MAX_WORD_LENGTH = 32;
+    private static final int MAX_PARAM_DIGITS = 10;
+
+    private final Handler handler;
+    private final StringBuilder word = new StringBuilder();
+
+    private int state = NORMAL;
+    private boolean negative;
+    private long param;
+    private int digits;
+    private int hexValue;
+    private int hexDigits;
+    private long binaryLeft;
+
+    public RtfTokenizer(Handler handler) {
+        this.handler = handler;
+    }
+
+    public void write(char[] cbuf, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            write(cbuf[i]);
+        }
+    }
+
+    public void write(char ch) {
+        switch (state) {
+            case NORMAL:
+                if (ch == '{') {
+                    handler.groupStart();
+                } else if (ch == '}') {
+                    handler.groupEnd();
+                } else if (ch == '\\') {
+                    state = BACKSLASH;
+                } else if (ch != '\r' && ch != '\n') {
+                    handler.text(ch);
+                }
+                break;
+            case BACKSLASH:
+                if (isLetter(ch)) {
+                    word.setLength(0);
+                    word.append(ch);
+                    state = WORD;
+                } else if (ch == '\'') {
+                    hexValue = 0;
+                    hexDigits = 0;
+                    state = HEX;
+                } else if (ch == '\r' || ch == '\n') {
+                    state = NORMAL;
+                    handler.controlWord("par", false, 0);
+                } else if (ch == '\\' || ch == '{' || ch == '}') {
+                    state = NORMAL;
+                    handler.text(ch);
+                } else {
+                    state = NORMAL;
+                    handler.controlSymbol(ch);
+                }
+                break;
+            case WORD:
+                if (isLetter(ch)) {
+                    if (word.length() < MAX_WORD_LENGTH) {
+                        word.append(ch);
+                    }
+                } else if (ch == '-' || isDigit(ch)) {
+                    negative = ch == '-';
+                    param = negative ? 0 : ch - '0';
+                    digits = negative ? 0 : 1;
+                    state = PARAM;
+                } else {
+                    endWord(false, ch);
+                }
+                break;
+            case PARAM:
+                if (isDigit(ch)) {
+                    if (digits < MAX_PARAM_DIGITS) {
+                        param = param * 10 + (ch - '0');
+                        digits += 1;
+                    }
+                } else {
+                    endWord(true, ch);
+                }
+                break;
+            case HEX:
+                int digit = Character.digit(ch, 16);
+                if (digit < 0) {
+                    state = NORMAL;
+                    write(ch);
+                } else {
+                    hexValue = hexValue * 16 + digit;
+                    hexDigits += 1;
+                    if (hexDigits == 2) {
+                        state = NORMAL;
+                        handler.hexByte(hexValue);
+                    }
+                }
+                break;
+            case BINARY:
+                binaryLeft -= 1;
+                if (binaryLeft <= 0) {
+                    state = NORMAL;
+                }
+                break;
+        }
+    }
+
+    /**
+     * Signals the end of the input; a pending control word is reported.
+     */
+    public void finish() {
+        if (state == WORD) {
+            endWord(false, ' ');
+        } else if (state == PARAM) {
+            endWord(true, ' ');
+        }
+        state = NORMAL;
+    }
+
+    private void endWord(boolean hasParam, char next) {
+        String w = word.toString();
+        long value = negative ? -param : param;
+        int p = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+        state = NORMAL;
+        if (hasParam && "bin".equals(w)) {
+            // the delimiter is followed by p bytes of binary data
+            if (p > 0) {
+                binaryLeft = p;
+                state = BINARY;
+            }
+            if (next != ' ') {
+                write(next);
+            }
+            return;
+        }
+        handler.controlWord(w, hasParam, hasParam ? p : 0);
+        if (next != ' ') {
+            write(next);
+        }
+    }
+
+    private static boolean isLetter(char ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z');
+    }
+
+    private static boolean isDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+}
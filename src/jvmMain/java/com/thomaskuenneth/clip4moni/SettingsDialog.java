@@ -62,4 +62,12 @@ public class SettingsDialog extends AbstractDialog {
     public boolean isMacOSXWorkaroundActive() {
         return p.isMacOSXWorkaroundActive();
     }
+
+    public boolean isPackedStoreActive() {
+        return p.isPackedStoreActive();
+    }
+
+    public int getMenuGrouping() {
+        return p.getMenuGrouping();
+    }
 }
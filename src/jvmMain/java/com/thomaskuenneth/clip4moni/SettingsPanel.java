@@ -21,16 +21,32 @@
 package com.thomaskuenneth.clip4moni;
 
 import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.UIManager;
 import java.io.File;
+import java.text.MessageFormat;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class SettingsPanel extends javax.swing.JPanel {
 
+    private static final String TAG = SettingsPanel.class.getName();
+    private static final Logger LOGGER = Logger.getLogger(TAG);
+
+    private static final int MONITOR_INTERVAL = 200;
+
     public SettingsPanel() {
         initComponents();
         updateSnippetsDir(Helper.getSnippetsDir());
         updateMacWorkaround();
+        checkboxPackedStore.setSelected(Helper.isPackedStoreActive());
+        comboboxMenuGrouping.setSelectedIndex(Helper.getMenuGrouping());
     }
 
     public String getSnippetsDir() {
@@ -45,6 +61,14 @@ public class SettingsPanel extends javax.swing.JPanel {
         return checkboxMacWorkAround.isSelected() && checkboxMacWorkAround.isVisible();
     }
 
+    public boolean isPackedStoreActive() {
+        return checkboxPackedStore.isSelected();
+    }
+
+    public int getMenuGrouping() {
+        return comboboxMenuGrouping.getSelectedIndex();
+    }
+
     private void initComponents() {
 
         javax.swing.JLabel labelSnippetsDir = new javax.swing.JLabel();
@@ -53,6 +77,9 @@ public class SettingsPanel extends javax.swing.JPanel {
         comboboxLAFChooser = new javax.swing.JComboBox<>();
         javax.swing.JButton buttonSnippetsDir = new javax.swing.JButton();
         checkboxMacWorkAround = new javax.swing.JCheckBox();
+        checkboxPackedStore = new javax.swing.JCheckBox();
+        javax.swing.JLabel labelMenuGrouping = new javax.swing.JLabel();
+        comboboxMenuGrouping = new javax.swing.JComboBox<>();
         javax.swing.JButton jButton1 = new javax.swing.JButton();
 
         java.util.ResourceBundle bundle = java.util.ResourceBundle.getBundle("com/thomaskuenneth/clip4moni/Messages"); // NOI18N
@@ -69,6 +96,16 @@ public class SettingsPanel extends javax.swing.JPanel {
 
         checkboxMacWorkAround.setText(bundle.getString("STR_MAC_WORKAROUND"));
 
+        checkboxPackedStore.setText(bundle.getString("STR_PACKED_STORE"));
+
+        labelMenuGrouping.setText(bundle.getString("STR_MENU_GROUPING")); // NOI18N
+
+        // order matches the GROUPING_ constants of TrayMenuManager
+        comboboxMenuGrouping.setModel(new javax.swing.DefaultComboBoxModel<>(new String[]{
+                bundle.getString("STR_MENU_GROUPING_NONE"),
+                bundle.getString("STR_MENU_GROUPING_ALPHABETIC"),
+                bundle.getString("STR_MENU_GROUPING_PREFIX")}));
+
         jButton1.setText(bundle.getString("BTTN_REPAIR"));
         jButton1.addActionListener(this::jButton1ActionPerformed);
 
@@ -80,14 +117,17 @@ public class SettingsPanel extends javax.swing.JPanel {
                                 .addContainerGap()
                                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                                         .addComponent(labelSnippetsDir)
-                                        .addComponent(labelLAFChooser))
+                                        .addComponent(labelLAFChooser)
+                                        .addComponent(labelMenuGrouping))
                                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                                         .addComponent(checkboxMacWorkAround)
+                                        .addComponent(checkboxPackedStore)
                                         .addGroup(layout.createSequentialGroup()
                                                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING, false)
                                                         .addComponent(textfieldSnippetsDir, javax.swing.GroupLayout.DEFAULT_SIZE, 300, Short.MAX_VALUE)
-                                                        .addComponent(comboboxLAFChooser, 0, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
+                                                        .addComponent(comboboxLAFChooser, 0, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                                                        .addComponent(comboboxMenuGrouping, 0, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
                                                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                                                 .addComponent(buttonSnippetsDir)
                                                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
@@ -111,7 +151,13 @@ public class SettingsPanel extends javax.swing.JPanel {
                                         .addComponent(labelLAFChooser)
                                         .addComponent(comboboxLAFChooser, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
                                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                                        .addComponent(labelMenuGrouping)
+                                        .addComponent(comboboxMenuGrouping, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                                 .addComponent(checkboxMacWorkAround)
+                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                                .addComponent(checkboxPackedStore)
                                 .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
         );
     }
@@ -134,22 +180,63 @@ public class SettingsPanel extends javax.swing.JPanel {
     }
 
     private void repair() {
-        StringBuilder sb = new StringBuilder();
-        File snippetsDir = Helper.getSnippetsDir();
-        File[] files = snippetsDir.listFiles();
-        if (files != null) {
-            int count = 1;
-            for (File current : files) {
-                if (current.isFile() && FileHelper.hasMagic(current)) {
-                    String key = String.format("#%d", count++);
-                    sb.append(String.format("%d|%s|%s\n",
-                            key.length(),
-                            key,
-                            current.getName()));
+        Object[] options = {Messages.getString("BTTN_REPAIR_INCREMENTAL"),
+                Messages.getString("BTTN_REPAIR_FULL")};
+        int option = JOptionPane.showOptionDialog(this, Messages.getString("STR_REPAIR_MODE"),
+                Messages.getString("BTTN_REPAIR"), JOptionPane.DEFAULT_OPTION,
+                JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
+        if (option == JOptionPane.CLOSED_OPTION) {
+            return;
+        }
+        RepairEngine engine = new RepairEngine(option == 0);
+        ProgressMonitor monitor = new ProgressMonitor(this, Messages.getString("STR_REPAIR_PROGRESS"),
+                null, 0, 100);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        SwingWorker<RepairEngine.Report, Void> worker = new SwingWorker<>() {
+            @Override
+            protected RepairEngine.Report doInBackground() throws Exception {
+                return engine.run((done, total) -> setProgress(total > 0 ? done * 100 / total : 100),
+                        cancelled::get);
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                try {
+                    showReport(get());
+                } catch (InterruptedException e) {
+                    LOGGER.log(Level.SEVERE, "repair()", e);
+                } catch (ExecutionException e) {
+                    LOGGER.log(Level.SEVERE, "repair()", e.getCause());
+                    JOptionPane.showMessageDialog(SettingsPanel.this, String.valueOf(e.getCause()),
+                            Messages.getString("BTTN_REPAIR"), JOptionPane.ERROR_MESSAGE);
                 }
             }
-        }
-        FileHelper.saveFile(Helper.getFileList(), sb.toString());
+        };
+        // polled rather than driven by progress events, which may not come for
+        // a while, for example during the check of one large file
+        Timer timer = new Timer(MONITOR_INTERVAL, e -> {
+            if (worker.isDone()) {
+                ((Timer) e.getSource()).stop();
+                return;
+            }
+            monitor.setProgress(worker.getProgress());
+            if (monitor.isCanceled()) {
+                cancelled.set(true);
+            }
+        });
+        timer.start();
+        worker.execute();
+    }
+
+    private void showReport(RepairEngine.Report report) {
+        String message = report.isCancelled()
+                ? Messages.getString("STR_REPAIR_CANCELLED")
+                : MessageFormat.format(Messages.getString("STR_REPAIR_RESULT"),
+                report.getChecked(), report.getSkipped(),
+                report.getOrphaned().size(), report.getMissing().size());
+        JOptionPane.showMessageDialog(this, message, Messages.getString("BTTN_REPAIR"),
+                JOptionPane.INFORMATION_MESSAGE);
     }
 
     private void updateSnippetsDir(File dir) {
@@ -162,6 +249,8 @@ public class SettingsPanel extends javax.swing.JPanel {
     }
 
     private javax.swing.JCheckBox checkboxMacWorkAround;
+    private javax.swing.JCheckBox checkboxPackedStore;
     private javax.swing.JComboBox<UIManager.LookAndFeelInfo> comboboxLAFChooser;
+    private javax.swing.JComboBox<String> comboboxMenuGrouping;
     private javax.swing.JTextField textfieldSnippetsDir;
 }
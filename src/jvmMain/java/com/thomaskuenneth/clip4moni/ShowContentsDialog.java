@@ -22,13 +22,14 @@ package com.thomaskuenneth.clip4moni;
 
 import java.awt.BorderLayout;
 import java.awt.event.ItemEvent;
-import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JOptionPane;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 
 /**
- * This dialog shows the contents of the clipboard.
+ * This dialog shows the contents of the clipboard, as it is or decoded (see
+ * {@link EscapeCodec}).
  *
  * @author thomas
  */
@@ -49,14 +50,26 @@ public class ShowContentsDialog extends AbstractDialog {
         textareaContents.setLineWrap(true);
         setPreferredSize(UIHelper.PREFERRED_SIZE);
         add(new JScrollPane(textareaContents), BorderLayout.CENTER);
-        // checkbox
-        final JCheckBox checkboxDecode = new JCheckBox(Messages.getString("CHECKBOX_DECODE"));
-        checkboxDecode.addItemListener((ItemEvent e) -> {
-            String s = checkboxDecode.isSelected() ? StringUtils.decode(contents) : contents;
+        // decoding; the first item shows the contents as they are
+        EscapeCodec.Scheme[] schemes = EscapeCodec.Scheme.values();
+        String[] items = new String[schemes.length + 1];
+        items[0] = Messages.getString("STR_AS_IS");
+        for (int i = 0; i < schemes.length; i++) {
+            items[i + 1] = Messages.getString("MI_DECODE_" + schemes[i].name());
+        }
+        final JComboBox<String> comboboxDecode = new JComboBox<>(items);
+        comboboxDecode.addItemListener((ItemEvent e) -> {
+            int index = comboboxDecode.getSelectedIndex();
+            String s;
+            try {
+                s = index > 0 ? EscapeCodec.decode(schemes[index - 1], contents) : contents;
+            } catch (IllegalArgumentException ex) {
+                s = ex.getMessage();
+            }
             textareaContents.setText(s);
+            textareaContents.setCaretPosition(0);
         });
-        add(checkboxDecode, BorderLayout.NORTH);
-        checkboxDecode.setSelected(false);
+        add(comboboxDecode, BorderLayout.NORTH);
     }
 
     @Override
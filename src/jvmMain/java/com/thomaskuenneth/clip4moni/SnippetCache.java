@@ -0,0 +1,135 @@
+/*
+ * SnippetCache.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class keeps the contents of recently used snippets in memory. The
+ * least recently used ones are evicted once the cached contents exceed a
+ * given number of bytes. Contents larger than a quarter of that budget are
+ * not cached at all.
+ *
+ * @author Thomas Kuenneth
+ */
+public class SnippetCache {
+
+    private final LinkedHashMap<String, String> contents;
+    private final long maxBytes;
+
+    private long bytes;
+    private long hits;
+    private long misses;
+    // incremented on every invalidation, so contents read before are not cached
+    private long generation;
+
+    public SnippetCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        contents = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Gets the contents of a snippet, reading it if it is not cached.
+     *
+     * @param name name of the snippet (the value of an {@link Entry})
+     * @return the contents or {@code null}
+     */
+    public String load(String name) {
+        if (name == null) {
+            return null;
+        }
+        long current;
+        synchronized (this) {
+            String text = contents.get(name);
+            if (text != null) {
+                hits += 1;
+                return text;
+            }
+            misses += 1;
+            current = generation;
+        }
+        String text = FileHelper.loadSnippet(name);
+        if (text != null) {
+            put(name, text, current);
+        }
+        return text;
+    }
+
+    public synchronized void invalidate(String name) {
+        generation += 1;
+        String text = contents.remove(name);
+        if (text != null) {
+            bytes -= sizeOf(text);
+        }
+    }
+
+    public synchronized void clear() {
+        generation += 1;
+        contents.clear();
+        bytes = 0;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d snippets, %d bytes, %d hits, %d misses",
+                contents.size(), bytes, hits, misses);
+    }
+
+    private synchronized void put(String name, String text, long expectedGeneration) {
+        long size = sizeOf(text);
+        if (size > maxBytes / 4 || generation != expectedGeneration) {
+            return;
+        }
+        String previous = contents.put(name, text);
+        if (previous != null) {
+            bytes -= sizeOf(previous);
+        }
+        bytes += size;
+        Iterator<Map.Entry<String, String>> it = contents.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, String> eldest = it.next();
+            bytes -= sizeOf(eldest.getValue());
+            it.remove();
+        }
+    }
+
+    /*
+     * Rough estimate of the heap used by a string: two bytes per char
+     * (strings may be stored more compactly) plus object overhead.
+     */
+    private static long sizeOf(String text) {
+        return 2L * text.length() + 64;
+    }
+}
@@ -0,0 +1,445 @@
+/*
+ * SnippetFinder.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class finds entries by their key and, optionally, by the contents of
+ * their snippets. Keys are indexed in memory with a {@link TrigramIndex};
+ * queries shorter than three characters scan all keys. Contents are indexed
+ * with a persistent {@link ContentIndex}. Results are ranked: exact
+ * matches first, then keys starting with the query, then keys with a word
+ * starting with it, then keys containing it, and finally entries whose
+ * contents match. Ties are broken by key length and position in the list.
+ * <p>
+ * The indexes are maintained on a background thread. {@link #sync(List)}
+ * must be called whenever the list of entries has changed, {@link
+ * #contentsChanged(String)} whenever a snippet has been saved or deleted,
+ * {@link #storeChanged()} whenever another instance may have changed the
+ * packed store. The content index is written some seconds after the last change. Changes
+ * not written are detected by {@link #openContentIndex()} at the next start.
+ *
+ * @author Thomas Kuenneth
+ */
+public class SnippetFinder {
+
+    private static final String TAG = SnippetFinder.class.getName();
+    private static final Logger LOGGER = Logger.getLogger(TAG);
+
+    // number of changes applied while holding the lock
+    private static final int BATCH_SIZE = 1024;
+    // delay before the content index is written
+    private static final long SAVE_DELAY = 5000;
+
+    private static final int RANK_EXACT = 0;
+    private static final int RANK_PREFIX = 1;
+    private static final int RANK_WORD = 2;
+    private static final int RANK_CONTAINS = 3;
+    private static final int RANK_CONTENTS = 4;
+
+    private final ScheduledExecutorService executor;
+    private final TrigramIndex keyIndex;
+    // only modified on the executor thread
+    private final Map<Entry, Integer> ids;
+    private final Map<String, Integer> idsByName;
+
+    private final AtomicBoolean validationPending;
+
+    private volatile ContentIndex contentIndex;
+    private ScheduledFuture<?> pendingSave;
+    private Entry[] docs;
+    private String[] keys;
+    private int[] positions;
+    private int[] freeIds;
+    private int freeCount;
+    private int nextId;
+
+    public SnippetFinder() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, TAG);
+            t.setDaemon(true);
+            return t;
+        });
+        keyIndex = new TrigramIndex();
+        ids = new IdentityHashMap<>();
+        idsByName = new HashMap<>();
+        docs = new Entry[16];
+        keys = new String[16];
+        positions = new int[16];
+        freeIds = new int[16];
+        validationPending = new AtomicBoolean();
+    }
+
+    /**
+     * Brings the index up-to-date with a list of entries in the background.
+     * Entries are matched by identity.
+     *
+     * @param entries snapshot of the entries
+     */
+    public void sync(List<Entry> entries) {
+        executor.execute(() -> doSync(entries));
+    }
+
+    /**
+     * Opens the content index of the current snippets directory in the
+     * background and indexes the snippets that have changed since it was
+     * written.
+     */
+    public void openContentIndex() {
+        executor.execute(() -> {
+            File file = Helper.getFileIndex();
+            ContentIndex index = contentIndex;
+            if (index == null || !index.getFile().equals(file)) {
+                if (index != null) {
+                    index.save();
+                    index.close();
+                }
+                index = ContentIndex.open(file);
+                contentIndex = index;
+            }
+            validate(index);
+        });
+    }
+
+    /**
+     * Indexes the snippets whose stamps differ from those in the content
+     * index in the background. Calls made while a check is pending are
+     * coalesced.
+     */
+    public void storeChanged() {
+        if (validationPending.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                validationPending.set(false);
+                ContentIndex index = contentIndex;
+                if (index != null) {
+                    validate(index);
+                }
+            });
+        }
+    }
+
+    /**
+     * Indexes the contents of a snippet again in the background, if it has
+     * been changed or deleted.
+     *
+     * @param name name of the snippet (the value of an {@link Entry})
+     */
+    public void contentsChanged(String name) {
+        executor.execute(() -> {
+            ContentIndex index = contentIndex;
+            if (index != null && FileHelper.getSnippetStamp(name) != index.getStamp(name)) {
+                reindex(index, name);
+                scheduleSave();
+            }
+        });
+    }
+
+    /**
+     * Finds entries.
+     *
+     * @param query    the text to search for
+     * @param contents whether to search contents, too
+     * @param limit    maximum number of results
+     * @return the ranked results
+     */
+    public List<Entry> search(String query, boolean contents, int limit) {
+        String q = query.trim().toLowerCase(Locale.ROOT);
+        if (q.isEmpty()) {
+            return new ArrayList<>();
+        }
+        ContentIndex index = contentIndex;
+        Set<String> names = contents && index != null ? index.search(query) : Set.of();
+        TopScores top = new TopScores(limit);
+        synchronized (this) {
+            int[] candidates = keyIndex.candidates(q);
+            if (candidates != null) {
+                for (int id : candidates) {
+                    int rank = rank(keys[id], q);
+                    if (rank >= 0) {
+                        top.add(score(rank, id));
+                    }
+                }
+            } else {
+                for (int id = 0; id < nextId; id++) {
+                    if (keys[id] != null) {
+                        int rank = rank(keys[id], q);
+                        if (rank >= 0) {
+                            top.add(score(rank, id));
+                        }
+                    }
+                }
+            }
+            for (String name : names) {
+                Integer id = idsByName.get(name);
+                // entries matched by key are already part of the result
+                if (id != null && rank(keys[id], q) < 0) {
+                    top.add(score(RANK_CONTENTS, id));
+                }
+            }
+            long[] scores = top.sorted();
+            List<Entry> result = new ArrayList<>(scores.length);
+            for (long score : scores) {
+                result.add(docs[(int) (score & 0xffffff)]);
+            }
+            return result;
+        }
+    }
+
+    private void doSync(List<Entry> entries) {
+        long start = System.currentTimeMillis();
+        Map<Entry, Integer> seen = new IdentityHashMap<>(entries.size());
+        List<Entry> changed = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            Entry e = entries.get(i);
+            seen.put(e, i);
+            Integer id = ids.get(e);
+            if (id == null || !normalizeKey(e.getKey()).equals(keys[id])) {
+                changed.add(e);
+            }
+        }
+        List<Entry> removed = new ArrayList<>();
+        for (Entry e : ids.keySet()) {
+            if (!seen.containsKey(e)) {
+                removed.add(e);
+            }
+        }
+        for (int i = 0; i < removed.size(); i += BATCH_SIZE) {
+            synchronized (this) {
+                for (Entry e : removed.subList(i, Math.min(removed.size(), i + BATCH_SIZE))) {
+                    remove(e);
+                }
+            }
+        }
+        for (int i = 0; i < changed.size(); i += BATCH_SIZE) {
+            synchronized (this) {
+                for (Entry e : changed.subList(i, Math.min(changed.size(), i + BATCH_SIZE))) {
+                    put(e);
+                }
+            }
+        }
+        synchronized (this) {
+            for (Map.Entry<Entry, Integer> e : seen.entrySet()) {
+                positions[ids.get(e.getKey())] = e.getValue();
+            }
+        }
+        LOGGER.log(Level.FINE, String.format("%d entries indexed, %d changed, %d removed in %d ms",
+                entries.size(), changed.size(), removed.size(), System.currentTimeMillis() - start));
+    }
+
+    private void put(Entry e) {
+        Integer id = ids.get(e);
+        if (id == null) {
+            id = freeCount > 0 ? freeIds[--freeCount] : nextId++;
+            ensureCapacity(nextId);
+            ids.put(e, id);
+            idsByName.put(e.getValue(), id);
+            docs[id] = e;
+        }
+        String key = normalizeKey(e.getKey());
+        if (!key.equals(keys[id])) {
+            keys[id] = key;
+            keyIndex.add(id, key);
+        }
+    }
+
+    private void remove(Entry e) {
+        Integer id = ids.remove(e);
+        if (id != null) {
+            keyIndex.remove(id);
+            idsByName.remove(e.getValue(), id);
+            docs[id] = null;
+            keys[id] = null;
+            if (freeCount == freeIds.length) {
+                freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+            }
+            freeIds[freeCount++] = id;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > docs.length) {
+            int length = Math.max(capacity, docs.length * 2);
+            docs = Arrays.copyOf(docs, length);
+            keys = Arrays.copyOf(keys, length);
+            positions = Arrays.copyOf(positions, length);
+        }
+    }
+
+    /*
+     * Ranks are stored in the highest bits, followed by the length of the
+     * key, the position in the list and the id (24 bits each).
+     */
+    private long score(int rank, int id) {
+        long length = Math.min(keys[id].length(), 0x3ff);
+        long position = Math.min(positions[id], 0xffffff);
+        return (long) rank << 58 | length << 48 | position << 24 | id;
+    }
+
+    /*
+     * Returns the rank of a key, or -1 if it does not contain the query.
+     */
+    private static int rank(String key, String query) {
+        int pos = key.indexOf(query);
+        if (pos < 0) {
+            return -1;
+        } else if (pos == 0) {
+            return key.length() == query.length() ? RANK_EXACT : RANK_PREFIX;
+        }
+        while (pos > 0) {
+            if (!Character.isLetterOrDigit(key.charAt(pos - 1))) {
+                return RANK_WORD;
+            }
+            pos = key.indexOf(query, pos + 1);
+        }
+        return RANK_CONTAINS;
+    }
+
+    private static String normalizeKey(String key) {
+        return key != null ? key.toLowerCase(Locale.ROOT) : "";
+    }
+
+    /*
+     * Runs on the executor thread.
+     */
+    private void validate(ContentIndex index) {
+        long start = System.currentTimeMillis();
+        List<String> changed = index.validate(FileHelper.getSnippetStamps());
+        for (String name : changed) {
+            reindex(index, name);
+        }
+        if (!changed.isEmpty()) {
+            LOGGER.log(Level.INFO, String.format("contents of %d snippets indexed in %d ms",
+                    changed.size(), System.currentTimeMillis() - start));
+        }
+        // snippets that no longer exist have been removed, too
+        if (index.isDirty()) {
+            scheduleSave();
+        }
+    }
+
+    /*
+     * Runs on the executor thread.
+     */
+    private void reindex(ContentIndex index, String name) {
+        long stamp = FileHelper.getSnippetStamp(name);
+        String contents = stamp >= 0 ? FileHelper.loadSnippet(name) : null;
+        if (contents != null) {
+            index.update(name, stamp, contents);
+        } else {
+            index.remove(name);
+        }
+    }
+
+    private void scheduleSave() {
+        if (pendingSave != null) {
+            pendingSave.cancel(false);
+        }
+        pendingSave = executor.schedule(() -> {
+            ContentIndex index = contentIndex;
+            if (index != null) {
+                index.save();
+            }
+        }, SAVE_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Keeps the lowest scores seen in a max-heap, so only the best results
+     * need to be sorted.
+     */
+    private static class TopScores {
+
+        private final long[] heap;
+        private int size;
+
+        TopScores(int limit) {
+            heap = new long[Math.max(limit, 0)];
+        }
+
+        void add(long score) {
+            if (size < heap.length) {
+                heap[size] = score;
+                siftUp(size++);
+            } else if (size > 0 && score < heap[0]) {
+                heap[0] = score;
+                siftDown();
+            }
+        }
+
+        long[] sorted() {
+            long[] result = Arrays.copyOf(heap, size);
+            Arrays.sort(result);
+            return result;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (heap[parent] >= heap[i]) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown() {
+            int i = 0;
+            while (true) {
+                int largest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && heap[left] > heap[largest]) {
+                    largest = left;
+                }
+                if (right < size && heap[right] > heap[largest]) {
+                    largest = right;
+                }
+                if (largest == i) {
+                    return;
+                }
+                swap(i, largest);
+                i = largest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            long tmp = heap[i];
+            heap[i] = heap[j];
+            heap[j] = tmp;
+        }
+    }
+}
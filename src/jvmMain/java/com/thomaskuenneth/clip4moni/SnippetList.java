@@ -0,0 +1,272 @@
+/*
+ * SnippetList.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class reads and writes the list of entries (Clip4Moni.list).
+ * <p>
+ * The list is stored in a versioned binary format: a header ('C', '4', 'M',
+ * 'L', version), the number of entries, and for each entry the key and the
+ * value (length-prefixed UTF-8), the size of the contents plus one (0 means
+ * unknown), the content type (1 byte) and a CRC32 checksum of the contents
+ * (4 bytes). Lengths and numbers are unsigned LEB128 varints.
+ * <p>
+ * Lists in the old text format ({@code len|key|value}, one per line) are
+ * read, too, and converted to the binary format right away.
+ * <p>
+ * A list that cannot be read is left untouched: saving it is refused until
+ * it has been read successfully, so that its entries are not overwritten.
+ *
+ * @author Thomas Kuenneth
+ */
+public class SnippetList {
+
+    private static final String TAG = SnippetList.class.getName();
+    private static final Logger LOGGER = Logger.getLogger(TAG);
+
+    private static final byte[] HEADER = {'C', '4', 'M', 'L'};
+    private static final byte VERSION = 1;
+
+    // smallest encoded entry: two empty strings, size, type and checksum
+    private static final int MIN_ENTRY_LENGTH = 8;
+
+    private static final Set<File> UNREADABLE = ConcurrentHashMap.newKeySet();
+
+    private SnippetList() {
+    }
+
+    /**
+     * Reads a list of entries. A list in the old text format is upgraded.
+     *
+     * If the file cannot be read, or is truncated or corrupt, it is left as it
+     * is and {@link #save(File, List)} refuses to overwrite it until it has
+     * been read successfully.
+     *
+     * @param f the file
+     * @return the entries; empty if the file does not exist
+     * @throws IOException if the file cannot be read or is not a valid list
+     */
+    public static List<Entry> load(File f) throws IOException {
+        File key = f.getAbsoluteFile();
+        ByteBuffer buf;
+        try {
+            buf = FileHelper.loadBytes(f);
+        } catch (NoSuchFileException e) {
+            UNREADABLE.remove(key);
+            return new ArrayList<>();
+        } catch (IOException e) {
+            UNREADABLE.add(key);
+            throw e;
+        }
+        if (isBinary(buf)) {
+            try {
+                List<Entry> entries = parse(buf);
+                UNREADABLE.remove(key);
+                return entries;
+            } catch (IOException e) {
+                UNREADABLE.add(key);
+                throw new IOException(String.format("%s: %s", f.getAbsolutePath(), e.getMessage()), e);
+            }
+        }
+        UNREADABLE.remove(key);
+        List<Entry> entries = parseText(buf);
+        if (!entries.isEmpty()) {
+            LOGGER.log(Level.INFO, String.format("converting %s to binary format", f.getAbsolutePath()));
+            save(f, entries);
+        }
+        return entries;
+    }
+
+    /**
+     * Saves a list of entries in the background. Nothing is saved if the
+     * last attempt to read the file failed.
+     *
+     * @param f       the file
+     * @param entries the entries
+     * @return false if the file has not been read successfully
+     */
+    public static boolean save(File f, List<Entry> entries) {
+        if (UNREADABLE.contains(f.getAbsoluteFile())) {
+            LOGGER.log(Level.SEVERE, String.format("not overwriting unreadable list %s", f.getAbsolutePath()));
+            return false;
+        }
+        FileHelper.saveBytesLater(f, encode(entries));
+        return true;
+    }
+
+    public static byte[] encode(List<Entry> entries) {
+        int count = entries.size();
+        byte[][] keys = new byte[count][];
+        byte[][] values = new byte[count][];
+        int total = HEADER.length + 1 + varintLength(count);
+        for (int i = 0; i < count; i++) {
+            Entry e = entries.get(i);
+            keys[i] = e.getKey().getBytes(StandardCharsets.UTF_8);
+            values[i] = e.getValue().getBytes(StandardCharsets.UTF_8);
+            total += varintLength(keys[i].length) + keys[i].length
+                    + varintLength(values[i].length) + values[i].length
+                    + varintLength(e.getSize() + 1) + 1 + 4;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(total);
+        buf.put(HEADER);
+        buf.put(VERSION);
+        putVarint(buf, count);
+        for (int i = 0; i < count; i++) {
+            Entry e = entries.get(i);
+            putVarint(buf, keys[i].length);
+            buf.put(keys[i]);
+            putVarint(buf, values[i].length);
+            buf.put(values[i]);
+            putVarint(buf, e.getSize() + 1);
+            buf.put((byte) e.getContentType());
+            buf.putInt(e.getChecksum());
+        }
+        return buf.array();
+    }
+
+    private static boolean isBinary(ByteBuffer buf) {
+        if (buf.remaining() <= HEADER.length) {
+            return false;
+        }
+        int pos = buf.position();
+        for (int i = 0; i < HEADER.length; i++) {
+            if (buf.get(pos + i) != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Reads the entries with absolute gets, so strings are only created for
+     * keys and values, directly from the buffer.
+     */
+    private static List<Entry> parse(ByteBuffer buf) throws IOException {
+        int[] pos = {buf.position() + HEADER.length};
+        int version = buf.get(pos[0]++);
+        if (version != VERSION) {
+            throw new IOException(String.format("unsupported list version %d", version));
+        }
+        List<Entry> entries = new ArrayList<>();
+        try {
+            long count = getVarint(buf, pos);
+            if (count < 0 || count > (buf.limit() - pos[0]) / MIN_ENTRY_LENGTH) {
+                throw new IOException(String.format("invalid number of entries %d", count));
+            }
+            entries = new ArrayList<>((int) count);
+            for (int i = 0; i < count; i++) {
+                String key = getString(buf, pos);
+                String value = getString(buf, pos);
+                Entry e = new Entry(key, value);
+                long size = getVarint(buf, pos) - 1;
+                int contentType = buf.get(pos[0]);
+                int checksum = buf.getInt(pos[0] + 1);
+                pos[0] += 5;
+                e.setMetadata(size, contentType, checksum);
+                entries.add(e);
+            }
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException(String.format("list is truncated after %d entries", entries.size()), e);
+        }
+        if (pos[0] != buf.limit()) {
+            throw new IOException(String.format("%d bytes after the last entry", buf.limit() - pos[0]));
+        }
+        return entries;
+    }
+
+    private static List<Entry> parseText(ByteBuffer buf) {
+        Charset cs = FileHelper.skipMagic(buf);
+        String data = FileHelper.decode(buf, cs);
+        List<Entry> entries = new ArrayList<>();
+        int start = 0;
+        int length = data.length();
+        while (start < length) {
+            int end = data.indexOf('\n', start);
+            if (end < 0) {
+                end = length;
+            }
+            String line = data.substring(start, end).trim();
+            if (!line.isEmpty()) {
+                Entry e = Entry.createEntry(line);
+                if (e.getKey() != null) {
+                    entries.add(e);
+                }
+            }
+            start = end + 1;
+        }
+        return entries;
+    }
+
+    static String getString(ByteBuffer buf, int[] pos) {
+        int length = (int) getVarint(buf, pos);
+        int offset = pos[0];
+        if (length < 0 || length > buf.limit() - offset) {
+            throw new IndexOutOfBoundsException();
+        }
+        pos[0] += length;
+        if (buf.hasArray()) {
+            return new String(buf.array(), buf.arrayOffset() + offset, length, StandardCharsets.UTF_8);
+        }
+        return StandardCharsets.UTF_8.decode(buf.slice(offset, length)).toString();
+    }
+
+    static long getVarint(ByteBuffer buf, int[] pos) {
+        long result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buf.get(pos[0]++);
+            result |= (long) (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0 && shift < 64);
+        return result;
+    }
+
+    private static void putVarint(ByteBuffer buf, long value) {
+        while ((value & ~0x7fL) != 0) {
+            buf.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buf.put((byte) value);
+    }
+
+    private static int varintLength(long value) {
+        int length = 1;
+        while ((value & ~0x7fL) != 0) {
+            value >>>= 7;
+            length += 1;
+        }
+        return length;
+    }
+}
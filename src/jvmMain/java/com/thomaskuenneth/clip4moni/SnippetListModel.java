@@ -0,0 +1,254 @@
+/*
+ * SnippetListModel.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import javax.swing.DefaultListModel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * This list model holds the entries shown in the menu and in the
+ * <em>Edit entries</em> dialog. It can be brought up-to-date with a newly
+ * read list by applying only the differences; listeners are then notified
+ * once, with at most two events covering the changed range.
+ *
+ * @author Thomas Kuenneth
+ */
+public class SnippetListModel extends DefaultListModel<Entry> {
+
+    // after this many moves the remaining entries are simply replaced
+    private static final int MAX_MOVES = 64;
+
+    // while update() runs, events are not fired but collected here
+    private boolean batching = false;
+    private boolean touched;
+    // the lowest changed index
+    private int low;
+    // the number of entries at the end that have not been touched
+    private int tail;
+
+    /**
+     * Makes this model equal to a list of entries. Entries are matched by
+     * their value (the name of the snippet). Matching entries are kept and
+     * only their key and metadata are updated. Listeners receive one batch:
+     * the range from the first to the last entry that has actually been
+     * inserted, removed, moved or renamed is reported as changed, and the
+     * difference in size as added or removed at its end. Must be called on
+     * the event dispatch thread.
+     *
+     * @param entries the new list of entries
+     * @return true if the model has been changed
+     */
+    public boolean update(List<Entry> entries) {
+        int oldSize = size();
+        batching = true;
+        touched = false;
+        low = oldSize;
+        tail = oldSize;
+        try {
+            return merge(entries);
+        } finally {
+            batching = false;
+            fireBatch(oldSize);
+        }
+    }
+
+    private boolean merge(List<Entry> entries) {
+        boolean changed = false;
+        Map<String, Entry> wanted = new HashMap<>();
+        for (Entry e : entries) {
+            wanted.putIfAbsent(e.getValue(), e);
+        }
+        // remove entries no longer present (and duplicates)
+        Set<String> seen = new HashSet<>();
+        for (int i = size() - 1; i >= 0; i--) {
+            String value = getElementAt(i).getValue();
+            if (!wanted.containsKey(value)) {
+                remove(i);
+                changed = true;
+            }
+        }
+        for (int i = 0; i < size(); i++) {
+            if (!seen.add(getElementAt(i).getValue())) {
+                remove(i--);
+                changed = true;
+            }
+        }
+        int moves = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            Entry e = entries.get(i);
+            String value = e.getValue();
+            if (i < size() && value.equals(getElementAt(i).getValue())) {
+                changed |= updateEntry(i, e);
+            } else if (!seen.contains(value)) {
+                insertElementAt(e, i);
+                seen.add(value);
+                changed = true;
+            } else if (moves < MAX_MOVES) {
+                int j = indexOf(value, i + 1);
+                if (j < 0) {
+                    // the same snippet is listed more than once
+                    insertElementAt(e, i);
+                    changed = true;
+                    continue;
+                }
+                Entry current = getElementAt(j);
+                remove(j);
+                insertElementAt(current, i);
+                updateEntry(i, e);
+                moves += 1;
+                changed = true;
+            } else {
+                replaceFrom(i, entries);
+                return true;
+            }
+        }
+        if (size() > entries.size()) {
+            removeRange(entries.size(), size() - 1);
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Gets a snapshot of the entries.
+     *
+     * @return the entries
+     */
+    public List<Entry> getEntries() {
+        List<Entry> entries = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            entries.add(getElementAt(i));
+        }
+        return entries;
+    }
+
+    @Override
+    protected void fireContentsChanged(Object source, int index0, int index1) {
+        if (batching) {
+            collect(Math.min(index0, index1), size() - Math.max(index0, index1) - 1);
+        } else {
+            super.fireContentsChanged(source, index0, index1);
+        }
+    }
+
+    @Override
+    protected void fireIntervalAdded(Object source, int index0, int index1) {
+        if (batching) {
+            collect(Math.min(index0, index1), size() - Math.max(index0, index1) - 1);
+        } else {
+            super.fireIntervalAdded(source, index0, index1);
+        }
+    }
+
+    @Override
+    protected void fireIntervalRemoved(Object source, int index0, int index1) {
+        if (batching) {
+            // the entries behind the removed ones now start at index0
+            collect(Math.min(index0, index1), size() - Math.min(index0, index1));
+        } else {
+            super.fireIntervalRemoved(source, index0, index1);
+        }
+    }
+
+    private void collect(int index, int untouched) {
+        touched = true;
+        low = Math.min(low, index);
+        tail = Math.min(tail, untouched);
+    }
+
+    /*
+     * The range [low, oldSize - tail) has become [low, size() - tail).
+     */
+    private void fireBatch(int oldSize) {
+        if (!touched) {
+            return;
+        }
+        int oldLength = oldSize - tail - low;
+        int newLength = size() - tail - low;
+        int common = Math.min(oldLength, newLength);
+        if (common > 0) {
+            super.fireContentsChanged(this, low, low + common - 1);
+        }
+        if (newLength > common) {
+            super.fireIntervalAdded(this, low + common, low + newLength - 1);
+        } else if (oldLength > common) {
+            super.fireIntervalRemoved(this, low + common, low + oldLength - 1);
+        }
+    }
+
+    private boolean updateEntry(int index, Entry e) {
+        Entry current = getElementAt(index);
+        if (current == e) {
+            return false;
+        }
+        current.setMetadata(e.getSize(), e.getContentType(), e.getChecksum());
+        if (!Objects.equals(current.getKey(), e.getKey())) {
+            current.setKey(e.getKey());
+            set(index, current);
+            return true;
+        }
+        return false;
+    }
+
+    private int indexOf(String value, int from) {
+        for (int i = from; i < size(); i++) {
+            if (value.equals(getElementAt(i).getValue())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Used for large reorderings: replaces everything from index on, reusing
+     * the existing entry objects where possible.
+     */
+    private void replaceFrom(int index, List<Entry> entries) {
+        Map<String, Entry> current = new HashMap<>();
+        for (int i = 0; i < size(); i++) {
+            Entry e = getElementAt(i);
+            current.put(e.getValue(), e);
+        }
+        for (int i = index; i < entries.size(); i++) {
+            Entry e = entries.get(i);
+            Entry existing = current.get(e.getValue());
+            if (existing != null) {
+                existing.setKey(e.getKey());
+                existing.setMetadata(e.getSize(), e.getContentType(), e.getChecksum());
+                e = existing;
+            }
+            if (i < size()) {
+                set(i, e);
+            } else {
+                addElement(e);
+            }
+        }
+        if (size() > entries.size()) {
+            removeRange(entries.size(), size() - 1);
+        }
+    }
+}
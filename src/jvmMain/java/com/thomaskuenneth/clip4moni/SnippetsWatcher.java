@@ -0,0 +1,172 @@
+/*
+ * SnippetsWatcher.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class watches the snippets directory. Changes of the list of entries
+ * are coalesced: a reload is performed once no further change has been
+ * reported for a quiet period. A reload scheduled earlier is dropped if a
+ * newer one is pending. Changes of other files (snippets, the packed store)
+ * are coalesced per file name in the same way.
+ *
+ * @author Thomas Kuenneth
+ */
+public class SnippetsWatcher {
+
+    private static final String TAG = SnippetsWatcher.class.getName();
+    private static final Logger LOGGER = Logger.getLogger(TAG);
+
+    private final Runnable reload;
+    private final Consumer<String> fileChanged;
+    private final ScheduledExecutorService executor;
+    private final AtomicLong eventsReceived;
+    private final AtomicLong reloadsPerformed;
+    private final AtomicLong generation;
+
+    private ScheduledFuture<?> pending;
+    // by file name
+    private final Map<String, ScheduledFuture<?>> pendingFiles;
+
+    /**
+     * Creates a watcher.
+     *
+     * @param reload      invoked on a background thread when the list of entries has changed
+     * @param fileChanged invoked on a background thread with the name of any other file that has changed
+     */
+    public SnippetsWatcher(Runnable reload, Consumer<String> fileChanged) {
+        this.reload = reload;
+        this.fileChanged = fileChanged;
+        eventsReceived = new AtomicLong();
+        reloadsPerformed = new AtomicLong();
+        generation = new AtomicLong();
+        pendingFiles = new HashMap<>();
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, TAG);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Starts watching the snippets directory on a daemon thread.
+     */
+    public void start() {
+        Thread t = new Thread(this::watch, TAG);
+        t.setDaemon(true);
+        t.start();
+    }
+
+    public long getEventsReceived() {
+        return eventsReceived.get();
+    }
+
+    public long getReloadsPerformed() {
+        return reloadsPerformed.get();
+    }
+
+    private void watch() {
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            Path path = Helper.getSnippetsDir().toPath();
+            path.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    Object context = event.context();
+                    if (context == null) {
+                        // OVERFLOW: events have been lost
+                        scheduleReload();
+                        continue;
+                    }
+                    String name = context.toString();
+                    if (Helper.LISTNAME.equals(name)) {
+                        scheduleReload();
+                    } else {
+                        scheduleFileChanged(name);
+                    }
+                }
+                if (!key.reset()) {
+                    break;
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            LOGGER.log(Level.SEVERE, "watch()", e);
+        }
+    }
+
+    private synchronized void scheduleReload() {
+        eventsReceived.incrementAndGet();
+        long current = generation.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = executor.schedule(() -> {
+            // a newer change has been reported in the meantime
+            if (current != generation.get()) {
+                return;
+            }
+            reloadsPerformed.incrementAndGet();
+            LOGGER.log(Level.FINE, String.format("reloading, %d events received, %d reloads performed",
+                    eventsReceived.get(), reloadsPerformed.get()));
+            reload.run();
+        }, Helper.getWatchQuietPeriod(), TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void scheduleFileChanged(String name) {
+        ScheduledFuture<?> old = pendingFiles.get(name);
+        if (old != null) {
+            old.cancel(false);
+        }
+        AtomicReference<ScheduledFuture<?>> self = new AtomicReference<>();
+        ScheduledFuture<?> f = executor.schedule(() -> {
+            synchronized (this) {
+                // a newer change of this file has been reported in the meantime
+                if (!pendingFiles.remove(name, self.get())) {
+                    return;
+                }
+            }
+            fileChanged.accept(name);
+        }, Helper.getWatchQuietPeriod(), TimeUnit.MILLISECONDS);
+        self.set(f);
+        pendingFiles.put(name, f);
+    }
+}
@@ -20,9 +20,6 @@
  */
 package com.thomaskuenneth.clip4moni;
 
-import java.util.logging.Level;
-import java.util.logging.Logger;
-
 /**
  * This class contains static string utility methods.
  *
@@ -30,47 +27,16 @@ import java.util.logging.Logger;
  */
 public final class StringUtils {
 
-    private static final String CLASSNAME = StringUtils.class.getName();
-    private static final Logger LOGGER = Logger.getLogger(CLASSNAME);
     public static final String EMPTY = "";
 
+    /**
+     * Decodes Java escapes (see {@link EscapeCodec.Scheme#JAVA}).
+     *
+     * @param s the text
+     * @return the decoded text
+     */
     public static String decode(String s) {
-        StringBuilder sb = new StringBuilder();
-        int length = s.length();
-        int i = 0;
-        while (i < length) {
-            char ch = s.charAt(i);
-            i += 1;
-            if (ch == '\\') {
-                if ((i) == length) {
-                    sb.append(ch);
-                    continue;
-                }
-                ch = s.charAt(i);
-                i += 1;
-                switch (ch) {
-                    case 'u', 'U' -> {
-                        int end = i + 4;
-                        if (end > length) {
-                            sb.append(ch);
-                        } else {
-                            String val = s.substring(i, end);
-                            try {
-                                ch = (char) Long.parseLong(val, 16);
-                                sb.append(ch);
-                                i = end;
-                            } catch (NumberFormatException e) {
-                                LOGGER.log(Level.SEVERE, "decode()", e);
-                            }
-                        }
-                    }
-                    case '\\' -> sb.append(ch);
-                }
-            } else {
-                sb.append(ch);
-            }
-        }
-        return sb.toString();
+        return EscapeCodec.decode(EscapeCodec.Scheme.JAVA, s);
     }
 
     private StringUtils() {
@@ -0,0 +1,69 @@
+/*
+ * TextTransform.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * A transformation of text that reads its input from a {@link Reader} and
+ * writes the result to a {@link Writer}, so that it does not need to hold
+ * the whole text in memory.
+ *
+ * @author Thomas Kuenneth
+ */
+public interface TextTransform {
+
+    /**
+     * Size of the chunks transforms read their input in.
+     */
+    int CHUNK_SIZE = 8192;
+
+    /**
+     * Transforms text. Neither the reader nor the writer is closed.
+     *
+     * @param in  the input
+     * @param out receives the result
+     * @throws IOException if reading or writing fails
+     */
+    void transform(Reader in, Writer out) throws IOException;
+
+    /**
+     * Transforms a string.
+     *
+     * @param in the input
+     * @return the result
+     */
+    default String apply(String in) {
+        StringWriter out = new StringWriter(in.length());
+        try {
+            transform(new StringReader(in), out);
+        } catch (IOException e) {
+            // StringReader and StringWriter do not throw
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+}
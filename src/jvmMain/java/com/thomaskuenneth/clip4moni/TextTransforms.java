@@ -0,0 +1,130 @@
+/*
+ * TextTransforms.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+/**
+ * This class creates the streaming transforms offered in the clipboard menu.
+ * Each call returns a new instance, as some filters keep per-line state.
+ *
+ * @author Thomas Kuenneth
+ */
+public final class TextTransforms {
+
+    private TextTransforms() {
+    }
+
+    public static TextTransform removeBlanks() {
+        return new CharTransform((src, off, len, dst) -> {
+            int end = off + len;
+            for (int i = off; i < end; i++) {
+                int blank = CharKernels.indexOf(src, ' ', i, end);
+                dst.append(src, i, blank - i);
+                i = blank;
+            }
+        });
+    }
+
+    public static TextTransform removeSemivowels() {
+        return new LineTransform(Transliterator.german()::newFilter, true);
+    }
+
+    public static TextTransform convertTabToSpace() {
+        return new LineTransform((src, off, len, dst) -> {
+            for (int i = off; i < off + len; i++) {
+                if (src[i] == '\t') {
+                    dst.append("  ");
+                } else {
+                    dst.append(src[i]);
+                }
+            }
+        }, true);
+    }
+
+    /**
+     * Replaces letters with diacritics and typographic characters by ASCII
+     * (see {@link Transliterator#ascii()}). Line terminators are kept.
+     *
+     * @return the transform
+     */
+    public static TextTransform transliterate() {
+        return new CharTransform(Transliterator.ascii()::newFilter);
+    }
+
+    /**
+     * Removes empty lines; the remaining lines are separated by '\n'.
+     *
+     * @return the transform
+     */
+    public static TextTransform removeCrLf() {
+        return new LineTransform((src, off, len, dst) -> dst.append(src, off, len), false);
+    }
+
+    /**
+     * Replaces German semivowels and keeps only letters, digits, blanks, '.'
+     * and '-'. Lines that end up empty are removed.
+     *
+     * @return the transform
+     */
+    public static TextTransform removeSpecials() {
+        return new LineTransform(Transliterator.specials()::newFilter, false);
+    }
+
+    /**
+     * Removes everything before the first letter of each line. Lines
+     * without letters are kept as they are.
+     *
+     * @return the transform
+     */
+    public static TextTransform stripNumbers() {
+        return new LineTransform(() -> new CharFilter() {
+
+            // characters before the first letter of the current line
+            private final StringBuilder held = new StringBuilder();
+            private boolean letterFound;
+
+            @Override
+            public void filter(char[] src, int off, int len, StringBuilder dst) {
+                int start = off;
+                if (!letterFound) {
+                    while (start < off + len && !Character.isLetter(src[start])) {
+                        start += 1;
+                    }
+                    if (start == off + len) {
+                        held.append(src, off, len);
+                        return;
+                    }
+                    held.setLength(0);
+                    letterFound = true;
+                }
+                dst.append(src, start, off + len - start);
+            }
+
+            @Override
+            public void endLine(StringBuilder dst) {
+                if (!letterFound) {
+                    dst.append(held);
+                }
+                held.setLength(0);
+                letterFound = false;
+            }
+        }, true);
+    }
+}
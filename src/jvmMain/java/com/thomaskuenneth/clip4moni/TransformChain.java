@@ -0,0 +1,154 @@
+/*
+ * TransformChain.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A named sequence of plugins that is run as one operation. Consecutive
+ * plugins that implement {@link FusableTransform} are run in a single pass
+ * through a {@link TransformPipeline}; other plugins get the text as a
+ * string.
+ * <p>
+ * Chains are stored in {@link Helper#CHAINSNAME}, one per line, as
+ * {@code name=id1,id2,...}. Lines starting with '#' are ignored.
+ *
+ * @author Thomas Kuenneth
+ */
+public class TransformChain implements TransformProvider {
+
+    private static final String CLASSNAME = TransformChain.class.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASSNAME);
+
+    public static final String ID_PREFIX = "chain:";
+
+    private final String name;
+    private final List<String> ids;
+
+    public TransformChain(String name, List<String> ids) {
+        this.name = name;
+        this.ids = List.copyOf(ids);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getId() {
+        return ID_PREFIX + name;
+    }
+
+    public List<String> getIds() {
+        return ids;
+    }
+
+    @Override
+    public String transform(String in) {
+        String current = in;
+        List<FusableTransform> pending = new ArrayList<>();
+        for (String id : ids) {
+            TextTransform t = PluginManager.getTransform(id);
+            if (t instanceof FusableTransform) {
+                pending.add((FusableTransform) t);
+                continue;
+            }
+            current = run(pending, current);
+            pending.clear();
+            current = PluginManager.callPlugin(id, current);
+            if (current == null) {
+                LOGGER.log(Level.INFO, "chain {0} stopped at {1}", new Object[]{name, id});
+                return null;
+            }
+        }
+        return run(pending, current);
+    }
+
+    /**
+     * Gets a pipeline of all plugins of this chain if all of them are
+     * fusable.
+     *
+     * @return the pipeline or {@code null}
+     */
+    @Override
+    public TextTransform getTextTransform() {
+        List<FusableTransform> stages = new ArrayList<>();
+        for (String id : ids) {
+            TextTransform t = PluginManager.getTransform(id);
+            if (!(t instanceof FusableTransform)) {
+                return null;
+            }
+            stages.add((FusableTransform) t);
+        }
+        return new TransformPipeline(stages);
+    }
+
+    private static String run(List<FusableTransform> stages, String in) {
+        switch (stages.size()) {
+            case 0:
+                return in;
+            case 1:
+                return stages.get(0).apply(in);
+            default:
+                return new TransformPipeline(stages).apply(in);
+        }
+    }
+
+    /**
+     * Parses chains, for example the contents of {@link Helper#CHAINSNAME}.
+     * Malformed lines are skipped; chains must not contain other chains.
+     * Unknown plugin ids are not checked here (see
+     * {@link PluginManager#checkChains(String, List)}).
+     *
+     * @param data    the lines
+     * @param invalid receives the malformed lines
+     * @return the chains
+     */
+    public static List<TransformChain> parse(String data, List<String> invalid) {
+        List<TransformChain> chains = new ArrayList<>();
+        for (String line : data.split("\n")) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int pos = line.lastIndexOf('=');
+            String chainName = pos > 0 ? line.substring(0, pos).trim() : StringUtils.EMPTY;
+            List<String> chainIds = new ArrayList<>();
+            if (pos > 0) {
+                Arrays.stream(line.substring(pos + 1).split(","))
+                        .map(String::trim)
+                        .filter(id -> !id.isEmpty())
+                        .forEach(chainIds::add);
+            }
+            if (chainName.isEmpty() || chainIds.isEmpty()
+                    || chainIds.stream().anyMatch(id -> id.startsWith(ID_PREFIX))) {
+                LOGGER.log(Level.WARNING, "invalid chain: {0}", line);
+                invalid.add(line);
+            } else {
+                chains.add(new TransformChain(chainName, chainIds));
+            }
+        }
+        return chains;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * TransformInfo.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Describes a {@link TransformProvider}.
+ *
+ * @author Thomas Kuenneth
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface TransformInfo {
+
+    /**
+     * A stable identifier; it is used as the action command of menu items
+     * and must not change between versions.
+     *
+     * @return the identifier
+     */
+    String id();
+
+    /**
+     * The text of the menu item.
+     *
+     * @return the label
+     */
+    String label();
+
+    /**
+     * Items with the same group are shown in a submenu with this label.
+     *
+     * @return the label of the submenu; empty if the item is not grouped
+     */
+    String group() default "";
+}
@@ -0,0 +1,172 @@
+/*
+ * TransformInfoReader.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class reads the {@link TransformInfo} annotation from a class file
+ * without loading the class, so plugins in jars can be listed without
+ * running any of their code. Only the string values of the annotation are
+ * returned; values not given in the class file (defaults) are missing.
+ *
+ * @author Thomas Kuenneth
+ */
+final class TransformInfoReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final String DESCRIPTOR = "L" + TransformInfo.class.getName().replace('.', '/') + ";";
+    private static final String ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+    private final DataInputStream in;
+    private String[] strings;
+
+    private TransformInfoReader(InputStream in) {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+    }
+
+    /**
+     * Reads the annotation from a class file.
+     *
+     * @param in the class file; not closed
+     * @return the values by element name or {@code null} if the class is not annotated
+     * @throws IOException if the class file cannot be read or is malformed
+     */
+    static Map<String, String> read(InputStream in) throws IOException {
+        return new TransformInfoReader(in).read();
+    }
+
+    private Map<String, String> read() throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a class file");
+        }
+        // minor and major version
+        in.skipNBytes(4);
+        readConstantPool();
+        // access flags, this class, super class
+        in.skipNBytes(6);
+        in.skipNBytes(2L * in.readUnsignedShort());
+        skipMembers();
+        skipMembers();
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            String name = getString(in.readUnsignedShort());
+            long length = in.readInt() & 0xffffffffL;
+            if (ANNOTATIONS.equals(name)) {
+                int annotations = in.readUnsignedShort();
+                for (int j = 0; j < annotations; j++) {
+                    Map<String, String> values = readAnnotation();
+                    if (values != null) {
+                        return values;
+                    }
+                }
+                return null;
+            }
+            in.skipNBytes(length);
+        }
+        return null;
+    }
+
+    /*
+     * Keeps the UTF-8 constants; all others are skipped.
+     */
+    private void readConstantPool() throws IOException {
+        int count = in.readUnsignedShort();
+        strings = new String[count];
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1 -> strings[i] = in.readUTF();
+                case 7, 8, 16, 19, 20 -> in.skipNBytes(2);
+                case 15 -> in.skipNBytes(3);
+                case 3, 4, 9, 10, 11, 12, 17, 18 -> in.skipNBytes(4);
+                case 5, 6 -> {
+                    // takes two entries
+                    in.skipNBytes(8);
+                    i += 1;
+                }
+                default -> throw new IOException(String.format("unknown constant pool tag %d", tag));
+            }
+        }
+    }
+
+    /*
+     * Skips the fields or the methods.
+     */
+    private void skipMembers() throws IOException {
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            // access flags, name, descriptor
+            in.skipNBytes(6);
+            int attributes = in.readUnsignedShort();
+            for (int j = 0; j < attributes; j++) {
+                in.skipNBytes(2);
+                in.skipNBytes(in.readInt() & 0xffffffffL);
+            }
+        }
+    }
+
+    /*
+     * Returns the string values if this is a TransformInfo annotation.
+     */
+    private Map<String, String> readAnnotation() throws IOException {
+        String type = getString(in.readUnsignedShort());
+        Map<String, String> values = new HashMap<>();
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            String name = getString(in.readUnsignedShort());
+            int tag = in.readUnsignedByte();
+            if (tag == 's') {
+                values.put(name, getString(in.readUnsignedShort()));
+            } else {
+                skipElementValue(tag);
+            }
+        }
+        return DESCRIPTOR.equals(type) ? values : null;
+    }
+
+    private void skipElementValue(int tag) throws IOException {
+        switch (tag) {
+            case 'B', 'C', 'D', 'F', 'I', 'J', 'S', 'Z', 's', 'c' -> in.skipNBytes(2);
+            case 'e' -> in.skipNBytes(4);
+            case '@' -> readAnnotation();
+            case '[' -> {
+                int count = in.readUnsignedShort();
+                for (int i = 0; i < count; i++) {
+                    skipElementValue(in.readUnsignedByte());
+                }
+            }
+            default -> throw new IOException(String.format("unknown element value tag %d", tag));
+        }
+    }
+
+    private String getString(int index) throws IOException {
+        if (index <= 0 || index >= strings.length || strings[index] == null) {
+            throw new IOException(String.format("invalid constant pool index %d", index));
+        }
+        return strings[index];
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * TransformPipeline.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Runs text through several transforms in one pass. Each stage writes
+ * directly into the next one, so the result is the same as applying the
+ * transforms one after another, but no intermediate text is built.
+ *
+ * @author Thomas Kuenneth
+ */
+public class TransformPipeline implements FusableTransform {
+
+    private final List<FusableTransform> stages;
+
+    public TransformPipeline(List<FusableTransform> stages) {
+        this.stages = List.copyOf(stages);
+    }
+
+    public List<FusableTransform> getStages() {
+        return stages;
+    }
+
+    @Override
+    public TransformWriter open(Writer out) {
+        Writer w = out;
+        for (int i = stages.size() - 1; i >= 0; i--) {
+            w = stages.get(i).open(w);
+        }
+        if (w instanceof TransformWriter) {
+            return (TransformWriter) w;
+        }
+        // no stages
+        return new TransformWriter(out) {
+
+            @Override
+            public void write(char[] cbuf, int off, int len) throws IOException {
+                out.write(cbuf, off, len);
+            }
+
+            @Override
+            protected void endOfInput() {
+            }
+        };
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * TransformProvider.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+/**
+ * A transformation offered in the clipboard menu. Third-party
+ * implementations are packaged as jars, put into the plugins directory
+ * (see {@link Helper#getPluginsDir()}) and registered as a service in
+ * {@code META-INF/services/com.thomaskuenneth.clip4moni.TransformProvider}.
+ * They must be annotated with {@link TransformInfo}, so that the menus can be
+ * built without loading them; the annotation is read from the class files
+ * of the jar. A provider is loaded when it is used for the first time.
+ *
+ * @author Thomas Kuenneth
+ */
+public interface TransformProvider {
+
+    /**
+     * Transforms text.
+     *
+     * @param in the input
+     * @return the result or {@code null} if nothing should be changed
+     */
+    String transform(String in);
+
+    /**
+     * Gets a streaming version of this transformation. If there is one,
+     * clipboard contents are passed through it rather than being read as a
+     * whole. It must produce the same result as {@link #transform(String)}.
+     *
+     * @return a new transform or {@code null}
+     */
+    default TextTransform getTextTransform() {
+        return null;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * TransformWriter.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A writer that transforms the characters written to it and passes the
+ * result on to another writer, which may be a transform writer itself.
+ * Once all input has been written, {@link #finish()} must be invoked.
+ *
+ * @author Thomas Kuenneth
+ */
+public abstract class TransformWriter extends Writer {
+
+    protected final Writer out;
+
+    protected TransformWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Signals the end of the input. Pending output is written, and transform
+     * writers further down are finished, too. No writer is closed.
+     *
+     * @throws IOException if writing fails
+     */
+    public void finish() throws IOException {
+        endOfInput();
+        if (out instanceof TransformWriter) {
+            ((TransformWriter) out).finish();
+        }
+    }
+
+    /**
+     * Writes output that has been held back.
+     *
+     * @throws IOException if writing fails
+     */
+    protected abstract void endOfInput() throws IOException;
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        out.close();
+    }
+}
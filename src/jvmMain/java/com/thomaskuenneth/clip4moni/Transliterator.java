@@ -0,0 +1,316 @@
+/*
+ * Transliterator.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.text.Normalizer;
+import java.util.function.IntPredicate;
+
+/**
+ * Replaces characters according to a table. Lookups go through a two-level
+ * table covering the Basic Multilingual Plane (256 pages of 256 entries), so
+ * each character costs two array accesses. Characters without a replacement
+ * are kept, unless a retain predicate rejects them. Supplementary characters
+ * are passed to that predicate as code points; surrogate pairs split
+ * between two segments are handled, too.
+ * <p>
+ * Instances are immutable; {@link #newFilter()} creates the (stateful)
+ * filters used by {@link LineTransform} and {@link CharTransform}.
+ *
+ * @author Thomas Kuenneth
+ */
+public final class Transliterator {
+
+    private static final String[][] GERMAN_TABLE = {
+            {"\u00e4", "ae"}, {"\u00c4", "Ae"}, {"\u00f6", "oe"}, {"\u00d6", "Oe"},
+            {"\u00fc", "ue"}, {"\u00dc", "Ue"}, {"\u00df", "ss"}
+    };
+
+    // letters that do not decompose into an ASCII letter and combining marks
+    private static final String[][] LATIN_TABLE = {
+            {"\u00c6", "AE"}, {"\u00e6", "ae"}, {"\u00d8", "O"}, {"\u00f8", "o"},
+            {"\u00d0", "D"}, {"\u00f0", "d"}, {"\u00de", "TH"}, {"\u00fe", "th"},
+            {"\u0110", "D"}, {"\u0111", "d"}, {"\u0126", "H"}, {"\u0127", "h"},
+            {"\u0131", "i"}, {"\u0132", "IJ"}, {"\u0133", "ij"}, {"\u0138", "q"},
+            {"\u013f", "L"}, {"\u0140", "l"}, {"\u0141", "L"}, {"\u0142", "l"},
+            {"\u0149", "'n"}, {"\u014a", "N"}, {"\u014b", "n"}, {"\u0152", "OE"},
+            {"\u0153", "oe"}, {"\u0166", "T"}, {"\u0167", "t"}, {"\u017f", "s"},
+            {"\u0180", "b"}, {"\u0181", "B"}, {"\u0187", "C"}, {"\u0188", "c"},
+            {"\u0189", "D"}, {"\u018a", "D"}, {"\u0191", "F"}, {"\u0192", "f"},
+            {"\u0193", "G"}, {"\u0197", "I"}, {"\u0198", "K"}, {"\u0199", "k"},
+            {"\u019a", "l"}, {"\u019d", "N"}, {"\u019e", "n"}, {"\u01a4", "P"},
+            {"\u01a5", "p"}, {"\u01ab", "t"}, {"\u01ac", "T"}, {"\u01ad", "t"},
+            {"\u01ae", "T"}, {"\u01b2", "V"}, {"\u01b3", "Y"}, {"\u01b4", "y"},
+            {"\u01b5", "Z"}, {"\u01b6", "z"}, {"\u01e4", "G"}, {"\u01e5", "g"},
+            {"\u0221", "d"}, {"\u0234", "l"}, {"\u0235", "n"}, {"\u0236", "t"},
+            {"\u0237", "j"}, {"\u023a", "A"}, {"\u023b", "C"}, {"\u023c", "c"},
+            {"\u023d", "L"}, {"\u023e", "T"}, {"\u0243", "B"}, {"\u0246", "E"},
+            {"\u0247", "e"}, {"\u0248", "J"}, {"\u0249", "j"}, {"\u024c", "R"},
+            {"\u024d", "r"}, {"\u024e", "Y"}, {"\u024f", "y"}
+    };
+
+    private static final String[][] TYPOGRAPHY_TABLE = {
+            {"\u00a0", " "}, {"\u00ab", "<<"}, {"\u00bb", ">>"}, {"\u00ad", ""},
+            {"\u00b7", "."}, {"\u00d7", "x"}, {"\u00f7", "/"}, {"\u00a9", "(C)"},
+            {"\u00ae", "(R)"}, {"\u2002", " "}, {"\u2003", " "}, {"\u2009", " "},
+            {"\u200a", " "}, {"\u200b", ""}, {"\u2010", "-"}, {"\u2011", "-"},
+            {"\u2012", "-"}, {"\u2013", "-"}, {"\u2014", "-"}, {"\u2015", "-"},
+            {"\u2018", "'"}, {"\u2019", "'"}, {"\u201a", "'"}, {"\u201b", "'"},
+            {"\u201c", "\""}, {"\u201d", "\""}, {"\u201e", "\""}, {"\u201f", "\""},
+            {"\u2022", "*"}, {"\u2026", "..."}, {"\u2032", "'"}, {"\u2033", "\""},
+            {"\u2039", "<"}, {"\u203a", ">"}, {"\u2122", "TM"}, {"\u2212", "-"},
+            {"\u20ac", "EUR"}
+    };
+
+    private static final Transliterator GERMAN = new Builder()
+            .putAll(GERMAN_TABLE)
+            .build();
+    private static final Transliterator SPECIALS = new Builder()
+            .putAll(GERMAN_TABLE)
+            .retain(cp -> Character.isDigit(cp) || (' ' == cp) || Character.isLetter(cp)
+                    || ('.' == cp) || ('-' == cp))
+            .build();
+    private static final Transliterator ASCII = new Builder()
+            .putDecompositions('\u00c0', '\u024f')
+            .putAll(LATIN_TABLE)
+            .putAll(TYPOGRAPHY_TABLE)
+            .putAll(GERMAN_TABLE)
+            .build();
+
+    private static final int SPAN_NONE = 0;
+    private static final int SPAN_ASCII = 1;
+    private static final int SPAN_WORD = 2;
+
+    private final String[][] pages;
+    private final IntPredicate retain;
+    // ASCII characters that are copied unchanged
+    private final boolean[] copiedAscii = new boolean[0x80];
+    // the CharKernels search that skips them, if there is one
+    private final int span;
+
+    private Transliterator(String[][] pages, IntPredicate retain) {
+        this.pages = pages;
+        this.retain = retain;
+        boolean all = true;
+        boolean word = true;
+        for (char ch = 0; ch < 0x80; ch++) {
+            copiedAscii[ch] = (pages[0] == null || pages[0][ch] == null)
+                    && (retain == null || retain.test(ch));
+            all &= copiedAscii[ch];
+            word &= copiedAscii[ch] == CharKernels.isWordChar(ch);
+        }
+        span = all ? SPAN_ASCII : word ? SPAN_WORD : SPAN_NONE;
+    }
+
+    private int skipCopied(char[] src, int from, int to) {
+        switch (span) {
+            case SPAN_ASCII:
+                return CharKernels.indexOfNonAscii(src, from, to);
+            case SPAN_WORD:
+                return CharKernels.indexOfNonWordChar(src, from, to);
+            default:
+                int i = from;
+                while (i < to && src[i] < 0x80 && copiedAscii[src[i]]) {
+                    i += 1;
+                }
+                return i;
+        }
+    }
+
+    /**
+     * German umlauts and sharp s; everything else is kept.
+     *
+     * @return the transliterator
+     */
+    public static Transliterator german() {
+        return GERMAN;
+    }
+
+    /**
+     * German umlauts and sharp s; of the remaining characters only letters,
+     * digits, blanks, '.' and '-' are kept.
+     *
+     * @return the transliterator
+     */
+    public static Transliterator specials() {
+        return SPECIALS;
+    }
+
+    /**
+     * Latin letters with diacritics (Latin-1, Latin Extended-A and B, which
+     * covers Nordic, Polish, Czech and Turkish letters), German umlauts and
+     * common typographic characters are replaced by ASCII.
+     *
+     * @return the transliterator
+     */
+    public static Transliterator ascii() {
+        return ASCII;
+    }
+
+    /**
+     * Gets the replacement of a character.
+     *
+     * @param ch the character
+     * @return the replacement or {@code null} if there is none
+     */
+    public String get(char ch) {
+        String[] page = pages[ch >>> 8];
+        return page != null ? page[ch & 0xff] : null;
+    }
+
+    public CharFilter newFilter() {
+        return new CharFilter() {
+
+            // high surrogate at the end of the previous segment
+            private char high;
+
+            @Override
+            public void filter(char[] src, int off, int len, StringBuilder dst) {
+                int end = off + len;
+                for (int i = off; i < end; i++) {
+                    if (high == 0) {
+                        int next = skipCopied(src, i, end);
+                        dst.append(src, i, next - i);
+                        if (next == end) {
+                            break;
+                        }
+                        i = next;
+                    }
+                    char ch = src[i];
+                    if (high != 0) {
+                        char h = high;
+                        high = 0;
+                        if (Character.isLowSurrogate(ch)) {
+                            int cp = Character.toCodePoint(h, ch);
+                            if (retain == null || retain.test(cp)) {
+                                dst.append(h).append(ch);
+                            }
+                            continue;
+                        }
+                        single(h, dst);
+                    }
+                    if (Character.isHighSurrogate(ch)) {
+                        high = ch;
+                    } else {
+                        single(ch, dst);
+                    }
+                }
+            }
+
+            @Override
+            public void endLine(StringBuilder dst) {
+                if (high != 0) {
+                    single(high, dst);
+                    high = 0;
+                }
+            }
+        };
+    }
+
+    private void single(char ch, StringBuilder dst) {
+        String[] page = pages[ch >>> 8];
+        String replacement = page != null ? page[ch & 0xff] : null;
+        if (replacement != null) {
+            dst.append(replacement);
+        } else if (retain == null || retain.test(ch)) {
+            dst.append(ch);
+        }
+    }
+
+    /**
+     * Creates transliterators. Later entries replace earlier ones.
+     */
+    public static class Builder {
+
+        private final String[][] pages = new String[256][];
+        private IntPredicate retain;
+
+        public Builder put(char ch, String replacement) {
+            String[] page = pages[ch >>> 8];
+            if (page == null) {
+                page = new String[256];
+                pages[ch >>> 8] = page;
+            }
+            page[ch & 0xff] = replacement;
+            return this;
+        }
+
+        /**
+         * Adds entries.
+         *
+         * @param table pairs of a single character and its replacement
+         * @return this builder
+         */
+        public Builder putAll(String[][] table) {
+            for (String[] entry : table) {
+                put(entry[0].charAt(0), entry[1]);
+            }
+            return this;
+        }
+
+        /**
+         * Maps characters that decompose (NFD) into ASCII characters and
+         * combining marks to those ASCII characters, for example '\u00e9' to 'e'.
+         *
+         * @param first first character of the range
+         * @param last  last character of the range
+         * @return this builder
+         */
+        public Builder putDecompositions(char first, char last) {
+            StringBuilder sb = new StringBuilder();
+            for (char ch = first; ch <= last; ch++) {
+                String nfd = Normalizer.normalize(String.valueOf(ch), Normalizer.Form.NFD);
+                sb.setLength(0);
+                boolean ascii = true;
+                for (int i = 0; i < nfd.length() && ascii; i++) {
+                    char c = nfd.charAt(i);
+                    if (c < 0x80) {
+                        sb.append(c);
+                    } else {
+                        ascii = Character.getType(c) == Character.NON_SPACING_MARK;
+                    }
+                }
+                if (ascii && sb.length() > 0 && !nfd.equals(sb.toString())) {
+                    put(ch, sb.toString());
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Sets which characters without a replacement are kept.
+         *
+         * @param retain tests code points; {@code null} keeps all
+         * @return this builder
+         */
+        public Builder retain(IntPredicate retain) {
+            this.retain = retain;
+            return this;
+        }
+
+        public Transliterator build() {
+            String[][] copy = new String[pages.length][];
+            for (int i = 0; i < pages.length; i++) {
+                copy[i] = pages[i] != null ? pages[i].clone() : null;
+            }
+            return new Transliterator(copy, retain);
+        }
+    }
+}
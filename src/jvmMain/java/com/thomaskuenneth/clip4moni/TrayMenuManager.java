@@ -0,0 +1,356 @@
+/*
+ * TrayMenuManager.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.awt.Menu;
+import java.awt.MenuItem;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * This class maintains the snippet items at the top of the tray menu. It
+ * remembers which menu item belongs to which {@link Entry} and applies only
+ * the insertions, removals, moves and relabelings needed to match the
+ * current list of entries. Items below the snippets (and the separator
+ * between them) are left alone.
+ * <p>
+ * Optionally entries are grouped in submenus, either by their first letter
+ * or by a prefix ({@code group/name}; entries without a prefix stay at the
+ * top level). Large groups are split into nested pages of at most
+ * {@code PAGE_SIZE} items, so no menu gets longer than that. In prefix mode
+ * at most {@code PAGE_SIZE} groups are shown; entries with other prefixes
+ * are collected in one more group. AWT does not tell when a submenu is about
+ * to be shown, therefore the contents of submenus that have changed are
+ * only built by {@link #prepare()}, which must be called before the menu is
+ * shown.
+ *
+ * @author Thomas Kuenneth
+ */
+public class TrayMenuManager {
+
+    public static final int GROUPING_NONE = 0;
+    public static final int GROUPING_ALPHABETIC = 1;
+    public static final int GROUPING_PREFIX = 2;
+
+    private static final int PAGE_SIZE = 40;
+    private static final char PREFIX_SEPARATOR = '/';
+    // bucket of the group holding the entries of groups beyond PAGE_SIZE;
+    // real prefixes are never empty
+    private static final String OVERFLOW = "";
+
+    private final Menu menu;
+    private final ActionListener al;
+    // Entry or Group, in menu order
+    private final List<Object> slots;
+    private final List<MenuItem> items;
+    private final Map<String, Group> groups;
+
+    private int grouping;
+    private boolean separator;
+    // whether update() has changed the entries of a group
+    private boolean groupsChanged;
+
+    public TrayMenuManager(Menu menu, ActionListener al) {
+        this.menu = menu;
+        this.al = al;
+        slots = new ArrayList<>();
+        items = new ArrayList<>();
+        groups = new HashMap<>();
+        grouping = GROUPING_NONE;
+    }
+
+    /**
+     * Sets how entries are grouped. Takes effect with the next call of
+     * {@link #update(List)}.
+     *
+     * @param grouping one of the {@code GROUPING_} constants
+     */
+    public void setGrouping(int grouping) {
+        if (grouping != this.grouping) {
+            this.grouping = grouping;
+            while (!slots.isEmpty()) {
+                remove(slots.size() - 1);
+            }
+            groups.clear();
+        }
+    }
+
+    /**
+     * Updates the snippet items. Does nothing if they are up-to-date.
+     *
+     * @param entries the entries to show
+     * @return true if the menu has been changed
+     */
+    public boolean update(List<Entry> entries) {
+        groupsChanged = false;
+        List<Object> newSlots = grouping == GROUPING_NONE
+                ? new ArrayList<>(entries)
+                : createGroups(entries);
+        return updateSlots(newSlots) || groupsChanged;
+    }
+
+    /**
+     * Builds the contents of the submenus that have changed since the menu
+     * was last shown. Call this when the menu is about to be shown, for
+     * example when the tray icon is pressed.
+     */
+    public void prepare() {
+        for (Object slot : slots) {
+            if (slot instanceof Group group && group.dirty) {
+                group.fill();
+            }
+        }
+    }
+
+    private boolean updateSlots(List<Object> newSlots) {
+        if (isUpToDate(newSlots)) {
+            return false;
+        }
+        Set<Object> wanted = new HashSet<>(newSlots);
+        for (int i = slots.size() - 1; i >= 0; i--) {
+            if (!wanted.contains(slots.get(i))) {
+                remove(i);
+            }
+        }
+        for (int i = 0; i < newSlots.size(); i++) {
+            Object slot = newSlots.get(i);
+            if (i < slots.size() && slots.get(i) == slot) {
+                relabel(i);
+                continue;
+            }
+            int j = indexOf(slot, i + 1);
+            if (j < 0) {
+                insert(i, slot, createItem(slot));
+            } else {
+                MenuItem item = items.get(j);
+                remove(j);
+                insert(i, slot, item);
+                relabel(i);
+            }
+        }
+        while (slots.size() > newSlots.size()) {
+            remove(slots.size() - 1);
+        }
+        if (!slots.isEmpty() && !separator) {
+            menu.insertSeparator(slots.size());
+            separator = true;
+        } else if (slots.isEmpty() && separator) {
+            menu.remove(0);
+            separator = false;
+        }
+        return true;
+    }
+
+    private boolean isUpToDate(List<Object> newSlots) {
+        if (newSlots.size() != slots.size()) {
+            return false;
+        }
+        for (int i = 0; i < slots.size(); i++) {
+            Object slot = slots.get(i);
+            if (newSlots.get(i) != slot || !Objects.equals(getLabel(slot), items.get(i).getLabel())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Splits the entries into groups. Group objects are reused if a group
+     * with the same label exists, so unchanged groups keep their submenu.
+     */
+    private List<Object> createGroups(List<Entry> entries) {
+        Map<String, List<Entry>> buckets = grouping == GROUPING_ALPHABETIC
+                ? new TreeMap<>() : new LinkedHashMap<>();
+        List<Object> result = new ArrayList<>();
+        for (Entry e : entries) {
+            String bucket = getBucket(e.getKey());
+            if (bucket == null) {
+                result.add(e);
+            } else {
+                if (grouping == GROUPING_PREFIX && !buckets.containsKey(bucket)
+                        && buckets.size() >= PAGE_SIZE - 1) {
+                    bucket = OVERFLOW;
+                }
+                List<Entry> l = buckets.get(bucket);
+                if (l == null) {
+                    l = new ArrayList<>();
+                    buckets.put(bucket, l);
+                    // prefix groups appear where their first entry is
+                    result.add(bucket);
+                }
+                l.add(e);
+            }
+        }
+        Map<String, Group> newGroups = new HashMap<>();
+        List<Object> newSlots = new ArrayList<>();
+        for (Object o : grouping == GROUPING_ALPHABETIC ? new ArrayList<Object>(buckets.keySet()) : result) {
+            if (o instanceof String bucket) {
+                Group group = groups.get(bucket);
+                if (group == null) {
+                    group = new Group(bucket);
+                }
+                group.setEntries(buckets.get(bucket));
+                newGroups.put(bucket, group);
+                newSlots.add(group);
+            } else {
+                newSlots.add(o);
+            }
+        }
+        groups.clear();
+        groups.putAll(newGroups);
+        return newSlots;
+    }
+
+    private String getBucket(String key) {
+        if (key == null || key.isEmpty()) {
+            return grouping == GROUPING_ALPHABETIC ? "#" : null;
+        }
+        if (grouping == GROUPING_ALPHABETIC) {
+            char ch = key.charAt(0);
+            return Character.isLetter(ch) ? String.valueOf(Character.toUpperCase(ch)) : "#";
+        }
+        int pos = key.indexOf(PREFIX_SEPARATOR);
+        return pos > 0 ? key.substring(0, pos) : null;
+    }
+
+    private String getLabel(Object slot) {
+        return slot instanceof Group group ? group.label : ((Entry) slot).getKey();
+    }
+
+    private String getItemLabel(Group group, Entry e) {
+        String key = e.getKey();
+        if (grouping == GROUPING_PREFIX && !OVERFLOW.equals(group.bucket)) {
+            return key.substring(key.indexOf(PREFIX_SEPARATOR) + 1);
+        }
+        return key;
+    }
+
+    private MenuItem createItem(Object slot) {
+        if (slot instanceof Group group) {
+            return group.menu;
+        }
+        Entry e = (Entry) slot;
+        return UIHelper.createMenuItem(e.getKey(), null, al, e.getValue());
+    }
+
+    private void insert(int index, Object slot, MenuItem item) {
+        slots.add(index, slot);
+        items.add(index, item);
+        menu.insert(item, index);
+    }
+
+    private void remove(int index) {
+        slots.remove(index);
+        items.remove(index);
+        menu.remove(index);
+    }
+
+    private void relabel(int index) {
+        String label = getLabel(slots.get(index));
+        MenuItem item = items.get(index);
+        if (!Objects.equals(label, item.getLabel())) {
+            item.setLabel(label);
+        }
+    }
+
+    private int indexOf(Object slot, int from) {
+        for (int i = from; i < slots.size(); i++) {
+            if (slots.get(i) == slot) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A submenu holding a group of entries.
+     */
+    private class Group {
+
+        final String bucket;
+        final String label;
+        final Menu menu;
+        List<Entry> entries;
+        List<String> labels;
+
+        boolean dirty;
+
+        Group(String bucket) {
+            this.bucket = bucket;
+            label = OVERFLOW.equals(bucket) ? Messages.getString("MI_MORE_GROUPS") : bucket;
+            menu = UIHelper.createMenu(label);
+            entries = List.of();
+            labels = List.of();
+        }
+
+        void setEntries(List<Entry> newEntries) {
+            boolean same = newEntries.size() == entries.size();
+            for (int i = 0; same && i < entries.size(); i++) {
+                Entry e = newEntries.get(i);
+                same = e == entries.get(i) && Objects.equals(getItemLabel(this, e), labels.get(i));
+            }
+            if (!same) {
+                entries = new ArrayList<>(newEntries);
+                labels = new ArrayList<>(entries.size());
+                for (Entry e : entries) {
+                    labels.add(getItemLabel(this, e));
+                }
+                dirty = true;
+                groupsChanged = true;
+            }
+        }
+
+        void fill() {
+            dirty = false;
+            menu.removeAll();
+            fill(menu, entries, labels);
+        }
+
+        private void fill(Menu m, List<Entry> entries, List<String> labels) {
+            int size = entries.size();
+            if (size <= PAGE_SIZE) {
+                for (int i = 0; i < size; i++) {
+                    UIHelper.createMenuItem(labels.get(i), m, al, entries.get(i).getValue());
+                }
+                return;
+            }
+            int pageSize = PAGE_SIZE;
+            while ((size + pageSize - 1) / pageSize > PAGE_SIZE) {
+                pageSize *= PAGE_SIZE;
+            }
+            for (int from = 0; from < size; from += pageSize) {
+                int to = Math.min(size, from + pageSize);
+                Menu page = UIHelper.createMenu(String.format("%s \u2026 %s",
+                        labels.get(from), labels.get(to - 1)));
+                m.add(page);
+                fill(page, entries.subList(from, to), labels.subList(from, to));
+            }
+        }
+    }
+}
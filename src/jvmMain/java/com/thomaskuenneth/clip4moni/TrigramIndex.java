@@ -0,0 +1,204 @@
+/*
+ * TrigramIndex.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class maps the trigrams (sequences of three characters) of texts to
+ * the ids of the texts containing them. Texts containing a query must
+ * contain all of its trigrams, so intersecting their posting lists yields a
+ * small set of candidates. Trigrams are packed into an int; the few
+ * collisions this causes for non-ASCII characters only produce additional
+ * candidates, which callers must verify anyway.
+ * <p>
+ * Texts are expected to be lowercased by the caller. This class is not
+ * thread-safe.
+ *
+ * @author Thomas Kuenneth
+ */
+public class TrigramIndex {
+
+    private final Map<Integer, Postings> postings;
+    // the distinct trigrams of each text, needed to remove it
+    private final Map<Integer, int[]> trigramsOf;
+
+    public TrigramIndex() {
+        postings = new HashMap<>();
+        trigramsOf = new HashMap<>();
+    }
+
+    /**
+     * Adds a text, replacing the one previously added with the same id.
+     *
+     * @param id   id of the text, must not be negative
+     * @param text the (lowercased) text
+     */
+    public void add(int id, CharSequence text) {
+        remove(id);
+        int[] trigrams = trigrams(text);
+        for (int trigram : trigrams) {
+            postings.computeIfAbsent(trigram, t -> new Postings()).add(id);
+        }
+        trigramsOf.put(id, trigrams);
+    }
+
+    public void remove(int id) {
+        int[] trigrams = trigramsOf.remove(id);
+        if (trigrams != null) {
+            for (int trigram : trigrams) {
+                Postings p = postings.get(trigram);
+                if (p != null && p.remove(id) && p.size == 0) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        postings.clear();
+        trigramsOf.clear();
+    }
+
+    public int size() {
+        return trigramsOf.size();
+    }
+
+    /**
+     * Gets the ids of all texts containing every trigram of a query.
+     *
+     * @param query the (lowercased) query
+     * @return the ids in ascending order, or {@code null} if the query is
+     * shorter than three characters
+     */
+    public int[] candidates(CharSequence query) {
+        int[] trigrams = trigrams(query);
+        if (trigrams.length == 0) {
+            return null;
+        }
+        Postings[] lists = new Postings[trigrams.length];
+        for (int i = 0; i < trigrams.length; i++) {
+            lists[i] = postings.get(trigrams[i]);
+            if (lists[i] == null) {
+                return new int[0];
+            }
+        }
+        // start with the shortest list, so the result shrinks fast
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        int[] result = Arrays.copyOf(lists[0].ids, lists[0].size);
+        int count = result.length;
+        for (int i = 1; i < lists.length && count > 0; i++) {
+            count = lists[i].retain(result, count);
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Gets the distinct trigrams of a text in ascending order.
+     *
+     * @param text the text
+     * @return the packed trigrams
+     */
+    static int[] trigrams(CharSequence text) {
+        int length = text.length();
+        if (length < 3) {
+            return new int[0];
+        }
+        int[] result = new int[length - 2];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = pack(text.charAt(i), text.charAt(i + 1), text.charAt(i + 2));
+        }
+        Arrays.sort(result);
+        int count = 0;
+        for (int i = 0; i < result.length; i++) {
+            if (i == 0 || result[i] != result[count - 1]) {
+                result[count++] = result[i];
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private static int pack(char c0, char c1, char c2) {
+        return (c0 & 0x7ff) << 21 | (c1 & 0x7ff) << 10 | (c2 & 0x3ff);
+    }
+
+    /**
+     * A sorted list of ids.
+     */
+    private static class Postings {
+
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            // ids are mostly added in ascending order
+            if (size > 0 && ids[size - 1] >= id) {
+                int pos = Arrays.binarySearch(ids, 0, size, id);
+                if (pos >= 0) {
+                    return;
+                }
+                insert(-pos - 1, id);
+            } else {
+                insert(size, id);
+            }
+        }
+
+        boolean remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size -= 1;
+            return true;
+        }
+
+        /*
+         * Keeps only those of the first count elements of result that are
+         * contained in this list; returns how many are left.
+         */
+        int retain(int[] result, int count) {
+            int kept = 0;
+            int from = 0;
+            for (int i = 0; i < count && from < size; i++) {
+                int pos = Arrays.binarySearch(ids, from, size, result[i]);
+                if (pos >= 0) {
+                    result[kept++] = result[i];
+                    from = pos + 1;
+                } else {
+                    from = -pos - 1;
+                }
+            }
+            return kept;
+        }
+
+        private void insert(int pos, int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size += 1;
+        }
+    }
+}
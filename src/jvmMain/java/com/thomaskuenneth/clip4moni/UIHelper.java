@@ -97,7 +97,9 @@ public class UIHelper {
         if (cmd != null) {
             item.setActionCommand(cmd);
         }
-        menu.add(item);
+        if (menu != null) {
+            menu.add(item);
+        }
         return item;
     }
 
@@ -0,0 +1,125 @@
+/*
+ * WriteBehindQueue.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class writes files in the background. Saving the same file several
+ * times within a short period of time results in only the latest version
+ * being written. Pending writes are flushed when the program terminates.
+ *
+ * @author Thomas Kuenneth
+ */
+public class WriteBehindQueue {
+
+    private static final String TAG = WriteBehindQueue.class.getName();
+    private static final Logger LOGGER = Logger.getLogger(TAG);
+
+    private final Map<File, byte[]> pending;
+    private final Object writeLock;
+    private final ScheduledExecutorService executor;
+    private final long delay;
+
+    public WriteBehindQueue(long delay) {
+        this.delay = delay;
+        pending = new HashMap<>();
+        writeLock = new Object();
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, TAG);
+            t.setDaemon(true);
+            return t;
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush));
+    }
+
+    /**
+     * Schedules a file to be written. If a write of the same file is already
+     * pending, its contents are replaced.
+     *
+     * @param f    the file
+     * @param data the raw contents of the file
+     */
+    public synchronized void enqueue(File f, byte[] data) {
+        if (pending.put(f, data) == null) {
+            executor.schedule(() -> write(f), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Gets the contents of a pending write.
+     *
+     * @param f the file
+     * @return the raw contents not yet written or {@code null}
+     */
+    public synchronized byte[] getPending(File f) {
+        return pending.get(f);
+    }
+
+    /**
+     * Writes all pending files immediately.
+     */
+    public void flush() {
+        List<File> files;
+        synchronized (this) {
+            files = new ArrayList<>(pending.keySet());
+        }
+        for (File f : files) {
+            write(f);
+        }
+    }
+
+    /*
+     * Writes are serialized, so a newer version enqueued while an older one is
+     * being written cannot be overtaken by it. Enqueueing does not wait for
+     * the write to finish. The entry is removed only once it has been written,
+     * so that getPending() does not miss it meanwhile. If a newer version has
+     * been enqueued while writing, it is scheduled again.
+     */
+    private void write(File f) {
+        synchronized (writeLock) {
+            byte[] data;
+            synchronized (this) {
+                data = pending.get(f);
+            }
+            if (data == null) {
+                return;
+            }
+            if (!FileHelper.saveBytes(f, data)) {
+                LOGGER.log(Level.SEVERE, String.format("could not write %s", f.getAbsolutePath()));
+            }
+            synchronized (this) {
+                if (!pending.remove(f, data) && pending.containsKey(f)) {
+                    executor.schedule(() -> write(f), delay, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+    }
+}
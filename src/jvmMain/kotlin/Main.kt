@@ -24,18 +24,18 @@ import java.awt.*
 import java.awt.datatransfer.*
 import java.awt.event.ActionEvent
 import java.awt.event.ActionListener
+import java.awt.event.MouseAdapter
+import java.awt.event.MouseEvent
 import java.io.ByteArrayInputStream
 import java.io.File
 import java.io.IOException
+import java.io.Reader
+import java.io.StringWriter
 import java.nio.charset.StandardCharsets
-import java.nio.file.FileSystems
-import java.nio.file.Paths
-import java.nio.file.StandardWatchEventKinds
-import java.nio.file.WatchKey
+import java.text.MessageFormat
 import java.util.ResourceBundle.getBundle
 import java.util.logging.Level
 import java.util.logging.Logger
-import javax.swing.DefaultListModel
 import javax.swing.JOptionPane
 import javax.swing.SwingUtilities
 import kotlin.system.exitProcess
@@ -46,6 +46,8 @@ private val LOGGER = Logger.getLogger(CLASSNAME)
 private lateinit var systemClipboard: Clipboard
 private lateinit var plainText: DataFlavor
 
+private val snippetCache = SnippetCache(8L * 1024 * 1024)
+
 val instance = Clip4Moni()
 
 fun main() {
@@ -55,14 +57,13 @@ fun main() {
         prepareClipboard()
         instance.createUI()
         instance.setupWatchService()
+        instance.loadPlugins()
     }
 }
 
 fun paste(filename: String?) {
-    FileHelper.createFilename(filename)?.let { file ->
-        FileHelper.loadFile(file)?.let { contents ->
-            setContents(contents)
-        }
+    snippetCache.load(filename)?.let { contents ->
+        setContents(contents)
     }
 }
 
@@ -101,43 +102,67 @@ private fun setContents(text: String) {
     systemClipboard.setContents(t, instance)
 }
 
-private fun copyFromClipboard(): String {
-    val sb = StringBuilder()
+/**
+ * Opens a reader for the plain text contents of the clipboard.
+ *
+ * @return the reader or {@code null} if there is no plain text
+ */
+private fun openClipboardReader(): Reader? {
     try {
         systemClipboard.getContents(null)?.let { contents ->
             for (flavor in contents.transferDataFlavors) {
                 if (flavor.isMimeTypeEqual(plainText)) {
                     try {
-                        flavor.getReaderForText(contents).use { reader ->
-                            var ch: Int
-                            while (reader.read().also { ch = it } != -1) {
-                                sb.append(ch.toChar())
-                            }
-                        }
+                        return flavor.getReaderForText(contents)
                     } catch (e: Exception) {
-                        LOGGER.throwing(CLASSNAME, "copyFromClipboard()", e)
+                        LOGGER.throwing(CLASSNAME, "openClipboardReader()", e)
                     }
                     break
                 }
             }
         }
     } catch (e: IllegalStateException) {
+        LOGGER.throwing(CLASSNAME, "openClipboardReader()", e)
+    }
+    return null
+}
+
+private fun copyFromClipboard(): String {
+    val sw = StringWriter()
+    try {
+        openClipboardReader()?.use { reader ->
+            reader.transferTo(sw)
+        }
+    } catch (e: IOException) {
         LOGGER.throwing(CLASSNAME, "copyFromClipboard()", e)
     }
-    return sb.toString()
+    return sw.toString()
 }
 
 private fun quit(result: Int = 0) {
+    LOGGER.log(Level.INFO, "snippet cache: {0}", snippetCache)
+    instance.logStatistics()
+    FileHelper.flush()
     exitProcess(result)
 }
 
 class Clip4Moni : ActionListener, ClipboardOwner {
 
     private lateinit var menu: PopupMenu
-    private lateinit var snippets: DefaultListModel<Entry>
+    private lateinit var menuManager: TrayMenuManager
+    private lateinit var snippets: SnippetListModel
+    private lateinit var watcher: SnippetsWatcher
+
+    private val finder = SnippetFinder()
 
     private var pluginMenu: Menu? = null
     private var launchMenu: Menu? = null
+    private var chainProblems: List<String> = emptyList()
+    private var listProblem: String? = null
+
+    private val pluginListener = ActionListener { e: ActionEvent ->
+        invokePlugin(e.actionCommand)
+    }
 
     private val execute = ActionListener { e: ActionEvent ->
         try {
@@ -182,36 +207,43 @@ class Clip4Moni : ActionListener, ClipboardOwner {
     }
 
     fun setupWatchService() {
-        val t = Thread {
+        watcher = SnippetsWatcher({
+            // parse off the EDT, then apply the differences in one go
             try {
-                val watchService = FileSystems.getDefault().newWatchService()
-                val path =
-                    Paths.get(Helper.getSnippetsDir().absolutePath)
-                path.register(
-                    watchService,
-                    StandardWatchEventKinds.ENTRY_CREATE,
-                    StandardWatchEventKinds.ENTRY_DELETE,
-                    StandardWatchEventKinds.ENTRY_MODIFY
-                )
-                var key: WatchKey
-                while (watchService.take().also { key = it } != null) {
-                    for (event in key.pollEvents()) {
-                        val name = event.context().toString()
-                        if (Helper.LISTNAME == name) {
-                            loadList()
-                            populatePopup()
-                        }
+                val entries = SnippetList.load(Helper.getFileList())
+                SwingUtilities.invokeLater {
+                    listProblem = null
+                    if (snippets.update(entries)) {
+                        populatePopup()
+                        finder.sync(snippets.entries)
                     }
-                    key.reset()
                 }
             } catch (e: IOException) {
-                LOGGER.log(Level.SEVERE, "setupWatchService()", e)
-            } catch (e: InterruptedException) {
-                LOGGER.log(Level.SEVERE, "setupWatchService()", e)
+                LOGGER.log(Level.SEVERE, "list changed", e)
+                SwingUtilities.invokeLater { reportListProblem(e) }
+            }
+        }) { name ->
+            if (Helper.PACKNAME == name) {
+                snippetCache.clear()
+                finder.storeChanged()
+            } else if (Helper.CHAINSNAME == name) {
+                SwingUtilities.invokeLater { reloadChains() }
+            } else {
+                snippetCache.invalidate(name)
+                finder.contentsChanged(name)
             }
         }
-        t.isDaemon = true
-        t.start()
+        watcher.start()
+        finder.openContentIndex()
+    }
+
+    fun logStatistics() {
+        if (this::watcher.isInitialized) {
+            LOGGER.log(
+                Level.INFO, "watcher: {0} events received, {1} reloads performed",
+                arrayOf<Any>(watcher.eventsReceived, watcher.reloadsPerformed)
+            )
+        }
     }
 
     fun createUI() {
@@ -220,12 +252,15 @@ class Clip4Moni : ActionListener, ClipboardOwner {
             quit(1)
         }
         val tray = SystemTray.getSystemTray()
-        snippets = DefaultListModel()
+        snippets = SnippetListModel()
         loadList()
         // build the currentMenu
         menu = PopupMenu(Helper.PROGNAME)
         createPluginMenu()
         createLaunchMenu()
+        createFixedMenuItems()
+        menuManager = TrayMenuManager(menu, this)
+        menuManager.setGrouping(Helper.getMenuGrouping())
         populatePopup()
         // load and activate systemtray icon
         val preferredSize = tray.trayIconSize
@@ -239,6 +274,12 @@ class Clip4Moni : ActionListener, ClipboardOwner {
         val trayIcon = TrayIcon(icon.image, Helper.PROGNAME, menu)
         trayIcon.actionCommand = Messages.MI_EDITLIST
         trayIcon.addActionListener(this)
+        // AWT does not tell when a submenu opens, so changed groups are built now
+        trayIcon.addMouseListener(object : MouseAdapter() {
+            override fun mousePressed(e: MouseEvent) {
+                menuManager.prepare()
+            }
+        })
         try {
             tray.add(trayIcon)
         } catch (ex: AWTException) {
@@ -246,28 +287,40 @@ class Clip4Moni : ActionListener, ClipboardOwner {
         }
     }
 
-    @Synchronized
     private fun loadList() {
-        snippets.removeAllElements()
-        val data = FileHelper.loadFile(Helper.getFileList())
-        val list = data.split("\n".toRegex()).dropLastWhile { it.isEmpty() }.toTypedArray()
-        for (elem in list) {
-            if (elem.isNotEmpty()) {
-                val line = elem.trim { it <= ' ' }
-                snippets.addElement(Entry.createEntry(line))
-            }
+        try {
+            snippets.update(SnippetList.load(Helper.getFileList()))
+            listProblem = null
+        } catch (e: IOException) {
+            LOGGER.log(Level.SEVERE, "loadList()", e)
+            reportListProblem(e)
         }
+        finder.sync(snippets.entries)
     }
 
     private fun saveList(fileList: File) {
-        val sb = StringBuilder()
-        for (i in 0 until snippets.size()) {
-            if (i > 0) {
-                sb.append('\n')
-            }
-            sb.append(snippets.elementAt(i).all)
+        val entries = snippets.entries
+        if (!SnippetList.save(fileList, entries)) {
+            JOptionPane.showMessageDialog(
+                null, MessageFormat.format(Messages.getString("STR_LIST_NOT_SAVED"), fileList.absolutePath),
+                Helper.PROGNAME, JOptionPane.ERROR_MESSAGE
+            )
+        }
+        finder.sync(entries)
+    }
+
+    // the list is left untouched and not saved until it can be read again;
+    // the same problem is reported only once
+    private fun reportListProblem(e: IOException) {
+        val problem = e.message ?: e.toString()
+        if (problem != listProblem) {
+            listProblem = problem
+            val message = MessageFormat.format(
+                Messages.getString("STR_LIST_UNREADABLE"),
+                Helper.getFileList().absolutePath, problem
+            )
+            JOptionPane.showMessageDialog(null, message, Helper.PROGNAME, JOptionPane.ERROR_MESSAGE)
         }
-        FileHelper.saveFile(fileList, sb.toString())
     }
 
     private fun invokePlugin(cmd: String) {
@@ -278,7 +331,15 @@ class Clip4Moni : ActionListener, ClipboardOwner {
                 Thread.sleep(250)
             } catch (ignored: InterruptedException) {
             }
-            PluginManager.callPlugin(cmd, copyFromClipboard())?.let { text ->
+            val result = try {
+                openClipboardReader()?.use { reader ->
+                    PluginManager.callPlugin(cmd, reader)
+                } ?: PluginManager.callPlugin(cmd, "")
+            } catch (e: IOException) {
+                LOGGER.throwing(CLASSNAME, "invokePlugin()", e)
+                null
+            }
+            result?.let { text ->
                 SwingUtilities.invokeLater {
                     setContents(text)
                     MacHelp.activateApp(name)
@@ -288,12 +349,61 @@ class Clip4Moni : ActionListener, ClipboardOwner {
     }
 
     private fun createPluginMenu() {
-        val al = ActionListener { e: ActionEvent ->
-            val cmd = e.actionCommand
-            invokePlugin(cmd)
-        }
         pluginMenu = UIHelper.createMenu(Messages.MI_CLIPBOARD)
-        PluginManager.populateMenu(pluginMenu, al)
+        PluginManager.populateMenu(pluginMenu, pluginListener)
+    }
+
+    fun loadPlugins() {
+        // the jars are read off the EDT; the menu is rebuilt if needed
+        Thread {
+            if (PluginManager.loadExternalPlugins() or PluginManager.loadChains()) {
+                SwingUtilities.invokeLater { rebuildPluginMenu() }
+            }
+            SwingUtilities.invokeLater { reportChainProblems() }
+        }.start()
+    }
+
+    private fun reloadChains() {
+        if (PluginManager.loadChains()) {
+            rebuildPluginMenu()
+        }
+        reportChainProblems()
+    }
+
+    // the same problems are reported only once
+    private fun reportChainProblems() {
+        val problems = PluginManager.getChainProblems()
+        if (problems != chainProblems) {
+            chainProblems = problems
+            if (problems.isNotEmpty()) {
+                val message = MessageFormat.format(
+                    Messages.getString("STR_CHAINS_IGNORED"),
+                    Helper.CHAINSNAME, problems.joinToString("\n")
+                )
+                JOptionPane.showMessageDialog(null, message, Helper.PROGNAME, JOptionPane.WARNING_MESSAGE)
+            }
+        }
+    }
+
+    private fun editChains() {
+        val f = Helper.getFileChains()
+        val data = if (f.isFile) FileHelper.loadFile(f) else null
+        ChainsDialog(data ?: "").editChains()?.let { chains ->
+            if (FileHelper.saveFile(f, chains)) {
+                if (PluginManager.loadChains()) {
+                    rebuildPluginMenu()
+                }
+                // the dialog has already shown the problems
+                chainProblems = PluginManager.getChainProblems()
+            }
+        }
+    }
+
+    private fun rebuildPluginMenu() {
+        pluginMenu?.let { m ->
+            m.removeAll()
+            PluginManager.populateMenu(m, pluginListener)
+        }
     }
 
     private fun createLaunchMenu() {
@@ -334,21 +444,17 @@ class Clip4Moni : ActionListener, ClipboardOwner {
         }
     }
 
-    @Synchronized
     private fun populatePopup() {
-        menu.removeAll()
-        val num = snippets.size()
-        for (i in 0 until num) {
-            val entry = snippets.elementAt(i)
-            UIHelper.createMenuItem(entry.key, menu, this, entry.value)
-        }
-        if (num > 0) {
-            menu.addSeparator()
-        }
+        menuManager.update(snippets.entries)
+    }
+
+    private fun createFixedMenuItems() {
         menu.add(pluginMenu)
         menu.addSeparator()
         UIHelper.createMenuItem(Messages.MI_GETFROMCLIPBOARD, menu, this, null)
+        UIHelper.createMenuItem(Messages.MI_QUICKSEARCH, menu, this, null)
         UIHelper.createMenuItem(Messages.MI_EDITLIST, menu, this, null)
+        UIHelper.createMenuItem(Messages.MI_EDITCHAINS, menu, this, null)
         menu.addSeparator()
         UIHelper.createMenuItem(Messages.MI_INFO, menu, this, null)
         UIHelper.createMenuItem(Messages.MI_SETTINGS, menu, this, null)
@@ -366,29 +472,33 @@ class Clip4Moni : ActionListener, ClipboardOwner {
     }
 
     fun editContents(contents: String?, e: Entry?) {
-        var localContents = contents
         var title: String? = ""
         var name = System.currentTimeMillis().toString()
-        var headline = Messages.getString("TITLE_NEW_CONTENTS")
-        if (e != null) {
+        val addEntryDialog = AddEntryDialog()
+        val option = if (e != null) {
             title = e.key
             name = e.value
-            val f = FileHelper.createFilename(name)
-            localContents = FileHelper.loadFile(f)
-            headline = Messages.getString("TITLE_EDIT_CONTENTS")
+            addEntryDialog.showDialog(
+                Messages.getString("TITLE_EDIT_CONTENTS"), title,
+                FileHelper.openSnippetReader(name)
+            )
+        } else {
+            addEntryDialog.showDialog(Messages.getString("TITLE_NEW_CONTENTS"), title, contents)
         }
-        val addEntryDialog = AddEntryDialog()
-        if (addEntryDialog.showDialog(headline, title, localContents) == JOptionPane.OK_OPTION) {
+        if (option == JOptionPane.OK_OPTION) {
             title = addEntryDialog.description
-            val f = FileHelper.createFilename(name)
-            if (FileHelper.saveFile(f, addEntryDialog.contents)) {
+            val text = addEntryDialog.contents
+            snippetCache.invalidate(name)
+            if (FileHelper.saveSnippet(name, text)) {
+                finder.contentsChanged(name)
                 if (e == null) {
                     /*
                      * add entry to snippets
                      */
-                    snippets.addElement(Entry(title, name))
+                    snippets.addElement(Entry(title, name).apply { updateMetadata(text) })
                 } else {
                     e.key = title
+                    e.updateMetadata(text)
                 }
                 saveList(Helper.getFileList())
             }
@@ -409,6 +519,13 @@ class Clip4Moni : ActionListener, ClipboardOwner {
         }
     }
 
+    private fun quickSearch() {
+        val d = QuickSearchDialog(finder)
+        if (d.showDialog() == JOptionPane.OK_OPTION) {
+            d.selectedEntry?.let { paste(it.value) }
+        }
+    }
+
     private fun readFromClipboard() {
         editContents(copyFromClipboard(), null)
     }
@@ -424,19 +541,30 @@ class Clip4Moni : ActionListener, ClipboardOwner {
     private fun settings() {
         val d = SettingsDialog()
         if (d.showDialog() == JOptionPane.OK_OPTION) {
+            if (!d.isPackedStoreActive) {
+                // write the snippets back to the directory they belong to
+                FileHelper.setPackedStoreActive(false)
+            }
             Helper.setSnippetsDir(d.snippetsDir)
+            snippetCache.clear()
             Helper.storeLookAndFeel(d.lookAndFeel)
             Helper.setMacOSXWorkaroundActive(d.isMacOSXWorkaroundActive)
+            FileHelper.setPackedStoreActive(d.isPackedStoreActive)
+            Helper.setMenuGrouping(d.menuGrouping)
+            menuManager.setGrouping(d.menuGrouping)
             loadList()
             populatePopup()
+            finder.openContentIndex()
+            reloadChains()
         }
     }
 
     fun deleteEntry(e: Entry) {
-        val f = FileHelper.createFilename(e.value)
-        if (!f.delete()) {
-            LOGGER.log(Level.SEVERE, String.format("%s not found", f.absolutePath))
+        snippetCache.invalidate(e.value)
+        if (!FileHelper.deleteSnippet(e.value)) {
+            LOGGER.log(Level.SEVERE, String.format("%s not found", e.value))
         }
+        finder.contentsChanged(e.value)
         snippets.removeElement(e)
         saveList(Helper.getFileList())
     }
@@ -457,6 +585,10 @@ class Clip4Moni : ActionListener, ClipboardOwner {
             quit()
         } else if (Messages.MI_EDITLIST == cmd) {
             editList()
+        } else if (Messages.MI_QUICKSEARCH == cmd) {
+            quickSearch()
+        } else if (Messages.MI_EDITCHAINS == cmd) {
+            editChains()
         } else {
             paste(cmd)
         }
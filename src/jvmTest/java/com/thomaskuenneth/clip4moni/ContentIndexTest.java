@@ -0,0 +1,119 @@
+/*
+ * ContentIndexTest.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link ContentIndex}: phrase and prefix searches, merging the
+ * overlay into the file, and saving while another instance replaces the file.
+ *
+ * @author Thomas Kuenneth
+ */
+class ContentIndexTest {
+
+    @TempDir
+    File dir;
+
+    private final List<ContentIndex> indexes = new ArrayList<>();
+
+    @AfterEach
+    void closeIndexes() {
+        indexes.forEach(ContentIndex::close);
+    }
+
+    private ContentIndex open() {
+        ContentIndex index = ContentIndex.open(new File(dir, "idx"));
+        indexes.add(index);
+        return index;
+    }
+
+    @Test
+    void findsPhrasesAndPrefixes() {
+        ContentIndex index = open();
+        index.update("a", 1, "The quick brown fox");
+        index.update("b", 2, "brown quick, fox!");
+        assertEquals(Set.of("a"), index.search("quick brown "));
+        assertEquals(Set.of("a", "b"), index.search("QUICK"));
+        assertEquals(Set.of("a", "b"), index.search("bro"));
+        assertEquals(Set.of("b"), index.search("brown qu"));
+        assertEquals(Set.of(), index.search("bro "));
+    }
+
+    @Test
+    void mergesUpdatesIntoFile() {
+        ContentIndex index = open();
+        index.update("a", 1, "alpha beta");
+        index.update("b", 2, "beta gamma");
+        assertTrue(index.save());
+        assertFalse(index.isDirty());
+        index.update("b", 3, "delta");
+        index.remove("a");
+        index.update("c", 4, "beta");
+        assertEquals(Set.of("c"), index.search("beta"));
+        assertTrue(index.save());
+        ContentIndex reopened = open();
+        assertEquals(Set.of("c"), reopened.search("beta"));
+        assertEquals(Set.of("b"), reopened.search("delta"));
+        assertEquals(Set.of(), reopened.search("alpha"));
+        assertEquals(3, reopened.getStamp("b"));
+        assertEquals(-1, reopened.getStamp("a"));
+    }
+
+    @Test
+    void validateReportsChangedSnippets() {
+        ContentIndex index = open();
+        index.update("a", 1, "one");
+        index.update("b", 2, "two");
+        assertTrue(index.save());
+        ContentIndex reopened = open();
+        assertEquals(List.of("c"), reopened.validate(Map.of("b", 2L, "c", 5L)));
+        assertEquals(-1, reopened.getStamp("a"));
+        assertEquals(Set.of(), reopened.search("one"));
+    }
+
+    @Test
+    void savesWhileAnotherInstanceReplacesFile() {
+        ContentIndex first = open();
+        first.update("x", 1, "hello world");
+        assertTrue(first.save());
+        ContentIndex second = open();
+        // rewrites the file, so the postings of "hello" move
+        first.update("y", 2, "amet consectetur dolor ipsum lorem");
+        assertTrue(first.save());
+        second.update("z", 3, "zeta");
+        assertTrue(second.save());
+        ContentIndex third = open();
+        assertEquals(Set.of("x"), third.search("hello world"));
+        assertEquals(Set.of("z"), third.search("zeta"));
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * EscapeCodecTest.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static com.thomaskuenneth.clip4moni.EscapeCodec.Scheme.BASE64;
+import static com.thomaskuenneth.clip4moni.EscapeCodec.Scheme.HEX;
+import static com.thomaskuenneth.clip4moni.EscapeCodec.Scheme.HTML;
+import static com.thomaskuenneth.clip4moni.EscapeCodec.Scheme.JAVA;
+import static com.thomaskuenneth.clip4moni.EscapeCodec.Scheme.PERCENT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests {@link EscapeCodec}: round trips of random text, the encoded form,
+ * and the handling of malformed input.
+ *
+ * @author Thomas Kuenneth
+ */
+class EscapeCodecTest {
+
+    // e acute, euro sign, a grinning face (two chars), a control character
+    private static final String SAMPLE = "a \"b\" \\ <c> & 'd'\n\t\u00e9\u20ac\ud83d\ude00\u0001/%+";
+
+    @Test
+    void roundTripsSample() {
+        for (EscapeCodec.Scheme scheme : EscapeCodec.Scheme.values()) {
+            assertEquals(SAMPLE, EscapeCodec.decode(scheme, EscapeCodec.encode(scheme, SAMPLE)),
+                    scheme.name());
+            assertEquals("", EscapeCodec.decode(scheme, EscapeCodec.encode(scheme, "")),
+                    scheme.name());
+        }
+    }
+
+    @Test
+    void roundTripsRandomText() {
+        Random r = new Random(4711);
+        for (int run = 0; run < 2000; run++) {
+            String s = randomText(r, r.nextInt(40));
+            for (EscapeCodec.Scheme scheme : EscapeCodec.Scheme.values()) {
+                assertEquals(s, EscapeCodec.decode(scheme, EscapeCodec.encode(scheme, s)),
+                        scheme.name());
+            }
+        }
+    }
+
+    @Test
+    void encodesAsExpected() {
+        assertEquals("a\\\"\\\\\\n\\u00e9\\ud83d\\ude00",
+                EscapeCodec.encode(JAVA, "a\"\\\n\u00e9\ud83d\ude00"));
+        assertEquals("a%20b%2F~%C3%A9%F0%9F%98%80",
+                EscapeCodec.encode(PERCENT, "a b/~\u00e9\ud83d\ude00"));
+        assertEquals("&lt;a href=&#39;x&#39;&gt;&amp;&quot;",
+                EscapeCodec.encode(HTML, "<a href='x'>&\""));
+        assertEquals("aGk=", EscapeCodec.encode(BASE64, "hi"));
+        assertEquals("68c3a9", EscapeCodec.encode(HEX, "h\u00e9"));
+    }
+
+    @Test
+    void lonelySurrogatesBecomeQuestionMarks() {
+        assertEquals("%3Fa", EscapeCodec.encode(PERCENT, "\ud83da"));
+        assertEquals("?a", EscapeCodec.decode(HEX, EscapeCodec.encode(HEX, "\ude00a")));
+        // Java escapes keep them
+        assertEquals("\ud83d", EscapeCodec.decode(JAVA, EscapeCodec.encode(JAVA, "\ud83d")));
+    }
+
+    @Test
+    void decodesJavaEscapes() {
+        assertEquals("A\u00e9/\b\f\r'", EscapeCodec.decode(JAVA, "\\uuu0041\\xe9\\/\\b\\f\\r\\'"));
+        // octal: at most three digits and \377
+        assertEquals("A\u00ff 0\u00008", EscapeCodec.decode(JAVA, "\\101\\377\\400\\008"));
+    }
+
+    @Test
+    void keepsMalformedJavaEscapes() {
+        assertEquals("\\q\\u12\\x4 \\uZZZZ\\", EscapeCodec.decode(JAVA, "\\q\\u12\\x4 \\uZZZZ\\"));
+    }
+
+    @Test
+    void decodesPercentEscapes() {
+        assertEquals("a+b \u00e9", EscapeCodec.decode(PERCENT, "a+b%20%c3%A9"));
+        // incomplete UTF-8 sequence
+        assertEquals("\ufffdx", EscapeCodec.decode(PERCENT, "%C3x"));
+    }
+
+    @Test
+    void keepsMalformedPercentEscapes() {
+        assertEquals("100% %zz %4", EscapeCodec.decode(PERCENT, "100% %zz %4"));
+    }
+
+    @Test
+    void decodesHtmlReferences() {
+        assertEquals("& \u00e9\u00e9\u00e9 \u03b1 \u20ac \ud83d\ude00 '",
+                EscapeCodec.decode(HTML, "&amp; &eacute;&#233;&#xE9 &alpha; &euro; &#128512; &apos;"));
+    }
+
+    @Test
+    void keepsMalformedHtmlReferences() {
+        String s = "AT&T &unknown; &amp &#; &#x; &#x110000; &Eacute &EACUTE; &";
+        assertEquals(s, EscapeCodec.decode(HTML, s));
+    }
+
+    @Test
+    void decodesLenientBase64() {
+        assertEquals("hi", EscapeCodec.decode(BASE64, "aGk"));
+        assertEquals("hi", EscapeCodec.decode(BASE64, "aG\r\nk="));
+        // URL-safe alphabet: 0xfb 0xff
+        assertEquals("\ufffd\ufffd", EscapeCodec.decode(BASE64, "-_8"));
+    }
+
+    @Test
+    void rejectsMalformedBase64() {
+        assertThrows(IllegalArgumentException.class, () -> EscapeCodec.decode(BASE64, "aG$k"));
+        assertThrows(IllegalArgumentException.class, () -> EscapeCodec.decode(BASE64, "aGk\u00e9"));
+        assertThrows(IllegalArgumentException.class, () -> EscapeCodec.decode(BASE64, "a"));
+    }
+
+    @Test
+    void decodesHexWithSeparators() {
+        assertEquals("hi!", EscapeCodec.decode(HEX, "68:69-21"));
+        assertEquals("hi", EscapeCodec.decode(HEX, " 68\n69 "));
+        assertEquals("\ufffd", EscapeCodec.decode(HEX, "FF"));
+    }
+
+    @Test
+    void rejectsMalformedHex() {
+        assertThrows(IllegalArgumentException.class, () -> EscapeCodec.decode(HEX, "6"));
+        assertThrows(IllegalArgumentException.class, () -> EscapeCodec.decode(HEX, "6 8"));
+        assertThrows(IllegalArgumentException.class, () -> EscapeCodec.decode(HEX, "zz"));
+    }
+
+    /*
+     * Text without lonely surrogates, as they cannot be encoded as UTF-8.
+     */
+    private static String randomText(Random r, int length) {
+        String special = "\\\"'&;#%+<>/u0x \n\t\u0000\u007f";
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            switch (r.nextInt(4)) {
+                case 0 -> sb.append(special.charAt(r.nextInt(special.length())));
+                case 1 -> sb.append((char) (0x20 + r.nextInt(0x5f)));
+                case 2 -> sb.append((char) (0xa0 + r.nextInt(0xd7ff - 0xa0)));
+                default -> sb.appendCodePoint(0x10000 + r.nextInt(0x100000));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * FileHelperTest.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the reader returned by {@link FileHelper#createReader(ByteBuffer, Charset)}.
+ *
+ * @author Thomas Kuenneth
+ */
+class FileHelperTest {
+
+    // a grinning face (two chars) between others
+    private static final String TEXT = "a\ud83d\ude00b\u20ac\ud83d\ude00";
+
+    private static Reader reader(byte[] bytes, Charset cs) {
+        return FileHelper.createReader(ByteBuffer.wrap(bytes), cs);
+    }
+
+    private static String readAll(Reader r, int chunk) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] cbuf = new char[chunk];
+        int read;
+        while ((read = r.read(cbuf, 0, chunk)) != -1) {
+            assertTrue(read > 0, "read() returned 0");
+            sb.append(cbuf, 0, read);
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void readsSupplementaryCharactersOneByOne() throws IOException {
+        Reader r = reader(TEXT.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        StringBuilder sb = new StringBuilder();
+        int ch;
+        while ((ch = r.read()) != -1) {
+            sb.append((char) ch);
+            assertTrue(sb.length() <= TEXT.length(), sb::toString);
+        }
+        assertEquals(TEXT, sb.toString());
+        assertEquals(-1, r.read());
+    }
+
+    @Test
+    void readsInChunksOfAnySize() throws IOException {
+        for (Charset cs : new Charset[]{StandardCharsets.UTF_8, StandardCharsets.UTF_16LE}) {
+            byte[] bytes = TEXT.repeat(10).getBytes(cs);
+            for (int chunk = 1; chunk <= 8; chunk++) {
+                assertEquals(TEXT.repeat(10), readAll(reader(bytes, cs), chunk), cs + " " + chunk);
+            }
+        }
+    }
+
+    @Test
+    void replacesMalformedInput() throws IOException {
+        // a truncated three-byte sequence at the end
+        byte[] bytes = {'a', (byte) 0xe2, (byte) 0x82};
+        assertEquals("a\ufffd", readAll(reader(bytes, StandardCharsets.UTF_8), 1));
+        assertEquals("", readAll(reader(new byte[0], StandardCharsets.UTF_8), 1));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * HtmlToRtfTest.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests {@link HtmlToRtf}.
+ *
+ * @author Thomas Kuenneth
+ */
+class HtmlToRtfTest {
+
+    private static String convert(String html) {
+        return new HtmlToRtf().apply(html);
+    }
+
+    private static String rtf(String body) {
+        return HtmlToRtf.HEADER + body + "}";
+    }
+
+    @Test
+    void convertsFormatting() {
+        assertEquals(rtf("a \\b b\\b0  \\i c\\i0 "), convert("a <b>b</b> <em>c</em>"));
+        assertEquals(rtf("x\\line y"), convert("x<br>\n y"));
+    }
+
+    @Test
+    void collapsesWhitespace() {
+        assertEquals(rtf("a b"), convert("  a \n\t  b"));
+    }
+
+    @Test
+    void convertsEntities() {
+        assertEquals(rtf("<&\\u233?\\~\\u8364?"), convert("&lt;&amp;&eacute;&nbsp;&#x20AC;"));
+        assertEquals(rtf("&bogus; a&b"), convert("&bogus; a&b"));
+    }
+
+    @Test
+    void skipsScriptStyleAndHead() {
+        assertEquals(rtf("ab"), convert("a<script>if(x<y){}</script>b"));
+        assertEquals(rtf("ab"), convert("a<SCRIPT type=\"x\">s = \"</scr\" + 'ipt>';</Script >b"));
+        assertEquals(rtf("ab"), convert("a<style>p<b{}</style>b"));
+        assertEquals(rtf("ab"), convert("<head><title>t</title></head>a<script/>b"));
+        // "</scripts" does not end the script
+        assertEquals(rtf("ab"), convert("a<script></scripts></script>b"));
+    }
+
+    @Test
+    void skipsComments() {
+        assertEquals(rtf("ab"), convert("a<!-- <b> -- -->b"));
+    }
+
+    @Test
+    void keepsLoneLessThan() {
+        assertEquals(rtf("a < b <"), convert("a < b <"));
+    }
+
+    @Test
+    void convertsLinksAndLists() {
+        assertEquals(rtf("{\\field{\\*\\fldinst{HYPERLINK \"http://x/%22\"}}{\\fldrslt{\\ul l}}}"),
+                convert("<a href='http://x/\"'>l</a>"));
+        assertEquals(rtf("\\pard\\li720\\fi-360 1.\\tab a\\par\n"
+                        + "\\pard\\li720\\fi-360 2.\\tab b\\par\n\\pard "),
+                convert("<ol><li>a</li><li>b</li></ol>"));
+    }
+
+    @Test
+    void streamsInSmallPieces() throws IOException {
+        String html = "a<script>if(x<y){}</script>b &eacute; <i>c</i>";
+        StringWriter out = new StringWriter();
+        new HtmlToRtf().transform(new StringReader(html) {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                return super.read(cbuf, off, Math.min(len, 1));
+            }
+        }, out);
+        assertEquals(convert(html), out.toString());
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * PackedStoreTest.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link PackedStore}: saving and deleting, recovery from a torn
+ * record at the end of the file, compaction (also while another instance
+ * has the file open) and the import of snippet files.
+ *
+ * @author Thomas Kuenneth
+ */
+class PackedStoreTest {
+
+    private static final byte TYPE_PUT = 1;
+
+    @TempDir
+    File dir;
+
+    private PackedStore first;
+    private PackedStore second;
+
+    @AfterEach
+    void closeStores() {
+        for (PackedStore store : new PackedStore[]{first, second}) {
+            if (store != null) {
+                store.close();
+            }
+        }
+    }
+
+    private File packFile() {
+        return new File(dir, Helper.PACKNAME);
+    }
+
+    private PackedStore reopen() {
+        first.close();
+        first = PackedStore.open(dir);
+        assertNotNull(first);
+        return first;
+    }
+
+    @Test
+    void savesAndDeletesSnippets() {
+        first = PackedStore.open(dir);
+        assertNotNull(first);
+        assertTrue(first.save("a", "Hello"));
+        assertTrue(first.save("b", "W\u00f6rld"));
+        assertTrue(first.save("a", "Hello again"));
+        assertTrue(first.delete("b"));
+        assertFalse(first.delete("b"));
+        reopen();
+        assertEquals(List.of("a"), first.getNames());
+        assertEquals("Hello again", first.load("a"));
+        assertNull(first.load("b"));
+    }
+
+    @Test
+    void importsLegacyFiles() {
+        assertTrue(FileHelper.saveFile(new File(dir, "legacy"), "old"));
+        assertTrue(FileHelper.saveFile(new File(dir, "other"), "W\u00f6rld"));
+        first = PackedStore.open(dir);
+        assertNotNull(first);
+        assertEquals("old", first.load("legacy"));
+        reopen();
+        assertEquals(Set.of("legacy", "other"), Set.copyOf(first.getNames()));
+        assertEquals("W\u00f6rld", first.load("other"));
+    }
+
+    @Test
+    void discardsTornRecordOnOpen() throws IOException {
+        first = PackedStore.open(dir);
+        assertNotNull(first);
+        first.save("a", "one");
+        first.save("b", "two");
+        first.close();
+        long length = packFile().length();
+        // a record header announcing ten bytes of data, followed by only two
+        append(new byte[]{TYPE_PUT, 0, 1, 0, 0, 0, 10, 0, 0, 0, 0, 'c', 'x', 'y'});
+        first = PackedStore.open(dir);
+        assertNotNull(first);
+        assertEquals(length, packFile().length());
+        assertEquals(Set.of("a", "b"), Set.copyOf(first.getNames()));
+        assertTrue(first.save("c", "three"));
+        reopen();
+        assertEquals("three", first.load("c"));
+        assertEquals("two", first.load("b"));
+    }
+
+    @Test
+    void discardsRecordWithWrongChecksum() throws IOException {
+        first = PackedStore.open(dir);
+        assertNotNull(first);
+        first.save("a", "one");
+        long length = packFile().length();
+        first.save("b", "two");
+        first.close();
+        try (RandomAccessFile f = new RandomAccessFile(packFile(), "rw")) {
+            f.seek(f.length() - 1);
+            f.write('X');
+        }
+        first = PackedStore.open(dir);
+        assertNotNull(first);
+        assertEquals(length, packFile().length());
+        assertEquals("one", first.load("a"));
+        assertFalse(first.contains("b"));
+    }
+
+    @Test
+    void keepsIncompleteRecordWhileOpen() throws IOException {
+        first = PackedStore.open(dir);
+        assertNotNull(first);
+        first.save("a", "one");
+        // may be a record another instance is still writing
+        append(new byte[]{TYPE_PUT, 0, 1, 0, 0, 0, 10});
+        long length = packFile().length();
+        assertTrue(first.contains("a"));
+        assertEquals(length, packFile().length());
+        // the next record replaces it
+        assertTrue(first.save("b", "two"));
+        reopen();
+        assertEquals("one", first.load("a"));
+        assertEquals("two", first.load("b"));
+    }
+
+    @Test
+    void compactsWhenMostBytesAreDead() {
+        first = PackedStore.open(dir);
+        assertNotNull(first);
+        String text = "x".repeat(16 * 1024);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(first.save("big", text + i));
+            assertTrue(first.save("small" + i, "s" + i));
+            if (i % 2 == 0) {
+                assertTrue(first.delete("small" + i));
+            }
+        }
+        // about 330 KB have been written; what remains is one copy of the big
+        // snippet plus less than 64 KB of dead records
+        assertTrue(packFile().length() < 6 * text.length(), () -> packFile().length() + " bytes");
+        assertFalse(new File(dir, Helper.PACKNAME + ".compact").exists());
+        reopen();
+        assertEquals(text + 19, first.load("big"));
+        assertEquals(11, first.getNames().size());
+        assertEquals("s19", first.load("small19"));
+        assertNull(first.load("small18"));
+    }
+
+    @Test
+    void stampsSurviveCompaction() {
+        first = PackedStore.open(dir);
+        assertNotNull(first);
+        assertTrue(first.save("kept", "unchanged"));
+        long stamp = first.getStamp("kept");
+        assertTrue(first.save("other", "a"));
+        long other = first.getStamp("other");
+        assertTrue(first.save("other", "b"));
+        assertNotEquals(other, first.getStamp("other"));
+        String text = "z".repeat(16 * 1024);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(first.save("big", text + i));
+        }
+        assertTrue(packFile().length() < 6 * text.length(), () -> packFile().length() + " bytes");
+        assertEquals(stamp, first.getStamp("kept"));
+        assertEquals(stamp, reopen().getStamps().get("kept"));
+        assertEquals(-1, first.getStamp("missing"));
+    }
+
+    @Test
+    void followsCompactionByAnotherInstance() {
+        first = PackedStore.open(dir);
+        second = PackedStore.open(dir);
+        assertNotNull(first);
+        assertNotNull(second);
+        assertTrue(second.save("shared", "from second"));
+        assertEquals("from second", first.load("shared"));
+        String text = "y".repeat(16 * 1024);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(first.save("big", text + i));
+        }
+        // the file has been compacted and replaced; the second instance rereads it
+        assertTrue(packFile().length() < 6 * text.length(), () -> packFile().length() + " bytes");
+        assertEquals("from second", second.load("shared"));
+        assertEquals(text + 19, second.load("big"));
+        assertTrue(second.save("later", "after compaction"));
+        assertEquals("after compaction", first.load("later"));
+        reopen();
+        assertEquals(Set.of("shared", "big", "later"), Set.copyOf(first.getNames()));
+    }
+
+    private void append(byte[] bytes) throws IOException {
+        Files.write(packFile().toPath(), bytes, StandardOpenOption.APPEND);
+    }
+}
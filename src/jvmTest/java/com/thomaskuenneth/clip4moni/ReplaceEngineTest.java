@@ -0,0 +1,216 @@
+/*
+ * ReplaceEngineTest.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests {@link ReplaceEngine}. The literal modes are also compared with a
+ * naive implementation on random input.
+ *
+ * @author Thomas Kuenneth
+ */
+class ReplaceEngineTest {
+
+    private static String replace(ReplaceEngine.Mode mode, String text, String... pairs) {
+        return new ReplaceEngine(mode, toPairs(pairs)).replace(text);
+    }
+
+    private static String[][] toPairs(String... pairs) {
+        String[][] result = new String[pairs.length / 2][];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = new String[]{pairs[2 * i], pairs[2 * i + 1]};
+        }
+        return result;
+    }
+
+    @Test
+    void literalPrefersLeftmostLongestMatch() {
+        assertEquals("2c 1", replace(ReplaceEngine.Mode.LITERAL, "abc a",
+                "a", "1", "ab", "2"));
+        assertEquals("Xd", replace(ReplaceEngine.Mode.LITERAL, "abcd",
+                "bcd", "Y", "abc", "X"));
+        assertEquals("xY", replace(ReplaceEngine.Mode.LITERAL, "xbcd",
+                "abc", "X", "bcd", "Y"));
+    }
+
+    @Test
+    void literalSkipsEmptyAndDuplicateSearchStrings() {
+        assertEquals("1b", replace(ReplaceEngine.Mode.LITERAL, "ab",
+                "", "empty", "a", "1", "a", "2"));
+        assertEquals("abc", replace(ReplaceEngine.Mode.LITERAL, "abc", "", "x"));
+    }
+
+    @Test
+    void literalInsertsReplacementAsItIs() {
+        assertEquals("$1\\x", replace(ReplaceEngine.Mode.LITERAL, "ax", "a", "$1\\"));
+    }
+
+    @Test
+    void literalContinuesAfterMatch() {
+        assertEquals("bba", replace(ReplaceEngine.Mode.LITERAL, "aaa", "aa", "bb"));
+        assertEquals(1, new ReplaceEngine(ReplaceEngine.Mode.LITERAL,
+                toPairs("aa", "bb")).count("aaa"));
+    }
+
+    @Test
+    void wholeWordIgnoresPartsOfWords() {
+        assertEquals("dog concat cat_s dog.", replace(ReplaceEngine.Mode.WHOLE_WORD,
+                "cat concat cat_s cat.", "cat", "dog"));
+        assertEquals("\u00fcber", replace(ReplaceEngine.Mode.WHOLE_WORD,
+                "\u00fcber", "ber", "x"));
+    }
+
+    @Test
+    void wholeWordFallsBackToShorterMatch() {
+        // "a b" is not a whole word in "a bc", but "a" is
+        assertEquals("1 bc", replace(ReplaceEngine.Mode.WHOLE_WORD, "a bc",
+                "a", "1", "a b", "2"));
+        assertEquals("2", replace(ReplaceEngine.Mode.WHOLE_WORD, "a b",
+                "a", "1", "a b", "2"));
+        assertEquals("a-b", replace(ReplaceEngine.Mode.WHOLE_WORD, "a+b", "+", "-"));
+    }
+
+    @Test
+    void regexResolvesGroupReferences() {
+        assertEquals("host at me", replace(ReplaceEngine.Mode.REGEX, "me@host",
+                "(\\w+)@(\\w+)", "$2 at $1"));
+        assertEquals("05/2026", replace(ReplaceEngine.Mode.REGEX, "2026-05",
+                "(?<y>\\d{4})-(?<m>\\d\\d)", "${m}/${y}"));
+        assertEquals("$a\\", replace(ReplaceEngine.Mode.REGEX, "a",
+                "(a)", "\\$$1\\\\"));
+        // there is no group 10, so this is group 1 followed by '0'
+        assertEquals("a0", replace(ReplaceEngine.Mode.REGEX, "a", "(a)", "$10"));
+        // a group that did not participate is empty
+        assertEquals("[]", replace(ReplaceEngine.Mode.REGEX, "a", "(a)|(b)", "[$2]"));
+    }
+
+    @Test
+    void regexAgreesWithReplaceAll() {
+        String[][] cases = {
+                {"x*", "-", "abc"},
+                {"(\\d+)", "<$1>", "a1b22c333"},
+                {"^|$", "|", "line"},
+                {"(a)(b)(c)(d)(e)(f)(g)(h)(i)(j)(k)", "$11$10$1", "abcdefghijk!"},
+                {"\\s+", " ", " a \t b\n\nc "}
+        };
+        for (String[] c : cases) {
+            assertEquals(Pattern.compile(c[0]).matcher(c[2]).replaceAll(c[1]),
+                    replace(ReplaceEngine.Mode.REGEX, c[2], c[0], c[1]), c[0]);
+        }
+    }
+
+    @Test
+    void regexPrefersLeftmostThenFirstPattern() {
+        assertEquals("AB", replace(ReplaceEngine.Mode.REGEX, "aab", "b", "B", "a+", "A"));
+        assertEquals("1", replace(ReplaceEngine.Mode.REGEX, "ab", "ab", "1", "a", "2"));
+        assertEquals("2b", replace(ReplaceEngine.Mode.REGEX, "ab", "a", "2", "ab", "1"));
+    }
+
+    @Test
+    void countMatchesReplace() {
+        ReplaceEngine engine = new ReplaceEngine(ReplaceEngine.Mode.REGEX,
+                toPairs("a", "x", "b+", "y"));
+        StringBuilder sb = new StringBuilder();
+        assertEquals(4, engine.replace("abbcab", sb));
+        assertEquals("xycxy", sb.toString());
+        assertEquals(4, engine.count("abbcab"));
+    }
+
+    @Test
+    void malformedInputIsRejected() {
+        assertThrows(PatternSyntaxException.class, () ->
+                new ReplaceEngine(ReplaceEngine.Mode.REGEX, toPairs("(", "x")));
+        assertThrows(IllegalArgumentException.class, () ->
+                replace(ReplaceEngine.Mode.REGEX, "a", "a", "$"));
+        assertThrows(IllegalArgumentException.class, () ->
+                replace(ReplaceEngine.Mode.REGEX, "a", "a", "x\\"));
+        assertThrows(IllegalArgumentException.class, () ->
+                replace(ReplaceEngine.Mode.REGEX, "a", "a", "${name"));
+        assertThrows(IndexOutOfBoundsException.class, () ->
+                replace(ReplaceEngine.Mode.REGEX, "a", "(a)", "$2"));
+    }
+
+    @Test
+    void literalModesAgreeWithNaiveImplementation() {
+        Random r = new Random(4711);
+        for (int run = 0; run < 5000; run++) {
+            String[][] pairs = new String[1 + r.nextInt(4)][];
+            for (int i = 0; i < pairs.length; i++) {
+                pairs[i] = new String[]{randomString(r, "ab", 1 + r.nextInt(3)), "<" + i + ">"};
+            }
+            String text = randomString(r, "ab _", r.nextInt(30));
+            for (ReplaceEngine.Mode mode : new ReplaceEngine.Mode[]{
+                    ReplaceEngine.Mode.LITERAL, ReplaceEngine.Mode.WHOLE_WORD}) {
+                assertEquals(naive(mode, text, pairs),
+                        new ReplaceEngine(mode, pairs).replace(text),
+                        () -> mode + " " + text);
+            }
+        }
+    }
+
+    private static String randomString(Random r, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(r.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    private static String naive(ReplaceEngine.Mode mode, String text, String[][] pairs) {
+        StringBuilder sb = new StringBuilder();
+        int i = 0;
+        while (i < text.length()) {
+            int best = -1;
+            for (int k = 0; k < pairs.length; k++) {
+                String s = pairs[k][0];
+                if (text.startsWith(s, i)
+                        && (mode == ReplaceEngine.Mode.LITERAL || isWord(text, i, i + s.length()))
+                        && (best < 0 || s.length() > pairs[best][0].length())) {
+                    best = k;
+                }
+            }
+            if (best < 0) {
+                sb.append(text.charAt(i++));
+            } else {
+                sb.append(pairs[best][1]);
+                i += pairs[best][0].length();
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isWord(String text, int start, int end) {
+        return (start == 0 || !isWordChar(text.charAt(start - 1)) || !isWordChar(text.charAt(start)))
+                && (end == text.length() || !isWordChar(text.charAt(end))
+                || !isWordChar(text.charAt(end - 1)));
+    }
+
+    private static boolean isWordChar(char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '_';
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * SnippetListModelTest.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link SnippetListModel#update(List)}: a listener that applies the
+ * events to its own copy of the list must end up with the same entries.
+ *
+ * @author Thomas Kuenneth
+ */
+class SnippetListModelTest {
+
+    private SnippetListModel model;
+    private List<String> mirror;
+    private List<ListDataEvent> events;
+
+    @BeforeEach
+    void createModel() {
+        model = new SnippetListModel();
+        mirror = new ArrayList<>();
+        events = new ArrayList<>();
+        model.addListDataListener(new ListDataListener() {
+            @Override
+            public void intervalAdded(ListDataEvent e) {
+                events.add(e);
+                for (int i = e.getIndex0(); i <= e.getIndex1(); i++) {
+                    mirror.add(i, model.getElementAt(i).getValue());
+                }
+            }
+
+            @Override
+            public void intervalRemoved(ListDataEvent e) {
+                events.add(e);
+                mirror.subList(e.getIndex0(), e.getIndex1() + 1).clear();
+            }
+
+            @Override
+            public void contentsChanged(ListDataEvent e) {
+                events.add(e);
+                for (int i = e.getIndex0(); i <= e.getIndex1(); i++) {
+                    mirror.set(i, model.getElementAt(i).getValue());
+                }
+            }
+        });
+    }
+
+    private static List<Entry> entries(String... values) {
+        List<Entry> l = new ArrayList<>();
+        for (String value : values) {
+            l.add(new Entry(value.toUpperCase(), value));
+        }
+        return l;
+    }
+
+    private List<String> values() {
+        List<String> l = new ArrayList<>();
+        model.getEntries().forEach(e -> l.add(e.getValue()));
+        return l;
+    }
+
+    @Test
+    void coalescesChanges() {
+        assertTrue(model.update(entries("a", "b", "c", "d", "e")));
+        assertEquals(1, events.size());
+        events.clear();
+        assertTrue(model.update(entries("a", "x", "d", "c", "e", "f")));
+        assertEquals(List.of("a", "x", "d", "c", "e", "f"), values());
+        assertEquals(values(), mirror);
+        // one range from the first to the last change: 1..4 changed, 5 added
+        assertEquals(2, events.size());
+        assertEquals(ListDataEvent.CONTENTS_CHANGED, events.get(0).getType());
+        assertEquals(1, events.get(0).getIndex0());
+        assertEquals(4, events.get(0).getIndex1());
+        assertEquals(ListDataEvent.INTERVAL_ADDED, events.get(1).getType());
+        assertEquals(5, events.get(1).getIndex0());
+        events.clear();
+        assertTrue(model.update(entries("a", "d", "c", "e", "f")));
+        assertEquals(values(), mirror);
+        // only x removed
+        assertEquals(1, events.size());
+        assertEquals(ListDataEvent.INTERVAL_REMOVED, events.get(0).getType());
+        assertEquals(1, events.get(0).getIndex0());
+        assertEquals(1, events.get(0).getIndex1());
+    }
+
+    @Test
+    void firesNothingIfUnchanged() {
+        model.update(entries("a", "b"));
+        events.clear();
+        assertFalse(model.update(entries("a", "b")));
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void keepsListenersInSync() {
+        Random r = new Random(4711);
+        for (int run = 0; run < 2000; run++) {
+            String[] values = new String[r.nextInt(12)];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = String.valueOf((char) ('a' + r.nextInt(10)));
+            }
+            events.clear();
+            model.update(entries(values));
+            assertTrue(events.size() <= 2, () -> events.size() + " events");
+            assertEquals(values(), mirror);
+        }
+    }
+
+    @Test
+    void keepsListenersInSyncWhenReordering() {
+        String[] values = new String[200];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = "v" + i;
+        }
+        model.update(entries(values));
+        // more moves than MAX_MOVES
+        List<String> l = new ArrayList<>(List.of(values));
+        Collections.shuffle(l, new Random(4711));
+        events.clear();
+        assertTrue(model.update(entries(l.toArray(new String[0]))));
+        assertEquals(l, values());
+        assertEquals(l, mirror);
+        assertEquals(1, events.size());
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * SnippetListTest.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link SnippetList}: round trips, and that lists which cannot be read
+ * are reported and not overwritten.
+ *
+ * @author Thomas Kuenneth
+ */
+class SnippetListTest {
+
+    @TempDir
+    File dir;
+
+    @AfterEach
+    void flush() {
+        FileHelper.flush();
+    }
+
+    private File listFile() {
+        return new File(dir, "list");
+    }
+
+    private static List<Entry> sample() {
+        Entry a = new Entry("Gr\u00fc\u00dfe", "a");
+        a.setMetadata(42, Entry.TYPE_HTML, 0x12345678);
+        return List.of(a, new Entry("", "b"));
+    }
+
+    @Test
+    void roundTrips() throws IOException {
+        Files.write(listFile().toPath(), SnippetList.encode(sample()));
+        List<Entry> entries = SnippetList.load(listFile());
+        assertEquals(2, entries.size());
+        Entry a = entries.get(0);
+        assertEquals("Gr\u00fc\u00dfe", a.getKey());
+        assertEquals("a", a.getValue());
+        assertEquals(42, a.getSize());
+        assertEquals(Entry.TYPE_HTML, a.getContentType());
+        assertEquals(0x12345678, a.getChecksum());
+        assertEquals("", entries.get(1).getKey());
+        assertEquals("b", entries.get(1).getValue());
+    }
+
+    @Test
+    void missingListIsEmpty() throws IOException {
+        assertTrue(SnippetList.load(listFile()).isEmpty());
+        assertTrue(SnippetList.save(listFile(), sample()));
+    }
+
+    @Test
+    void truncatedListIsNotOverwritten() throws IOException {
+        byte[] data = SnippetList.encode(sample());
+        byte[] truncated = Arrays.copyOf(data, data.length - 3);
+        Files.write(listFile().toPath(), truncated);
+        assertThrows(IOException.class, () -> SnippetList.load(listFile()));
+        assertFalse(SnippetList.save(listFile(), List.of()));
+        assertArrayEquals(truncated, Files.readAllBytes(listFile().toPath()));
+        // once the list can be read again, it may be saved
+        Files.write(listFile().toPath(), data);
+        assertEquals(2, SnippetList.load(listFile()).size());
+        assertTrue(SnippetList.save(listFile(), List.of()));
+    }
+
+    @Test
+    void rejectsUnknownVersion() throws IOException {
+        byte[] data = SnippetList.encode(sample());
+        data[4] = 99;
+        Files.write(listFile().toPath(), data);
+        assertThrows(IOException.class, () -> SnippetList.load(listFile()));
+        assertFalse(SnippetList.save(listFile(), sample()));
+    }
+
+    @Test
+    void rejectsCorruptCount() throws IOException {
+        // header, version, a count that does not fit into an int
+        byte[] negative = {'C', '4', 'M', 'L', 1, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x0f};
+        Files.write(listFile().toPath(), negative);
+        assertThrows(IOException.class, () -> SnippetList.load(listFile()));
+        byte[] data = SnippetList.encode(sample());
+        data[5] = 100;
+        Files.write(listFile().toPath(), data);
+        assertThrows(IOException.class, () -> SnippetList.load(listFile()));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * TransformInfoReaderTest.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests {@link TransformInfoReader} with the class files of the built-in
+ * plugins.
+ *
+ * @author Thomas Kuenneth
+ */
+class TransformInfoReaderTest {
+
+    private static Map<String, String> read(Class<?> c) throws IOException {
+        try (InputStream in = c.getResourceAsStream(c.getName().substring(
+                c.getPackageName().length() + 1) + ".class")) {
+            return TransformInfoReader.read(in);
+        }
+    }
+
+    @Test
+    void readsAnnotation() throws IOException {
+        assertEquals(Map.of("id", "quote", "label", "MI_QUOTE"),
+                read(BuiltinTransforms.Quote.class));
+        assertEquals(Map.of("id", "encodeHex", "label", "MI_ENCODE_HEX", "group", "MI_ESCAPES"),
+                read(BuiltinTransforms.EncodeHex.class));
+    }
+
+    @Test
+    void agreesWithReflection() throws IOException {
+        for (Class<?> c : BuiltinTransforms.class.getClasses()) {
+            TransformInfo info = c.getAnnotation(TransformInfo.class);
+            Map<String, String> values = read(c);
+            assertEquals(info.id(), values.get("id"));
+            assertEquals(info.label(), values.get("label"));
+            assertEquals(info.group(), values.getOrDefault("group", ""));
+        }
+    }
+
+    @Test
+    void returnsNullIfNotAnnotated() throws IOException {
+        assertNull(read(TransformInfoReaderTest.class));
+        assertNull(read(BuiltinTransforms.class));
+    }
+
+    @Test
+    void rejectsOtherFiles() {
+        assertThrows(IOException.class, () -> TransformInfoReader.read(
+                new ByteArrayInputStream("PK\u0003\u0004".getBytes())));
+        byte[] truncated = {(byte) 0xca, (byte) 0xfe, (byte) 0xba, (byte) 0xbe, 0, 0, 0, 61, 0};
+        assertThrows(IOException.class, () -> TransformInfoReader.read(
+                new ByteArrayInputStream(truncated)));
+    }
+}
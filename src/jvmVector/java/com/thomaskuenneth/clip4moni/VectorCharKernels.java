@@ -0,0 +1,116 @@
+/*
+ * VectorCharKernels.java
+ *
+ * This file is part of Clip4Moni.
+ *
+ * Copyright (C) 2026  Thomas Kuenneth
+ *
+ * Clip4Moni is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package com.thomaskuenneth.clip4moni;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vectorized implementation of {@link CharKernels}. This class must only be
+ * loaded if {@code jdk.incubator.vector} is part of the module graph.
+ *
+ * @author Thomas Kuenneth
+ */
+final class VectorCharKernels implements CharKernels.Impl {
+
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+    private static final int LENGTH = SPECIES.length();
+
+    private final CharKernels.Impl scalar = new CharKernels.Scalar();
+
+    VectorCharKernels() {
+        // narrow vectors are not worth it, and may not be intrinsified
+        if (LENGTH < 8) {
+            throw new UnsupportedOperationException(SPECIES.toString());
+        }
+    }
+
+    @Override
+    public int indexOf(char[] a, char ch, int from, int to) {
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for (; i < bound; i += LENGTH) {
+            VectorMask<Short> m = ShortVector.fromCharArray(SPECIES, a, i).eq((short) ch);
+            if (m.anyTrue()) {
+                return i + m.firstTrue();
+            }
+        }
+        return scalar.indexOf(a, ch, i, to);
+    }
+
+    @Override
+    public int indexOfLineTerminator(char[] a, int from, int to) {
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for (; i < bound; i += LENGTH) {
+            ShortVector v = ShortVector.fromCharArray(SPECIES, a, i);
+            VectorMask<Short> m = v.eq((short) '\n').or(v.eq((short) '\r'));
+            if (m.anyTrue()) {
+                return i + m.firstTrue();
+            }
+        }
+        return scalar.indexOfLineTerminator(a, i, to);
+    }
+
+    @Override
+    public int indexOfNonAscii(char[] a, int from, int to) {
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for (; i < bound; i += LENGTH) {
+            VectorMask<Short> m = ShortVector.fromCharArray(SPECIES, a, i)
+                    .and((short) 0xff80).eq((short) 0).not();
+            if (m.anyTrue()) {
+                return i + m.firstTrue();
+            }
+        }
+        return scalar.indexOfNonAscii(a, i, to);
+    }
+
+    @Override
+    public int indexOfNonWordChar(char[] a, int from, int to) {
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for (; i < bound; i += LENGTH) {
+            ShortVector v = ShortVector.fromCharArray(SPECIES, a, i);
+            // characters outside ASCII are negative or greater than 'z'
+            ShortVector lower = v.or((short) 0x20);
+            VectorMask<Short> word = lower.compare(VectorOperators.GE, (short) 'a')
+                    .and(lower.compare(VectorOperators.LE, (short) 'z'))
+                    .or(v.compare(VectorOperators.GE, (short) '0')
+                            .and(v.compare(VectorOperators.LE, (short) '9')))
+                    .or(v.eq((short) ' '))
+                    .or(v.eq((short) '.'))
+                    .or(v.eq((short) '-'));
+            VectorMask<Short> m = word.not();
+            if (m.anyTrue()) {
+                return i + m.firstTrue();
+            }
+        }
+        return scalar.indexOfNonWordChar(a, i, to);
+    }
+
+    @Override
+    public String toString() {
+        return "VectorCharKernels[" + SPECIES + "]";
+    }
+}